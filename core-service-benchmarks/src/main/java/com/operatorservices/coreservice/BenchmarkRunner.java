@@ -0,0 +1,36 @@
+package com.operatorservices.coreservice;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+//Entry point of benchmarks.jar. Accepts the usual JMH arguments, but unless told otherwise writes the results
+//as JSON to jmh-results/<benchmark.label>.json, so that runs of different commits can be compared side by side.
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws Exception {
+
+        CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLineOptions);
+
+        if (!commandLineOptions.getResultFormat().hasValue()) {
+            options.resultFormat(ResultFormatType.JSON);
+        }
+        if (!commandLineOptions.getResult().hasValue()) {
+            String label = System.getProperty("benchmark.label",
+                    LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")));
+            Path result = Path.of("jmh-results", label + ".json");
+            Files.createDirectories(result.getParent());
+            options.result(result.toString());
+        }
+
+        new Runner(options.build()).run();
+    }
+}
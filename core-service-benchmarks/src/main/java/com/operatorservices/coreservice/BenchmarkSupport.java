@@ -0,0 +1,93 @@
+package com.operatorservices.coreservice;
+
+import com.operatorservices.coreservice.dto.*;
+import com.operatorservices.coreservice.model.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+public abstract class BenchmarkSupport {
+
+    public Customer newCustomer(String id, Set<Account> accounts) {
+        return new Customer(
+                id,
+                LocalDateTime.now(),
+                "Name",
+                "Surname",
+                "bench@mail.com",
+                "password",
+                accounts
+        );
+    }
+
+    public SubPackage newSubPackage(Long subPackageId) {
+        return new SubPackage(
+                subPackageId,
+                "BenchPackage",
+                PackageType.COMBO,
+                30,
+                true,
+                Set.of());
+    }
+
+    //Account whose purchase set is filled after construction, the way Hibernate wires both sides.
+    public Account newAccount(String id, Customer customer, int purchaseCount) {
+        Set<Purchase> purchases = new LinkedHashSet<>();
+        Account account = new Account(
+                id,
+                customer,
+                LocalDateTime.now(),
+                BigDecimal.valueOf(1_000_000),
+                TariffType.PREMIUM,
+                purchases);
+
+        for (int i = 0; i < purchaseCount; i++) {
+            purchases.add(new Purchase(
+                    id + "-purchase-" + i,
+                    LocalDateTime.now(),
+                    (short) 10,
+                    account,
+                    newSubPackage((long) (i % 20))));
+        }
+        return account;
+    }
+
+    public PackageDto newPackageDto(SubPackage subPackage) {
+        return new PackageDto(
+                subPackage.getId(),
+                subPackage.getName(),
+                subPackage.getPackageType(),
+                subPackage.getDuration(),
+                subPackage.getPurchasable());
+    }
+
+    public AccountDto newAccountDto(Account account) {
+        Customer customer = account.getCustomer();
+        return new AccountDto(
+                account.getId(),
+                account.getCreationDate(),
+                new AccountRequestGetCustomerDto(
+                        customer.getId(), customer.getName(), customer.getSurname(), customer.getEmail()),
+                account.getTariffType(),
+                account.getAccountBalance(),
+                account.getPurchases().stream()
+                        .map(purchase -> new PurchaseDto(
+                                purchase.getId(),
+                                purchase.getPurchaseDate(),
+                                newPackageDto(purchase.getSubPackage())))
+                        .collect(Collectors.toSet()));
+    }
+
+    public CustomerGetDto newCustomerGetDto(String id) {
+        return new CustomerGetDto(
+                id,
+                LocalDateTime.now(),
+                "Name",
+                "Surname",
+                "bench@mail.com",
+                Set.of());
+    }
+}
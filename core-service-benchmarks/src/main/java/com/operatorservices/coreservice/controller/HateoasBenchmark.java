@@ -0,0 +1,89 @@
+package com.operatorservices.coreservice.controller;
+
+import com.operatorservices.coreservice.BenchmarkSupport;
+import com.operatorservices.coreservice.controller.modelAssembler.AccountModelAssembler;
+import com.operatorservices.coreservice.dto.AccountDto;
+import com.operatorservices.coreservice.dto.CustomerGetDto;
+import com.operatorservices.coreservice.model.Customer;
+import com.operatorservices.coreservice.service.CustomerService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.HateoasPageableHandlerMethodArgumentResolver;
+import org.springframework.data.web.PagedResourcesAssembler;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+//Links are built against a bound request as in production. The stubbed service returns fresh DTOs on every call,
+//since CustomerController adds its links to the DTO it receives.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HateoasBenchmark extends BenchmarkSupport {
+
+    @Param({"1", "100"})
+    private int customerCount;
+
+    private final AccountModelAssembler accountModelAssembler = new AccountModelAssembler();
+    private final PagedResourcesAssembler<CustomerGetDto> pagedResourcesAssembler =
+            new PagedResourcesAssembler<>(new HateoasPageableHandlerMethodArgumentResolver(), null);
+    private CustomerController customerController;
+    private AccountDto accountDto;
+
+    @Setup
+    public void setUp() {
+        RequestContextHolder.setRequestAttributes(
+                new ServletRequestAttributes(new MockHttpServletRequest("GET", "/v1/customers")));
+
+        Customer customer = newCustomer("customer", new HashSet<>());
+        accountDto = newAccountDto(newAccount("account", customer, 10));
+
+        customerController = new CustomerController(new CustomerService(null, null, null) {
+            @Override
+            public CustomerGetDto getCustomerById(String customerId) {
+                return newCustomerGetDto(customerId);
+            }
+
+            @Override
+            public Page<CustomerGetDto> getCustomers(Pageable pageable) {
+                return new PageImpl<>(IntStream.range(0, customerCount)
+                        .mapToObj(i -> newCustomerGetDto("customer-" + i))
+                        .collect(Collectors.toList()), pageable, customerCount);
+            }
+        });
+    }
+
+    @TearDown
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Benchmark
+    public EntityModel<AccountDto> accountModelAssemblerToModel() {
+        return accountModelAssembler.toModel(accountDto);
+    }
+
+    @Benchmark
+    public ResponseEntity<CustomerGetDto> customerControllerGetCustomerById() {
+        return customerController.getCustomerById("customer");
+    }
+
+    @Benchmark
+    public ResponseEntity<CollectionModel<CustomerGetDto>> customerControllerGetAllCustomers() {
+        return customerController.getAllCustomers(PageRequest.of(0, customerCount), null, pagedResourcesAssembler);
+    }
+}
@@ -0,0 +1,55 @@
+package com.operatorservices.coreservice.dto.converter;
+
+import com.operatorservices.coreservice.BenchmarkSupport;
+import com.operatorservices.coreservice.dto.AccountDto;
+import com.operatorservices.coreservice.dto.CustomerGetDto;
+import com.operatorservices.coreservice.dto.PurchaseDto;
+import com.operatorservices.coreservice.model.Account;
+import com.operatorservices.coreservice.model.Customer;
+import com.operatorservices.coreservice.model.Purchase;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ModelDtoConverterBenchmark extends BenchmarkSupport {
+
+    @Param({"10", "1000", "10000"})
+    private int purchaseCount;
+
+    private final ModelDtoConverter modelDtoConverter = new ModelDtoConverterImpl();
+    private Account account;
+    private Customer customer;
+    private Purchase purchase;
+
+    @Setup
+    public void setUp() {
+        Set<Account> accounts = new HashSet<>();
+        customer = newCustomer("customer", accounts);
+        account = newAccount("account", customer, purchaseCount);
+        accounts.add(account);
+        purchase = account.getPurchases().iterator().next();
+    }
+
+    @Benchmark
+    public AccountDto accountToAccountDto() {
+        return modelDtoConverter.accountToAccountDto(account);
+    }
+
+    @Benchmark
+    public CustomerGetDto customerToCustomerGetDto() {
+        return modelDtoConverter.customerToCustomerGetDto(customer);
+    }
+
+    @Benchmark
+    public PurchaseDto purchaseToPurchaseDto() {
+        return modelDtoConverter.purchaseToPurchaseDto(purchase);
+    }
+}
@@ -0,0 +1,114 @@
+package com.operatorservices.coreservice.model;
+
+import com.operatorservices.coreservice.BenchmarkSupport;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+//equals compares two distinct but equal graphs: the worst case for field-by-field equality, and no different
+//from any other case for the id-based equality of the entities.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EntityBenchmark extends BenchmarkSupport {
+
+    @Param({"10", "1000"})
+    private int purchaseCount;
+
+    private Customer customer;
+    private Customer customerCopy;
+    private Account account;
+    private Account accountCopy;
+    private Purchase purchase;
+    private Purchase purchaseCopy;
+    private SubPackage subPackage;
+    private SubPackage subPackageCopy;
+    private Set<Purchase> purchaseSet;
+    private Set<Account> accountSet;
+
+    @Setup
+    public void setUp() {
+        customer = newCustomer("customer", new HashSet<>());
+        customerCopy = customer.copy(customer.getId(), customer.getCreationDate(), customer.getName(),
+                customer.getSurname(), customer.getEmail(), customer.getPassword(), new HashSet<>());
+        account = newAccount("account", customer, purchaseCount);
+        accountCopy = account.copy(account.getId(), customerCopy, account.getCreationDate(),
+                account.getAccountBalance(), account.getTariffType(), new HashSet<>(account.getPurchases()));
+        purchase = account.getPurchases().iterator().next();
+        purchaseCopy = purchase.copy(purchase.getId(), purchase.getPurchaseDate(), purchase.getPackagePrice(),
+                accountCopy, newSubPackage(purchase.getSubPackage().getId()));
+        subPackage = newSubPackage(1L);
+        subPackageCopy = newSubPackage(1L);
+        purchaseSet = new HashSet<>(account.getPurchases());
+        accountSet = new HashSet<>();
+        for (int i = 0; i < 10; i++) {
+            accountSet.add(newAccount("account-" + i, customer, purchaseCount));
+        }
+        accountSet.add(account);
+    }
+
+    @Benchmark
+    public int customerHashCode() {
+        return customer.hashCode();
+    }
+
+    @Benchmark
+    public boolean customerEquals() {
+        return customer.equals(customerCopy);
+    }
+
+    @Benchmark
+    public int accountHashCode() {
+        return account.hashCode();
+    }
+
+    @Benchmark
+    public boolean accountEquals() {
+        return account.equals(accountCopy);
+    }
+
+    @Benchmark
+    public int purchaseHashCode() {
+        return purchase.hashCode();
+    }
+
+    @Benchmark
+    public boolean purchaseEquals() {
+        return purchase.equals(purchaseCopy);
+    }
+
+    @Benchmark
+    public int subPackageHashCode() {
+        return subPackage.hashCode();
+    }
+
+    @Benchmark
+    public boolean subPackageEquals() {
+        return subPackage.equals(subPackageCopy);
+    }
+
+    //What Account.purchases.remove/contains costs.
+    @Benchmark
+    public boolean purchaseSetContains() {
+        return purchaseSet.contains(purchaseCopy);
+    }
+
+    //What Account.purchases.remove costs; the purchase is put back so every invocation removes one.
+    @Benchmark
+    public boolean purchaseSetRemove() {
+        boolean removed = purchaseSet.remove(purchaseCopy);
+        purchaseSet.add(purchase);
+        return removed;
+    }
+
+    //What Customer.accounts.contains costs when every account holds purchaseCount purchases.
+    @Benchmark
+    public boolean accountSetContains() {
+        return accountSet.contains(accountCopy);
+    }
+}
@@ -0,0 +1,116 @@
+package com.operatorservices.coreservice.repository;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+//Bulk inserts into a purchase-like table keyed by each kind of id, against a running Postgres
+//(-Dbenchmark.jdbc.url, -Dbenchmark.jdbc.user, -Dbenchmark.jdbc.password). The table is filled beforehand,
+//as the cost of random keys only shows once the primary key index no longer fits the recently used pages.
+//The sizes of the table and of its primary key index are printed when a trial ends.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PrimaryKeyInsertBenchmark {
+
+    private static final int BATCH_SIZE = 1000;
+    private static final String TABLE = "pk_insert_benchmark";
+
+    @Param({"varchar-v4", "uuid-v4", "uuid-v7"})
+    private String keyType;
+
+    @Param({"1000000"})
+    private int prefilledRows;
+
+    private Connection connection;
+    private PreparedStatement insert;
+    private boolean varchar;
+    private boolean timeOrdered;
+    private String accountId;
+
+    @Setup
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection(
+                System.getProperty("benchmark.jdbc.url", "jdbc:postgresql://localhost:5432/postgres"),
+                System.getProperty("benchmark.jdbc.user", "postgres"),
+                System.getProperty("benchmark.jdbc.password", "pipe_of_gandalf"));
+        varchar = keyType.startsWith("varchar");
+        timeOrdered = keyType.endsWith("v7");
+        accountId = nextId();
+
+        String columnType = varchar ? "varchar(255)" : "uuid";
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("drop table if exists " + TABLE);
+            statement.execute("create table " + TABLE + " (id " + columnType + " primary key, account_id "
+                    + columnType + " not null, package_price smallint not null, purchase_date timestamp(6) not null)");
+        }
+        insert = connection.prepareStatement("insert into " + TABLE
+                + " (id, account_id, package_price, purchase_date) values (?, ?, 10, localtimestamp)");
+        connection.setAutoCommit(false);
+        for (int rows = 0; rows < prefilledRows; rows += BATCH_SIZE) {
+            insertBatch();
+        }
+        connection.setAutoCommit(true);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("vacuum analyze " + TABLE);
+        }
+        connection.setAutoCommit(false);
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet sizes = statement.executeQuery("select count(*), pg_relation_size('" + TABLE + "_pkey'),"
+                     + " pg_relation_size('" + TABLE + "') from " + TABLE)) {
+            sizes.next();
+            long rows = sizes.getLong(1);
+            System.out.printf("%n%s: %d rows, primary key index %d MB (%d bytes per row), table %d MB%n", keyType,
+                    rows, sizes.getLong(2) >> 20, sizes.getLong(2) / rows, sizes.getLong(3) >> 20);
+            statement.execute("drop table " + TABLE);
+        }
+        connection.commit();
+        connection.close();
+    }
+
+    private String nextId() {
+        return timeOrdered
+                ? TimeOrderedUuidGenerator.generate().toString()
+                : UUID.randomUUID().toString();
+    }
+
+    //Binds the way the application does: varchar ids as strings, uuid ids as untyped strings.
+    private void bind(int index, String id) throws SQLException {
+        if (varchar) {
+            insert.setString(index, id);
+        } else {
+            insert.setObject(index, id, Types.OTHER);
+        }
+    }
+
+    private void insertBatch() throws SQLException {
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            bind(1, nextId());
+            bind(2, accountId);
+            insert.addBatch();
+        }
+        insert.executeBatch();
+        connection.commit();
+    }
+
+    //One transaction of BATCH_SIZE purchases, each of a new id.
+    @Benchmark
+    public void insertBatchOfPurchases() throws SQLException {
+        insertBatch();
+    }
+}
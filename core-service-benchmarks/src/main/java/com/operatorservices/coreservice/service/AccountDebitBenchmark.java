@@ -0,0 +1,74 @@
+package com.operatorservices.coreservice.service;
+
+import com.operatorservices.coreservice.CoreServiceApplication;
+import com.operatorservices.coreservice.dto.AccountCreateRequestDto;
+import com.operatorservices.coreservice.dto.AccountUpdateRequestDto;
+import com.operatorservices.coreservice.dto.CustomerCreateRequestDto;
+import com.operatorservices.coreservice.model.Account;
+import com.operatorservices.coreservice.model.TariffType;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+//Debits of one hot account from 32 threads through the application context, against a running Postgres: the
+//datasource of application.properties, or -Dspring.datasource.url. Scores are debits per second of the guarded
+//debit (AccountService.debitAccount, one conditional update) and of the read-modify-write path it replaced
+//(load, compute in Java, updateAccount), which also loses debits under contention.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(32)
+@Fork(1)
+public class AccountDebitBenchmark {
+
+    private ConfigurableApplicationContext context;
+    private AccountService accountService;
+    private PurchaseService purchaseService;
+    private String customerId;
+    private String accountId;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(CoreServiceApplication.class)
+                .properties(
+                        "spring.cloud.consul.enabled=false",
+                        "logging.level.root=warn")
+                .run();
+        accountService = context.getBean(AccountService.class);
+        purchaseService = context.getBean(PurchaseService.class);
+
+        customerId = context.getBean(CustomerService.class).createCustomer(
+                new CustomerCreateRequestDto("Bench", "Mark", "bench@mail.com", "password")).getId();
+        accountId = accountService.createAccount(new AccountCreateRequestDto(
+                customerId, BigDecimal.valueOf(1_000_000_000L), TariffType.STANDARD)).getId();
+    }
+
+    @TearDown
+    public void tearDown() {
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        jdbcTemplate.update("delete from account where customer_id = cast(? as uuid)", customerId);
+        jdbcTemplate.update("delete from customer where id = cast(? as uuid)", customerId);
+        context.close();
+    }
+
+    @Benchmark
+    public boolean guardedDebit() {
+        return accountService.debitAccount(accountId, BigDecimal.ONE);
+    }
+
+    @Benchmark
+    public Object readModifyWrite() {
+        Account account = accountService.returnAccountById(accountId);
+        BigDecimal newBalance = purchaseService.returnBalance(
+                Objects.requireNonNull(account.getAccountBalance()), (short) 1, "bench");
+        return accountService.updateAccount(
+                new AccountUpdateRequestDto(newBalance, Objects.requireNonNull(account.getTariffType())), accountId);
+    }
+}
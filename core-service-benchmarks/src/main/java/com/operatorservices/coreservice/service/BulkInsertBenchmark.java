@@ -0,0 +1,119 @@
+package com.operatorservices.coreservice.service;
+
+import com.operatorservices.coreservice.CoreServiceApplication;
+import com.operatorservices.coreservice.dto.AccountCreateRequestDto;
+import com.operatorservices.coreservice.dto.CustomerCreateRequestDto;
+import com.operatorservices.coreservice.dto.PackageRequestDto;
+import com.operatorservices.coreservice.dto.PurchaseCreateRequestDto;
+import com.operatorservices.coreservice.model.PackageType;
+import com.operatorservices.coreservice.model.SubPackage;
+import com.operatorservices.coreservice.model.TariffType;
+import com.operatorservices.coreservice.repository.SubPackageRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+//Bulk purchases (PurchaseService.createPurchases, with their outbox events) and package seeding
+//(SubPackageRepository.saveAll) through the application context, against a running Postgres: the datasource
+//of application.properties, or -Dspring.datasource.url. Scores are rows per second. The JDBC statements
+//Hibernate prepared per 1000 rows are printed when a trial ends: one per row unless the inserts are batched.
+//Everything the trial inserted is deleted again.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BulkInsertBenchmark {
+
+    private static final int ROWS = 1000;
+    private static final int ACCOUNTS = 10;
+    private static final String PACKAGE_PREFIX = "bench-";
+
+    private ConfigurableApplicationContext context;
+    private PurchaseService purchaseService;
+    private SubPackageRepository subPackageRepository;
+    private TransactionTemplate transactionTemplate;
+    private JdbcTemplate jdbcTemplate;
+    private Statistics statistics;
+    private String customerId;
+    private long lastOutboxEventId;
+    private List<PurchaseCreateRequestDto> purchaseRequests;
+    private long runs;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(CoreServiceApplication.class)
+                .properties(
+                        "spring.cloud.consul.enabled=false",
+                        "spring.jpa.properties.hibernate.generate_statistics=true",
+                        "outbox.relay.interval-ms=3600000",
+                        "logging.level.root=warn")
+                .run();
+        purchaseService = context.getBean(PurchaseService.class);
+        subPackageRepository = context.getBean(SubPackageRepository.class);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+
+        AccountService accountService = context.getBean(AccountService.class);
+        customerId = context.getBean(CustomerService.class).createCustomer(
+                new CustomerCreateRequestDto("Bench", "Mark", "bench@mail.com", "password")).getId();
+        List<String> accountIds = new ArrayList<>();
+        for (int i = 0; i < ACCOUNTS; i++) {
+            accountIds.add(accountService.createAccount(new AccountCreateRequestDto(
+                    customerId, BigDecimal.valueOf(1_000_000_000L), TariffType.STANDARD)).getId());
+        }
+        Long packageId = context.getBean(SubPackageService.class).createPackage(
+                new PackageRequestDto(PACKAGE_PREFIX + "purchased", PackageType.COMBO, true, 30)).getId();
+
+        purchaseRequests = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            purchaseRequests.add(new PurchaseCreateRequestDto(accountIds.get(i % ACCOUNTS), packageId, (short) 1));
+        }
+        lastOutboxEventId = jdbcTemplate.queryForObject("select coalesce(max(id), 0) from outbox_event", Long.class);
+        statistics.clear();
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.out.printf("%n%d JDBC statements prepared per %d rows%n",
+                statistics.getPrepareStatementCount() / Math.max(runs, 1), ROWS);
+
+        jdbcTemplate.update("delete from outbox_event where id > ?", lastOutboxEventId);
+        jdbcTemplate.update("delete from purchase where account_id in"
+                + " (select id from account where customer_id = cast(? as uuid))", customerId);
+        jdbcTemplate.update("delete from account where customer_id = cast(? as uuid)", customerId);
+        jdbcTemplate.update("delete from customer where id = cast(? as uuid)", customerId);
+        jdbcTemplate.update("delete from sub_package where name like ?", PACKAGE_PREFIX + "%");
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public List<Object> purchases() {
+        runs++;
+        return purchaseService.createPurchases(purchaseRequests);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public List<SubPackage> packageSeeding() {
+        runs++;
+        List<SubPackage> subPackages = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            subPackages.add(new SubPackage(PACKAGE_PREFIX + i, PackageType.COMBO, 30, true));
+        }
+        return transactionTemplate.execute(status -> subPackageRepository.saveAll(subPackages));
+    }
+}
@@ -0,0 +1,35 @@
+package com.operatorservices.coreservice.service;
+
+import com.operatorservices.coreservice.exception.InsufficientFundsException;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PurchaseServiceBenchmark {
+
+    private final PurchaseService purchaseService = new PurchaseService(null, null, null, null, null);
+    private final BigDecimal sufficientBalance = BigDecimal.valueOf(1_000);
+    private final BigDecimal insufficientBalance = BigDecimal.valueOf(10);
+
+    @Benchmark
+    public BigDecimal returnBalance() {
+        return purchaseService.returnBalance(sufficientBalance, (short) 100, "BenchPackage");
+    }
+
+    //The rejection path builds an exception with its message and stack trace.
+    @Benchmark
+    public Object returnBalanceInsufficientFunds() {
+        try {
+            return purchaseService.returnBalance(insufficientBalance, (short) 100, "BenchPackage");
+        } catch (InsufficientFundsException exception) {
+            return exception;
+        }
+    }
+}
@@ -2,6 +2,10 @@ package com.operatorservices.coreservice.config;
 
 
 import com.hazelcast.config.*;
+import com.operatorservices.coreservice.repository.AccountBalanceMapStore;
+import com.operatorservices.coreservice.service.GridBalanceStore;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -10,8 +14,14 @@ import org.springframework.context.annotation.Configuration;
 @EnableCaching
 public class HazelcastCacheConfig {
 
+    @Value("${core.balance.grid.write-delay-seconds}")
+    private int balanceWriteDelaySeconds;
+
+    @Value("${core.balance.grid.write-batch-size}")
+    private int balanceWriteBatchSize;
+
     @Bean
-    public  Config hazelcastConfig(){
+    public  Config hazelcastConfig(ObjectProvider<AccountBalanceMapStore> accountBalanceMapStore){
 
         EvictionConfig evictionConfig = new EvictionConfig();
         evictionConfig.setEvictionPolicy(EvictionPolicy.LRU).
@@ -27,8 +37,31 @@ public class HazelcastCacheConfig {
         hazelcastConfig.setInstanceName("hazelcast-cache")
                 .addMapConfig(mapConfig);
 
+        //Only in grid balance mode. Such members form their own cluster, as a member without the MapStore must
+        //never own a balance, and use their own instance name, as members are looked up by it.
+        accountBalanceMapStore.ifAvailable(mapStore -> hazelcastConfig
+                .setInstanceName("hazelcast-cache-balances")
+                .setClusterName("core-service-balances")
+                .addMapConfig(balancesMapConfig(mapStore)));
+
         return hazelcastConfig;
     }
 
+    //Write-behind: balance changes are durable as the entries journaled in their own transactions, so stores only
+    //fold those entries into the snapshots, in batches; coalescing folds each changed account once per batch.
+    //The synchronous backup keeps the map itself available when its owner fails.
+    public MapConfig balancesMapConfig(AccountBalanceMapStore accountBalanceMapStore) {
 
+        MapStoreConfig mapStoreConfig = new MapStoreConfig()
+                .setEnabled(true)
+                .setImplementation(accountBalanceMapStore)
+                .setInitialLoadMode(MapStoreConfig.InitialLoadMode.LAZY)
+                .setWriteDelaySeconds(balanceWriteDelaySeconds)
+                .setWriteBatchSize(balanceWriteBatchSize)
+                .setWriteCoalescing(true);
+
+        return new MapConfig(GridBalanceStore.BALANCES)
+                .setBackupCount(1)
+                .setMapStoreConfig(mapStoreConfig);
+    }
 }
@@ -2,7 +2,10 @@ package com.operatorservices.coreservice.config;
 
 import com.operatorservices.coreservice.dto.PurchaseDto;
 import com.operatorservices.coreservice.dto.PurchaseOrderDto;
+import com.operatorservices.coreservice.service.ExpiredOrderFilter;
 import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
@@ -10,10 +13,17 @@ import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.core.ProducerFactory;
 
+import java.util.Properties;
+
 
 @Configuration
 public class KafkaConfig {
 
+    @Value("${kafka.purchase-order.concurrency}")
+    private int purchaseOrderConcurrency;
+
+    @Value("${kafka.purchase-order.batch.max-records}")
+    private int purchaseOrderBatchMaxRecords;
 
     @Bean
     public KafkaTemplate<String, PurchaseDto> kafkaTemplate(ProducerFactory<String, PurchaseDto> producerFactory){
@@ -27,23 +37,44 @@ public class KafkaConfig {
     @Bean
     public ConcurrentKafkaListenerContainerFactory<String, PurchaseOrderDto>
     kafkaListenerContainerFactory(ConsumerFactory<String, PurchaseOrderDto> consumerFactory,
-                                  KafkaTemplate<String, PurchaseDto> kafkaTemplate){
+                                  KafkaTemplate<String, PurchaseDto> kafkaTemplate,
+                                  ExpiredOrderFilter expiredOrderFilter){
 
         ConcurrentKafkaListenerContainerFactory<String, PurchaseOrderDto> concurrentKafkaListenerContainerFactory =
                 new ConcurrentKafkaListenerContainerFactory<>();
 
         concurrentKafkaListenerContainerFactory.setConsumerFactory(consumerFactory);
+        concurrentKafkaListenerContainerFactory.setConcurrency(purchaseOrderConcurrency);
         concurrentKafkaListenerContainerFactory.setReplyTemplate(kafkaTemplate);
+        concurrentKafkaListenerContainerFactory.setRecordFilterStrategy(expiredOrderFilter);
         concurrentKafkaListenerContainerFactory.getContainerProperties().setObservationEnabled(true);
 
         return concurrentKafkaListenerContainerFactory;
     }
 
     @Bean
-    public NewTopic replyTopic() {
-        return new NewTopic("reply-topic", 1, (short) 1);
+    public ConcurrentKafkaListenerContainerFactory<String, PurchaseOrderDto>
+    batchKafkaListenerContainerFactory(ConsumerFactory<String, PurchaseOrderDto> consumerFactory,
+                                       ExpiredOrderFilter expiredOrderFilter){
+
+        ConcurrentKafkaListenerContainerFactory<String, PurchaseOrderDto> concurrentKafkaListenerContainerFactory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+
+        Properties properties = new Properties();
+        properties.setProperty(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, String.valueOf(purchaseOrderBatchMaxRecords));
+
+        concurrentKafkaListenerContainerFactory.setConsumerFactory(consumerFactory);
+        concurrentKafkaListenerContainerFactory.setConcurrency(purchaseOrderConcurrency);
+        concurrentKafkaListenerContainerFactory.setBatchListener(true);
+        concurrentKafkaListenerContainerFactory.setRecordFilterStrategy(expiredOrderFilter);
+        concurrentKafkaListenerContainerFactory.getContainerProperties().setKafkaConsumerProperties(properties);
+        concurrentKafkaListenerContainerFactory.getContainerProperties().setObservationEnabled(true);
+
+        return concurrentKafkaListenerContainerFactory;
     }
 
+    //No reply-topic here: purchase-order-service declares it, with the partitions its instances lease,
+    //and core-service only answers on the topic and partition each request names.
     @Bean
     public NewTopic notificationTopic(){
         return new NewTopic("notification",1, (short) 1);
@@ -0,0 +1,16 @@
+package com.operatorservices.coreservice.config;
+
+import com.operatorservices.coreservice.service.PurchaseArchiver;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class PurchasePartitionConfig {
+
+    //The first purchases must already have a partition of their month.
+    @Bean
+    public static EntityManagerFactoryDependsOnPostProcessor purchaseArchiverDependency() {
+        return new EntityManagerFactoryDependsOnPostProcessor(PurchaseArchiver.class);
+    }
+}
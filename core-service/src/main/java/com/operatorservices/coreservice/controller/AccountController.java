@@ -6,15 +6,23 @@ import com.operatorservices.coreservice.dto.AccountCreateRequestDto;
 import com.operatorservices.coreservice.dto.AccountDto;
 import com.operatorservices.coreservice.dto.AccountUpdateRequestDto;
 import com.operatorservices.coreservice.dto.PurchaseDto;
+import com.operatorservices.coreservice.dto.PurchaseHistoryPageDto;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.web.PagedResourcesAssembler;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import jakarta.validation.Valid;
+import java.time.LocalDateTime;
 import java.util.stream.Collectors;
 
+import static com.operatorservices.coreservice.repository.UuidStringJdbcType.normalize;
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
 
@@ -33,34 +41,70 @@ public class AccountController {
 
     @GetMapping("/{accountId}")
     public ResponseEntity<EntityModel<AccountDto>> getAccountById(@PathVariable String accountId){
-        return ResponseEntity.ok(modelAssembler.toModel(accountService.getAccountById(accountId)));
+        return ResponseEntity.ok(modelAssembler.toModel(accountService.getAccountById(normalize(accountId))));
     }
 
     @GetMapping("/{accountId}/purchases")
-    public ResponseEntity<CollectionModel<PurchaseDto>> getPurchasesByAccountId(@PathVariable String accountId) {
+    public ResponseEntity<CollectionModel<PurchaseDto>> getPurchasesByAccountId(
+            @PathVariable String accountId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) Integer size) {
+
+        accountId = normalize(accountId);
+        PurchaseHistoryPageDto page = accountService.getPurchases(
+                accountId, cursor, from, to, size != null ? size : AccountService.DEFAULT_PURCHASE_PAGE_SIZE);
 
         CollectionModel<PurchaseDto> body = CollectionModel.of(
-                accountService.getAllPurchases(accountId)
+                page.getPurchases()
                         .stream()
                         .map(purchaseDto ->
                                 purchaseDto.add(linkTo(methodOn(PurchaseController.class)
                                         .getPurchaseById(purchaseDto.getId())).withSelfRel()))
                         .collect(Collectors.toList()));
-        body.add(linkTo(methodOn(AccountController.class).getPurchasesByAccountId(accountId)).withSelfRel());
+        body.add(linkTo(methodOn(AccountController.class)
+                .getPurchasesByAccountId(accountId, cursor, from, to, size)).withSelfRel().expand());
+        if (page.getNextCursor() != null) {
+            body.add(linkTo(methodOn(AccountController.class)
+                    .getPurchasesByAccountId(accountId, page.getNextCursor(), from, to, size))
+                    .withRel(IanaLinkRelations.NEXT).expand());
+        }
         return ResponseEntity.ok(body);
     }
 
+    //Offset pages (page, size, sort) with page metadata; with after, keyset pages in id order following that id.
     @GetMapping
-    public ResponseEntity<CollectionModel<EntityModel<AccountDto>>> getAllAccounts() {
-        return ResponseEntity.ok(
-                modelAssembler.toCollectionModel(accountService.getAllAccounts())
-                        .add(linkTo(methodOn(AccountController.class).getAllAccounts()).withSelfRel()));
+    public ResponseEntity<CollectionModel<EntityModel<AccountDto>>> getAllAccounts(
+            Pageable pageable,
+            @RequestParam(required = false) String after,
+            PagedResourcesAssembler<AccountDto> pagedResourcesAssembler) {
+
+        if (after == null) {
+            return ResponseEntity.ok(
+                    pagedResourcesAssembler.toModel(accountService.getAccounts(pageable), modelAssembler));
+        }
+
+        after = after.isEmpty() ? after : normalize(after);
+        Slice<AccountDto> accounts = accountService.getAccountsAfter(after, pageable);
+        CollectionModel<EntityModel<AccountDto>> body = modelAssembler.toCollectionModel(accounts);
+        body.add(linkTo(methodOn(AccountController.class)
+                .getAllAccounts(pageable, after, null)).withSelfRel().expand());
+        if (accounts.hasNext()) {
+            String lastId = accounts.getContent().get(accounts.getNumberOfElements() - 1).getId();
+            body.add(linkTo(methodOn(AccountController.class)
+                    .getAllAccounts(pageable, lastId, null)).withRel(IanaLinkRelations.NEXT).expand());
+        }
+        return ResponseEntity.ok(body);
     }
 
     @PostMapping
     public ResponseEntity<EntityModel<AccountDto>> createAccount(@Valid @RequestBody AccountCreateRequestDto accountCreateRequestDto){
 
-        AccountDto body = accountService.createAccount(accountCreateRequestDto);
+        AccountDto body = accountService.createAccount(new AccountCreateRequestDto(
+                normalize(accountCreateRequestDto.getCustomerId()),
+                accountCreateRequestDto.getAccountBalance(),
+                accountCreateRequestDto.getTariffType()));
         return new ResponseEntity<>(modelAssembler.toModel(body), HttpStatus.CREATED);
     }
 
@@ -68,13 +112,13 @@ public class AccountController {
     public ResponseEntity<EntityModel<AccountDto>> updateAccount(@Valid @RequestBody AccountUpdateRequestDto accountUpdateDto,
                                                     @PathVariable String accountId){
 
-        AccountDto body = accountService.updateAccount(accountUpdateDto, accountId);
+        AccountDto body = accountService.updateAccount(accountUpdateDto, normalize(accountId));
         return ResponseEntity.ok(modelAssembler.toModel(body));
     }
 
     @DeleteMapping("/{accountId}")
     public ResponseEntity<?> deleteAccountById(@PathVariable String accountId){
-        accountService.deleteAccount(accountId);
+        accountService.deleteAccount(normalize(accountId));
         return ResponseEntity.noContent().build();
     }
 }
\ No newline at end of file
@@ -2,6 +2,9 @@ package com.operatorservices.coreservice.controller;
 
 import com.operatorservices.coreservice.service.CustomerService;
 import com.operatorservices.coreservice.dto.*;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.web.PagedResourcesAssembler;
 import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.IanaLinkRelations;
 import org.springframework.http.HttpStatus;
@@ -9,8 +12,8 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import jakarta.validation.Valid;
-import java.util.stream.Collectors;
 
+import static com.operatorservices.coreservice.repository.UuidStringJdbcType.normalize;
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
 
@@ -29,46 +32,60 @@ public class CustomerController {
     @GetMapping(value = "/{customerId}")
     public ResponseEntity<CustomerGetDto> getCustomerById(@PathVariable String customerId){
 
+        customerId = normalize(customerId);
         CustomerGetDto body = customerService.getCustomerById(customerId);
         body.add(linkTo(methodOn(CustomerController.class).getCustomerById(customerId)).withSelfRel());
-        body.add(linkTo(methodOn(CustomerController.class).getAllCustomers()).withRel(IanaLinkRelations.COLLECTION));
-        body.add(linkTo(methodOn(CustomerController.class).getAllAccounts(customerId)).withRel("accounts"));
+        body.add(linkTo(methodOn(CustomerController.class)
+                .getAllCustomers(null, null, null)).withRel(IanaLinkRelations.COLLECTION).expand());
+        body.add(linkTo(methodOn(CustomerController.class)
+                .getAllAccounts(customerId, null, null)).withRel("accounts").expand());
         return ResponseEntity.ok(body);
     }
 
-    @GetMapping
-    public ResponseEntity<CollectionModel<CustomerGetDto>> getAllCustomers() {
-
-        CollectionModel<CustomerGetDto> body = CollectionModel.of(customerService.getAllCustomers()
-                .stream()
-                .map(customerGetDto -> {
-                        customerGetDto.add(linkTo(methodOn(CustomerController.class)
-                                .getCustomerById(customerGetDto.getId())).withSelfRel());
-                        customerGetDto.add(linkTo(methodOn(CustomerController.class)
-                                .getAllAccounts(customerGetDto.getId())).withRel("accounts"));
-                        return customerGetDto;
-                        }
-                ).collect(Collectors.toList()));
-
-       body.add(linkTo(methodOn(CustomerController.class).getAllCustomers()).withSelfRel());
+    private CustomerGetDto addCustomerLinks(CustomerGetDto customerGetDto) {
+        customerGetDto.add(linkTo(methodOn(CustomerController.class)
+                .getCustomerById(customerGetDto.getId())).withSelfRel());
+        customerGetDto.add(linkTo(methodOn(CustomerController.class)
+                .getAllAccounts(customerGetDto.getId(), null, null)).withRel("accounts").expand());
+        return customerGetDto;
+    }
 
+    //Offset pages (page, size, sort) with page metadata; with after, keyset pages in id order following that id.
+    @GetMapping
+    public ResponseEntity<CollectionModel<CustomerGetDto>> getAllCustomers(
+            Pageable pageable,
+            @RequestParam(required = false) String after,
+            PagedResourcesAssembler<CustomerGetDto> pagedResourcesAssembler) {
+
+        if (after == null) {
+            return ResponseEntity.ok(
+                    pagedResourcesAssembler.toModel(customerService.getCustomers(pageable), this::addCustomerLinks));
+        }
+
+        after = after.isEmpty() ? after : normalize(after);
+        Slice<CustomerGetDto> customers = customerService.getCustomersAfter(after, pageable);
+        CollectionModel<CustomerGetDto> body = CollectionModel.of(customers.map(this::addCustomerLinks).getContent());
+        body.add(linkTo(methodOn(CustomerController.class)
+                .getAllCustomers(pageable, after, null)).withSelfRel().expand());
+        if (customers.hasNext()) {
+            String lastId = customers.getContent().get(customers.getNumberOfElements() - 1).getId();
+            body.add(linkTo(methodOn(CustomerController.class)
+                    .getAllCustomers(pageable, lastId, null)).withRel(IanaLinkRelations.NEXT).expand());
+        }
         return ResponseEntity.ok(body);
     }
 
     @GetMapping("/{customerId}/accounts")
-    public ResponseEntity<CollectionModel<CustomerRequestGetAccountDto>> getAllAccounts(@PathVariable String customerId){
-
-        CollectionModel<CustomerRequestGetAccountDto> body = CollectionModel.of(
-                customerService.getAllAccounts(customerId)
-                        .stream()
-                        .map(customerRequestGetAccountDto ->
-                                customerRequestGetAccountDto.add(linkTo(methodOn(AccountController.class)
-                                        .getAccountById(customerRequestGetAccountDto.getId())).withSelfRel()))
-                        .collect(Collectors.toList()));
-
-        body.add(linkTo(methodOn(CustomerController.class).getAllAccounts(customerId)).withSelfRel());
-
-        return ResponseEntity.ok(body);
+    public ResponseEntity<CollectionModel<CustomerRequestGetAccountDto>> getAllAccounts(
+            @PathVariable String customerId,
+            Pageable pageable,
+            PagedResourcesAssembler<CustomerRequestGetAccountDto> pagedResourcesAssembler){
+
+        return ResponseEntity.ok(pagedResourcesAssembler.toModel(
+                customerService.getAccounts(normalize(customerId), pageable),
+                customerRequestGetAccountDto ->
+                        customerRequestGetAccountDto.add(linkTo(methodOn(AccountController.class)
+                                .getAccountById(customerRequestGetAccountDto.getId())).withSelfRel())));
     }
 
     @PostMapping
@@ -77,8 +94,10 @@ public class CustomerController {
 
         CustomerDto body = customerService.createCustomer(customerCreateRequestDto);
         body.add(linkTo(methodOn(CustomerController.class).getCustomerById(body.getId())).withSelfRel());
-        body.add(linkTo(methodOn(CustomerController.class).getAllCustomers()).withRel(IanaLinkRelations.COLLECTION));
-        body.add(linkTo(methodOn(CustomerController.class).getAllAccounts(body.getId())).withRel("accounts"));
+        body.add(linkTo(methodOn(CustomerController.class)
+                .getAllCustomers(null, null, null)).withRel(IanaLinkRelations.COLLECTION).expand());
+        body.add(linkTo(methodOn(CustomerController.class)
+                .getAllAccounts(body.getId(), null, null)).withRel("accounts").expand());
 
         return new ResponseEntity<>(body, HttpStatus.CREATED);
     }
@@ -88,17 +107,20 @@ public class CustomerController {
             @Valid @RequestBody CustomerUpdateRequestDto customerUpdateRequestDto,
             @PathVariable String customerId){
 
+        customerId = normalize(customerId);
         CustomerDto body = customerService.updateCustomer(customerUpdateRequestDto, customerId);
         body.add(linkTo(methodOn(CustomerController.class).getCustomerById(body.getId())).withSelfRel());
-        body.add(linkTo(methodOn(CustomerController.class).getAllCustomers()).withRel(IanaLinkRelations.COLLECTION));
-        body.add(linkTo(methodOn(CustomerController.class).getAllAccounts(customerId)).withRel("accounts"));
+        body.add(linkTo(methodOn(CustomerController.class)
+                .getAllCustomers(null, null, null)).withRel(IanaLinkRelations.COLLECTION).expand());
+        body.add(linkTo(methodOn(CustomerController.class)
+                .getAllAccounts(customerId, null, null)).withRel("accounts").expand());
 
         return ResponseEntity.ok(body);
     }
 
     @DeleteMapping("/{customerId}")
     public ResponseEntity<?> deleteCustomerById(@PathVariable String customerId){
-        customerService.deleteCustomer(customerId);
+        customerService.deleteCustomer(normalize(customerId));
         return ResponseEntity.noContent().build();
     }
 }
\ No newline at end of file
@@ -0,0 +1,35 @@
+package com.operatorservices.coreservice.controller;
+
+import com.operatorservices.coreservice.service.ExportService;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+
+//Newline-delimited JSON exports of whole tables. They are written on the request thread, straight to the
+//response: an export takes as long as the table is large, which the async request timeout would cut short.
+@RestController
+@RequestMapping("/v1/exports")
+public class ExportController {
+
+    private final ExportService exportService;
+
+    public ExportController(ExportService exportService) {
+        this.exportService = exportService;
+    }
+
+    @GetMapping(value = "/accounts", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void exportAccounts(HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        exportService.exportAccounts(response.getOutputStream());
+    }
+
+    @GetMapping(value = "/purchases", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void exportPurchases(HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        exportService.exportPurchases(response.getOutputStream());
+    }
+}
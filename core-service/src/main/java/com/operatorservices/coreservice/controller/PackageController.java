@@ -1,10 +1,14 @@
 package com.operatorservices.coreservice.controller;
 
 import com.operatorservices.coreservice.controller.modelAssembler.PackageModelAssembler;
+import com.operatorservices.coreservice.dto.PackageBatchRequestDto;
 import com.operatorservices.coreservice.dto.PackageDto;
 import com.operatorservices.coreservice.dto.PackageRequestDto;
 import com.operatorservices.coreservice.dto.GetAccountsByPackageDto;
 import com.operatorservices.coreservice.service.SubPackageService;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.web.PagedResourcesAssembler;
 import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
 import org.springframework.hateoas.IanaLinkRelations;
@@ -13,7 +17,6 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import jakarta.validation.Valid;
-import java.util.stream.Collectors;
 
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
@@ -36,30 +39,46 @@ public class PackageController {
     }
 
     @GetMapping("/{packageId}/accounts")
-    public ResponseEntity<CollectionModel<GetAccountsByPackageDto>>getAccountsByPackage(@PathVariable Long packageId){
-
-        CollectionModel<GetAccountsByPackageDto> body = CollectionModel.of(
-                packageService.getAccountsByPackage(packageId)
-                        .stream()
-                        .map(getAccountsByPackageDto -> {
-                                getAccountsByPackageDto.add(linkTo(methodOn(AccountController.class)
-                                        .getAccountById(getAccountsByPackageDto.getId())).withSelfRel());
-                                getAccountsByPackageDto.add(linkTo(methodOn(AccountController.class)
-                                        .getAllAccounts()).withRel(IanaLinkRelations.COLLECTION));
-                                getAccountsByPackageDto.add(linkTo(methodOn(AccountController.class)
-                                        .getPurchasesByAccountId(getAccountsByPackageDto.getId())).withRel("purchases"));
-                                return getAccountsByPackageDto;
-                        }).collect(Collectors.toList()));
-
-        body.add(linkTo(methodOn(PackageController.class).getAccountsByPackage(packageId)).withSelfRel());
-        return ResponseEntity.ok(body);
+    public ResponseEntity<CollectionModel<GetAccountsByPackageDto>> getAccountsByPackage(
+            @PathVariable Long packageId,
+            Pageable pageable,
+            PagedResourcesAssembler<GetAccountsByPackageDto> pagedResourcesAssembler){
+
+        return ResponseEntity.ok(pagedResourcesAssembler.toModel(
+                packageService.getAccountsByPackage(packageId, pageable),
+                getAccountsByPackageDto -> {
+                        getAccountsByPackageDto.add(linkTo(methodOn(AccountController.class)
+                                .getAccountById(getAccountsByPackageDto.getId())).withSelfRel());
+                        getAccountsByPackageDto.add(linkTo(methodOn(AccountController.class)
+                                .getAllAccounts(null, null, null)).withRel(IanaLinkRelations.COLLECTION).expand());
+                        getAccountsByPackageDto.add(linkTo(methodOn(AccountController.class)
+                                .getPurchasesByAccountId(getAccountsByPackageDto.getId(), null, null, null, null)).withRel("purchases").expand());
+                        return getAccountsByPackageDto;
+                }));
     }
 
+    //Offset pages (page, size, sort) with page metadata; with after, keyset pages in id order following that id.
     @GetMapping
-    public ResponseEntity<CollectionModel<EntityModel<PackageDto>>> getAllPackages() {
-        return ResponseEntity.ok(
-                modelAssembler.toCollectionModel(packageService.getAllPackages())
-                        .add(linkTo(methodOn(PackageController.class).getAllPackages()).withSelfRel()));
+    public ResponseEntity<CollectionModel<EntityModel<PackageDto>>> getAllPackages(
+            Pageable pageable,
+            @RequestParam(required = false) Long after,
+            PagedResourcesAssembler<PackageDto> pagedResourcesAssembler) {
+
+        if (after == null) {
+            return ResponseEntity.ok(
+                    pagedResourcesAssembler.toModel(packageService.getPackages(pageable), modelAssembler));
+        }
+
+        Slice<PackageDto> packages = packageService.getPackagesAfter(after, pageable);
+        CollectionModel<EntityModel<PackageDto>> body = modelAssembler.toCollectionModel(packages);
+        body.add(linkTo(methodOn(PackageController.class)
+                .getAllPackages(pageable, after, null)).withSelfRel().expand());
+        if (packages.hasNext()) {
+            Long lastId = packages.getContent().get(packages.getNumberOfElements() - 1).getId();
+            body.add(linkTo(methodOn(PackageController.class)
+                    .getAllPackages(pageable, lastId, null)).withRel(IanaLinkRelations.NEXT).expand());
+        }
+        return ResponseEntity.ok(body);
     }
 
     @PostMapping
@@ -70,6 +89,14 @@ public class PackageController {
                 HttpStatus.CREATED);
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<CollectionModel<EntityModel<PackageDto>>> createPackages(
+            @Valid @RequestBody PackageBatchRequestDto packageBatchRequestDto){
+        return new ResponseEntity<>(
+                modelAssembler.toCollectionModel(packageService.createPackages(packageBatchRequestDto.getPackages())),
+                HttpStatus.CREATED);
+    }
+
     @PutMapping("/{packageId}")
     public ResponseEntity<EntityModel<PackageDto>> updatePackage(
             @Valid @RequestBody PackageRequestDto packageRequestDto,
@@ -6,6 +6,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 
+import static com.operatorservices.coreservice.repository.UuidStringJdbcType.normalize;
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
 
@@ -21,6 +22,7 @@ public class PurchaseController {
 
     @GetMapping("/{purchaseId}")
     public ResponseEntity<PurchaseDto> getPurchaseById(@PathVariable String purchaseId){
+        purchaseId = normalize(purchaseId);
         return ResponseEntity.ok(
                 purchaseService.getPurchaseById(purchaseId)
                         .add(linkTo(methodOn(PurchaseController.class).getPurchaseById(purchaseId)).withSelfRel()));
@@ -28,7 +30,7 @@ public class PurchaseController {
 
     @DeleteMapping("/{purchaseId}")
     public ResponseEntity<?> deletePurchaseById(@PathVariable String purchaseId){
-        purchaseService.deletePurchase(purchaseId);
+        purchaseService.deletePurchase(normalize(purchaseId));
         return ResponseEntity.noContent().build();
     }
 }
@@ -21,9 +21,10 @@ public class AccountModelAssembler
 
         EntityModel<AccountDto> body = EntityModel.of(accountDto);
         body.add(linkTo(methodOn(AccountController.class).getAccountById(accountDto.getId())).withSelfRel());
-        body.add(linkTo(methodOn(AccountController.class).getAllAccounts()).withRel(IanaLinkRelations.COLLECTION));
         body.add(linkTo(methodOn(AccountController.class)
-                .getPurchasesByAccountId(accountDto.getId())).withRel("purchases"));
+                .getAllAccounts(null, null, null)).withRel(IanaLinkRelations.COLLECTION).expand());
+        body.add(linkTo(methodOn(AccountController.class)
+                .getPurchasesByAccountId(accountDto.getId(), null, null, null, null)).withRel("purchases").expand());
 
         return body;
     }
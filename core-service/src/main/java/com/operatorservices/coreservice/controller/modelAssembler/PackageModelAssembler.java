@@ -21,9 +21,10 @@ public class PackageModelAssembler implements RepresentationModelAssembler<Packa
         EntityModel<PackageDto> body = EntityModel.of(packageDto);
 
         body.add(linkTo(methodOn(PackageController.class).getPackageById(packageDto.getId())).withSelfRel());
-        body.add(linkTo(methodOn(PackageController.class).getAllPackages()).withRel(IanaLinkRelations.COLLECTION));
         body.add(linkTo(methodOn(PackageController.class)
-                .getAccountsByPackage(packageDto.getId())).withRel("accounts"));
+                .getAllPackages(null, null, null)).withRel(IanaLinkRelations.COLLECTION).expand());
+        body.add(linkTo(methodOn(PackageController.class)
+                .getAccountsByPackage(packageDto.getId(), null, null)).withRel("accounts").expand());
 
         return body;
     }
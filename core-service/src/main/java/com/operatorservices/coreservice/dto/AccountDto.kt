@@ -1,5 +1,6 @@
 package com.operatorservices.coreservice.dto
 
+import com.fasterxml.jackson.annotation.JsonInclude
 import com.operatorservices.coreservice.model.TariffType
 import org.springframework.hateoas.server.core.Relation
 import java.math.BigDecimal
@@ -13,5 +14,7 @@ data class AccountDto(
     val customer: AccountRequestGetCustomerDto,
     val tariffType: TariffType,
     val accountBalance: BigDecimal,
-    val purchases: Set<PurchaseDto>
+    //null in collection views, which link to the purchase history instead
+    @field:JsonInclude(JsonInclude.Include.NON_NULL)
+    val purchases: Set<PurchaseDto>?
     )
@@ -1,5 +1,6 @@
 package com.operatorservices.coreservice.dto
 
+import com.fasterxml.jackson.annotation.JsonInclude
 import org.springframework.hateoas.RepresentationModel
 import org.springframework.hateoas.server.core.Relation
 import java.time.LocalDateTime
@@ -12,5 +13,7 @@ data class CustomerGetDto(
     val name: String,
     val surname: String,
     val email: String,
+    //null in collection views, which link to the accounts instead
+    @field:JsonInclude(JsonInclude.Include.NON_NULL)
     val accounts: Set<CustomerRequestGetAccountDto>?
 ) : RepresentationModel<CustomerGetDto>()
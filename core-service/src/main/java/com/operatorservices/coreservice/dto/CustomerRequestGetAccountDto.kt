@@ -1,5 +1,6 @@
 package com.operatorservices.coreservice.dto
 
+import com.fasterxml.jackson.annotation.JsonInclude
 import com.operatorservices.coreservice.model.TariffType
 import org.springframework.hateoas.RepresentationModel
 import org.springframework.hateoas.server.core.Relation
@@ -12,5 +13,7 @@ data class CustomerRequestGetAccountDto(
     val creationDate: LocalDateTime,
     val tariffType: TariffType,
     val accountBalance: BigDecimal,
-    val purchases: Set<PurchaseDto>
+    //null in collection views, which link to the purchase history instead
+    @field:JsonInclude(JsonInclude.Include.NON_NULL)
+    val purchases: Set<PurchaseDto>?
 ) : RepresentationModel<CustomerRequestGetAccountDto>()
\ No newline at end of file
@@ -0,0 +1,13 @@
+package com.operatorservices.coreservice.dto
+
+import jakarta.validation.Valid
+import jakarta.validation.constraints.NotEmpty
+import jakarta.validation.constraints.Size
+
+data class PackageBatchRequestDto(
+
+    @field: Valid
+    @field: NotEmpty
+    @field: Size(max = 1000)
+    val packages: List<PackageRequestDto>
+)
@@ -0,0 +1,13 @@
+package com.operatorservices.coreservice.dto
+
+import java.time.LocalDateTime
+
+//One line of the purchase export: the purchase row itself, with the ids of its account and package.
+data class PurchaseExportDto(
+
+    val id: String,
+    val accountId: String,
+    val packageId: Long,
+    val packagePrice: Short,
+    val purchaseDate: LocalDateTime
+)
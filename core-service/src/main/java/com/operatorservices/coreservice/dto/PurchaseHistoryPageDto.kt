@@ -0,0 +1,8 @@
+package com.operatorservices.coreservice.dto
+
+//One page of an account's purchase history; nextCursor is null on the last page.
+data class PurchaseHistoryPageDto(
+
+    val purchases: List<PurchaseDto>,
+    val nextCursor: String?
+)
@@ -0,0 +1,5 @@
+package com.operatorservices.coreservice.dto
+
+data class PurchaseOrderBatchDto(
+    val orders: List<PurchaseOrderDto>
+)
@@ -0,0 +1,11 @@
+package com.operatorservices.coreservice.dto
+
+//One result per order of the batch, in order; exactly one of purchase and error is set.
+data class PurchaseOrderBatchReplyDto(
+    val results: List<PurchaseOrderLineResultDto>
+)
+
+data class PurchaseOrderLineResultDto(
+    val purchase: PurchaseDto?,
+    val error: ExceptionDto?
+)
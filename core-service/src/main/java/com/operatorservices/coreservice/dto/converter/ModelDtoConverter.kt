@@ -6,6 +6,8 @@ import com.operatorservices.coreservice.model.Purchase
 import com.operatorservices.coreservice.model.SubPackage
 import com.operatorservices.coreservice.dto.*
 import org.mapstruct.Mapper
+import org.mapstruct.Mapping
+import org.mapstruct.Named
 
 @Mapper(componentModel = "spring")
 interface ModelDtoConverter {
@@ -13,10 +15,24 @@ interface ModelDtoConverter {
     fun customerToCustomerDto(customer: Customer): CustomerDto
     fun customerToCustomerGetDto(customer: Customer): CustomerGetDto
 
+    //Collection views leave the nested collections out, so a page never loads more than its own rows:
+    //they are paged resources of their own. Named, so that nested mappings never pick them.
+    @Named("summary")
+    @Mapping(target = "accounts", ignore = true)
+    fun customerToCustomerSummaryDto(customer: Customer): CustomerGetDto
+
     fun accountToAccountDto(account: Account): AccountDto
     fun accountToGetAccountsByPackageDto(account: Account): GetAccountsByPackageDto
     fun accountToCustomerRequestGetAccountDto(account: Account): CustomerRequestGetAccountDto
 
+    @Named("summary")
+    @Mapping(target = "purchases", ignore = true)
+    fun accountToAccountSummaryDto(account: Account): AccountDto
+
+    @Named("summary")
+    @Mapping(target = "purchases", ignore = true)
+    fun accountToCustomerRequestGetAccountSummaryDto(account: Account): CustomerRequestGetAccountDto
+
     fun purchaseToPurchaseDto(purchase: Purchase): PurchaseDto
 
     fun packageToPackageDto(subPackage: SubPackage): PackageDto
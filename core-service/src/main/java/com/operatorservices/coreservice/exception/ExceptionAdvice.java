@@ -66,4 +66,19 @@ public class ExceptionAdvice extends ResponseEntityExceptionHandler {
     @ExceptionHandler(PurchaseNotPossibleException.class)
     String purchaseNotPossibleHandler(PurchaseNotPossibleException exception) { return exception.getMessage(); }
 
+    @ResponseBody
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    @ExceptionHandler(InvalidCursorException.class)
+    String invalidCursorHandler(InvalidCursorException exception) { return exception.getMessage(); }
+
+    @ResponseBody
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    @ExceptionHandler(InvalidPageRequestException.class)
+    String invalidPageRequestHandler(InvalidPageRequestException exception) { return exception.getMessage(); }
+
+    @ResponseBody
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    @ExceptionHandler(InvalidIdException.class)
+    String invalidIdHandler(InvalidIdException exception) { return exception.getMessage(); }
+
 }
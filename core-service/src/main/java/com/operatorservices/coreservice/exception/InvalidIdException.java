@@ -0,0 +1,12 @@
+package com.operatorservices.coreservice.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidIdException extends RuntimeException{
+
+    public InvalidIdException(String errorMessage){
+        super(errorMessage);
+    }
+}
@@ -0,0 +1,12 @@
+package com.operatorservices.coreservice.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidPageRequestException extends RuntimeException{
+
+    public InvalidPageRequestException(String errorMessage){
+        super(errorMessage);
+    }
+}
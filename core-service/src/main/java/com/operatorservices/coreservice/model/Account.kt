@@ -1,19 +1,32 @@
 package com.operatorservices.coreservice.model
 
+import com.operatorservices.coreservice.repository.UuidStringJdbcType
 import org.hibernate.annotations.GenericGenerator
+import org.hibernate.annotations.JdbcType
 import java.math.BigDecimal
 import java.time.LocalDateTime
 import jakarta.persistence.*
 
+//Fetch plans, chosen per use case in AccountRepository. Every association the view maps is fetched in the
+//same statement, as the mapper would otherwise load them one row at a time.
 @Entity
+@NamedEntityGraphs(
+    NamedEntityGraph(name = "Account.summary", attributeNodes = [NamedAttributeNode("customer")]),
+    NamedEntityGraph(
+        name = "Account.detail",
+        attributeNodes = [NamedAttributeNode("customer"), NamedAttributeNode("purchases", subgraph = "purchases")],
+        subgraphs = [NamedSubgraph(name = "purchases", attributeNodes = [NamedAttributeNode("subPackage")])]
+    )
+)
 data class Account(
 
     @Id
-    @GeneratedValue(generator = "UUID")
-    @GenericGenerator(name = "UUID", strategy = "org.hibernate.id.UUIDGenerator")
+    @GeneratedValue(generator = "uuid7")
+    @GenericGenerator(name = "uuid7", strategy = "com.operatorservices.coreservice.repository.TimeOrderedUuidGenerator")
+    @JdbcType(UuidStringJdbcType::class)
     val id: String,
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "customer_id",  nullable = false)
     val customer: Customer?,
 
@@ -39,30 +52,20 @@ data class Account(
         tariffType = tariffType
     )
 
+    //Identity is the id alone, so set operations cost the same whatever the customer and purchases behind the
+    //account, and comparing against a lazy proxy does not initialize it. The id is "" until the account is
+    //saved: such an account only equals itself, and must not be put in a hash set before it is saved.
     override fun equals(other: Any?): Boolean {
         if (this === other) return true
-        if (javaClass != other?.javaClass) return false
-
-        other as Account
-
-        if (id != other.id) return false
-        if (customer != other.customer) return false
-        if (creationDate != other.creationDate) return false
-        if (accountBalance != other.accountBalance) return false
-        if (tariffType != other.tariffType) return false
-        if (purchases != other.purchases) return false
-
-        return true
+        if (other !is Account) return false
+        return id.isNotEmpty() && id == other.id
     }
 
-    override fun hashCode(): Int {
-        var result = id.hashCode()
-        result = 31 * result + (customer?.hashCode() ?: 0)
-        result = 31 * result + (creationDate?.hashCode() ?: 0)
-        result = 31 * result + (accountBalance?.hashCode() ?: 0)
-        result = 31 * result + (tariffType?.hashCode() ?: 0)
-        return result
-    }
+    override fun hashCode(): Int = id.hashCode()
+
+    //Generated toString would follow the lazy customer and the purchases.
+    override fun toString(): String =
+        "Account(id=$id, creationDate=$creationDate, accountBalance=$accountBalance, tariffType=$tariffType)"
 
 
 }
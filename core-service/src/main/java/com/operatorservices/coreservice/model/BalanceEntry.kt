@@ -0,0 +1,34 @@
+package com.operatorservices.coreservice.model
+
+import com.operatorservices.coreservice.repository.UuidStringJdbcType
+import org.hibernate.annotations.JdbcType
+import java.math.BigDecimal
+import java.time.LocalDateTime
+import jakarta.persistence.*
+
+//A signed balance movement of the ledger and grid balance modes: negative for debits, positive for credits.
+@Entity
+data class BalanceEntry(
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "balance_entry_seq")
+    @SequenceGenerator(name = "balance_entry_seq", sequenceName = "balance_entry_seq", allocationSize = 50)
+    val id: Long?,
+
+    @Column(name = "account_id", nullable = false)
+    @JdbcType(UuidStringJdbcType::class)
+    val accountId: String,
+
+    @Column(nullable = false)
+    val amount: BigDecimal,
+
+    val createdAt: LocalDateTime
+
+) {
+    constructor(accountId: String, amount: BigDecimal, createdAt: LocalDateTime) : this(
+        null,
+        accountId = accountId,
+        amount = amount,
+        createdAt = createdAt
+    )
+}
@@ -1,16 +1,28 @@
 package com.operatorservices.coreservice.model
 
+import com.operatorservices.coreservice.repository.UuidStringJdbcType
 import org.hibernate.annotations.GenericGenerator
+import org.hibernate.annotations.JdbcType
 import java.time.LocalDateTime
 import jakarta.persistence.*
 
+//Fetch plan of the customer view, which maps every account with its purchases (see CustomerRepository).
 @Entity
+@NamedEntityGraph(
+    name = "Customer.detail",
+    attributeNodes = [NamedAttributeNode("accounts", subgraph = "accounts")],
+    subgraphs = [
+        NamedSubgraph(name = "accounts", attributeNodes = [NamedAttributeNode("purchases", subgraph = "purchases")]),
+        NamedSubgraph(name = "purchases", attributeNodes = [NamedAttributeNode("subPackage")])
+    ]
+)
 data class Customer(
 
 
     @Id
-    @GeneratedValue(generator = "UUID")
-    @GenericGenerator(name = "UUID", strategy = "org.hibernate.id.UUIDGenerator")
+    @GeneratedValue(generator = "uuid7")
+    @GenericGenerator(name = "uuid7", strategy = "com.operatorservices.coreservice.repository.TimeOrderedUuidGenerator")
+    @JdbcType(UuidStringJdbcType::class)
     val id: String = "",
 
     val creationDate: LocalDateTime,
@@ -38,30 +50,14 @@ data class Customer(
         password = password
     )
 
-        override fun equals(other: Any?): Boolean {
+    //Same identity as Account: by id only, "" until saved.
+    override fun equals(other: Any?): Boolean {
         if (this === other) return true
-        if (javaClass != other?.javaClass) return false
-
-        other as Customer
-
-        if (id != other.id) return false
-        if (creationDate != other.creationDate) return false
-        if (name != other.name) return false
-        if (surname != other.surname) return false
-        if (email != other.email) return false
-        if (password != other.password) return false
-        if (accounts != other.accounts) return false
-
-        return true
+        if (other !is Customer) return false
+        return id.isNotEmpty() && id == other.id
     }
 
-    override fun hashCode(): Int {
-        var result = id.hashCode()
-        result = 31 * result + creationDate.hashCode()
-        result = 31 * result + name.hashCode()
-        result = 31 * result + surname.hashCode()
-        result = 31 * result + email.hashCode()
-        result = 31 * result + password.hashCode()
-        return result
-    }
+    override fun hashCode(): Int = id.hashCode()
+
+    override fun toString(): String = "Customer(id=$id, creationDate=$creationDate, name=$name, surname=$surname)"
 }
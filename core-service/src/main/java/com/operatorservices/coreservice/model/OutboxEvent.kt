@@ -0,0 +1,28 @@
+package com.operatorservices.coreservice.model
+
+import java.time.LocalDateTime
+import jakarta.persistence.*
+
+@Entity
+data class OutboxEvent(
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_event_seq")
+    @SequenceGenerator(name = "outbox_event_seq", sequenceName = "outbox_event_seq", allocationSize = 50)
+    val id: Long?,
+
+    val topic: String,
+
+    @Column(columnDefinition = "text")
+    val payload: String,
+
+    val createdAt: LocalDateTime
+
+) {
+    constructor(topic: String, payload: String, createdAt: LocalDateTime) : this(
+        null,
+        topic = topic,
+        payload = payload,
+        createdAt = createdAt
+    )
+}
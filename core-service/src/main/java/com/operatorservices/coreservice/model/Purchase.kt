@@ -1,24 +1,30 @@
 package com.operatorservices.coreservice.model
 
+import com.operatorservices.coreservice.repository.UuidStringJdbcType
 import org.hibernate.annotations.GenericGenerator
+import org.hibernate.annotations.JdbcType
 import java.time.LocalDateTime
 import jakarta.persistence.*
 
+//Fetch plan of the purchase view: the package it maps. The account stays a lazy reference.
 @Entity
+@NamedEntityGraph(name = "Purchase.detail", attributeNodes = [NamedAttributeNode("subPackage")])
 data class Purchase(
     @Id
-    @GeneratedValue(generator = "UUID")
-    @GenericGenerator(name = "UUID", strategy = "org.hibernate.id.UUIDGenerator")
-    val id: String,
+    @GeneratedValue(generator = "uuid7")
+    @GenericGenerator(name = "uuid7", strategy = "com.operatorservices.coreservice.repository.TimeOrderedUuidGenerator")
+    @JdbcType(UuidStringJdbcType::class)
+    val id: String?,
 
+    @Column(nullable = false)
     val purchaseDate: LocalDateTime?,
     val packagePrice: Short,
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "account_id", nullable = false)
     val account: Account?,
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "package_id", nullable = false)
     val subPackage: SubPackage?
 
@@ -30,36 +36,24 @@ data class Purchase(
         subPackage: SubPackage,
         packagePrice: Short,
     ) : this(
-        "",
+        null,   //a null id lets save() persist directly instead of merging, which keeps inserts batchable
         purchaseDate = purchaseDate,
         account = account,
         subPackage = subPackage,
         packagePrice = packagePrice
     )
 
+    //Identity by id, so Account.purchases operations do not hash or compare the account and package behind
+    //each purchase. The id is null until the purchase is saved.
     override fun equals(other: Any?): Boolean {
         if (this === other) return true
-        if (javaClass != other?.javaClass) return false
-
-        other as Purchase
-
-        if (id != other.id) return false
-        if (purchaseDate != other.purchaseDate) return false
-        if (packagePrice != other.packagePrice) return false
-        if (account != other.account) return false
-        if (subPackage != other.subPackage) return false
-
-        return true
+        if (other !is Purchase) return false
+        return id != null && id == other.id
     }
 
-    override fun hashCode(): Int {
-        var result = id.hashCode()
-        result = 31 * result + (purchaseDate?.hashCode() ?: 0)
-        result = 31 * result + packagePrice
-        result = 31 * result + (account?.hashCode() ?: 0)
-        result = 31 * result + (subPackage?.hashCode() ?: 0)
-        return result
-    }
+    override fun hashCode(): Int = id?.hashCode() ?: 0
+
+    override fun toString(): String = "Purchase(id=$id, purchaseDate=$purchaseDate, packagePrice=$packagePrice)"
 
 }
 
@@ -5,8 +5,11 @@ import jakarta.persistence.*
 @Entity
 data class SubPackage(
 
+    //Ids are taken from the sequence 50 at a time (pooled-lo), so inserts of packages are batched like any other.
+    //With IDENTITY each insert ran on its own, as Hibernate needed the id it generated.
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sub_package_seq")
+    @SequenceGenerator(name = "sub_package_seq", sequenceName = "sub_package_id_seq", allocationSize = 50)
     val id: Long?,
 
     var name: String,
@@ -25,30 +28,17 @@ data class SubPackage(
         purchasable = isPurchasable,
     )
 
+    //Identity by id; null until the package is saved.
     override fun equals(other: Any?): Boolean {
         if (this === other) return true
-        if (javaClass != other?.javaClass) return false
-
-        other as SubPackage
-
-        if (id != other.id) return false
-        if (name != other.name) return false
-        if (packageType != other.packageType) return false
-        if (duration != other.duration) return false
-        if (purchasable != other.purchasable) return false
-        if (purchases != other.purchases) return false
-
-        return true
+        if (other !is SubPackage) return false
+        return id != null && id == other.id
     }
 
-    override fun hashCode(): Int {
-        var result = id?.hashCode() ?: 0
-        result = 31 * result + name.hashCode()
-        result = 31 * result + packageType.hashCode()
-        result = 31 * result + duration.hashCode()
-        result = 31 * result + purchasable.hashCode()
-        return result
-    }
+    override fun hashCode(): Int = id?.hashCode() ?: 0
+
+    override fun toString(): String =
+        "SubPackage(id=$id, name=$name, packageType=$packageType, duration=$duration, purchasable=$purchasable)"
 
 }
 
@@ -0,0 +1,96 @@
+package com.operatorservices.coreservice.repository;
+
+import com.hazelcast.map.MapStore;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+//Persistence of the "balances" map of the grid balance mode. The durable balance is the snapshot in
+//account.account_balance plus the balance entries that GridBalanceStore journals with each change; the map's
+//own values are never written, as they include debits whose transactions may not commit.
+//It has its own small pool: a purchase transaction holds an application connection while its debit waits
+//for the partition owner, which may itself need a connection to load the balance.
+@Component
+@ConditionalOnProperty(name = "core.balance.mode", havingValue = "grid")
+public class AccountBalanceMapStore implements MapStore<String, BigDecimal> {
+
+    private final HikariDataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+
+    public AccountBalanceMapStore(DataSourceProperties dataSourceProperties,
+                                  @Value("${core.balance.grid.pool-size}") int poolSize) {
+        this.dataSource = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        this.dataSource.setPoolName("balance-map-store");
+        this.dataSource.setMaximumPoolSize(poolSize);
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @PreDestroy
+    public void close() {
+        dataSource.close();
+    }
+
+    @Override
+    public void store(String accountId, BigDecimal balance) {
+        storeAll(Map.of(accountId, balance));
+    }
+
+    //Called behind, with the accounts changed since the last store, coalesced: folds their committed entries
+    //into their snapshots in one statement. Entries of transactions still running are folded by a later store.
+    @Override
+    public void storeAll(Map<String, BigDecimal> balances) {
+        jdbcTemplate.update(
+                "with moved as (delete from balance_entry where account_id = any (?) returning account_id, amount) " +
+                        "update account a set account_balance = a.account_balance + m.total " +
+                        "from (select account_id, sum(amount) as total from moved group by account_id) m " +
+                        "where a.id = m.account_id",
+                statement -> statement.setArray(1,
+                        statement.getConnection().createArrayOf("uuid", balances.keySet().toArray())));
+    }
+
+    //Evicting or removing a balance from the map must not touch the account.
+    @Override
+    public void delete(String accountId) {
+    }
+
+    @Override
+    public void deleteAll(Collection<String> accountIds) {
+    }
+
+    //Returns null for a missing account, which leaves the map without an entry.
+    @Override
+    public BigDecimal load(String accountId) {
+        return loadAll(List.of(accountId)).get(accountId);
+    }
+
+    @Override
+    public Map<String, BigDecimal> loadAll(Collection<String> accountIds) {
+        Map<String, BigDecimal> balances = new HashMap<>();
+        jdbcTemplate.query(
+                "select a.id, a.account_balance " +
+                        "+ coalesce((select sum(e.amount) from balance_entry e where e.account_id = a.id), 0) " +
+                        "from account a where a.id = any (?)",
+                statement -> statement.setArray(1,
+                        statement.getConnection().createArrayOf("uuid", accountIds.toArray())),
+                rs -> {
+                    balances.put(rs.getString(1), rs.getBigDecimal(2));
+                });
+        return balances;
+    }
+
+    //Balances are loaded lazily, on first access per account.
+    @Override
+    public Iterable<String> loadAllKeys() {
+        return null;
+    }
+}
@@ -1,7 +1,67 @@
 package com.operatorservices.coreservice.repository;
 
 import com.operatorservices.coreservice.model.Account;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.AvailableHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.AvailableHints.HINT_READ_ONLY;
+
+//Reads that feed a view name the fetch plan of that view (see the graphs on Account): "Account.summary" for
+//collections, "Account.detail" for a single account with its purchases.
 public interface AccountRepository extends JpaRepository<Account, String> {
+
+    @EntityGraph("Account.detail")
+    Optional<Account> findDetailById(String id);
+
+    @Override
+    @EntityGraph("Account.summary")
+    Page<Account> findAll(Pageable pageable);
+
+    @Query("select a from Account a join fetch a.customer where a.id in :ids")
+    List<Account> findAllWithCustomerByIdIn(@Param("ids") Collection<String> ids);
+
+    @EntityGraph("Account.summary")
+    Slice<Account> findByIdGreaterThan(String id, Pageable pageable);
+
+    //Server-side cursor for the export: must be consumed inside a transaction, 1000 rows per round trip.
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("select a from Account a join fetch a.customer")
+    Stream<Account> streamAllWithCustomer();
+
+    @EntityGraph("Account.summary")
+    Page<Account> findByCustomerId(String customerId, Pageable pageable);
+
+    //Every account that bought the package once, however many purchases of it the account has.
+    @EntityGraph("Account.summary")
+    @Query("select a from Account a where a.id in (select p.account.id from Purchase p where p.subPackage.id = :packageId)")
+    Page<Account> findByPurchasedPackageId(@Param("packageId") Long packageId, Pageable pageable);
+
+    //Guarded debit: the balance check and the subtraction happen in one statement under the row lock,
+    //so concurrent purchases can neither overdraw the account nor lose each other's updates.
+    @Modifying
+    @Transactional
+    @Query("update Account a set a.accountBalance = a.accountBalance - :amount " +
+            "where a.id = :accountId and a.accountBalance >= :amount")
+    int debitBalance(@Param("accountId") String accountId, @Param("amount") BigDecimal amount);
+
+    @Modifying
+    @Transactional
+    @Query("update Account a set a.accountBalance = a.accountBalance + :amount where a.id = :accountId")
+    int creditBalance(@Param("accountId") String accountId, @Param("amount") BigDecimal amount);
 }
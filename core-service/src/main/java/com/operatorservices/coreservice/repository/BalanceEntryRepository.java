@@ -0,0 +1,98 @@
+package com.operatorservices.coreservice.repository;
+
+import com.operatorservices.coreservice.model.BalanceEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+
+public interface BalanceEntryRepository extends JpaRepository<BalanceEntry, Long> {
+
+    //Starts the buckets (balance_total) of an account from its snapshot and entries, split evenly, with the
+    //rounding in bucket 0. Does nothing if the account already has them, or gets them from a concurrent
+    //transaction first, once that commits.
+    @Modifying
+    @Query(value = "insert into balance_total (account_id, bucket, balance) " +
+            "select t.id, b.bucket, case when b.bucket = 0 " +
+            "then t.total - (:buckets - 1) * trunc(t.total / :buckets, 2) else trunc(t.total / :buckets, 2) end " +
+            "from (select a.id, a.account_balance " +
+            "+ coalesce((select sum(e.amount) from balance_entry e where e.account_id = a.id), 0) as total " +
+            "from account a where a.id = cast(:accountId as uuid) and a.account_balance is not null) t " +
+            "cross join generate_series(0, :buckets - 1) as b(bucket) " +
+            "on conflict (account_id, bucket) do nothing",
+            nativeQuery = true)
+    int startTotals(@Param("accountId") String accountId, @Param("buckets") int buckets);
+
+    //Lowers one bucket only if it covers the amount. The row lock this takes is held until commit, but only
+    //debits of the same bucket wait for it.
+    @Modifying
+    @Query(value = "update balance_total set balance = balance - :amount " +
+            "where account_id = cast(:accountId as uuid) and bucket = :bucket and balance >= :amount",
+            nativeQuery = true)
+    int debitBucket(@Param("accountId") String accountId, @Param("bucket") int bucket,
+                    @Param("amount") BigDecimal amount);
+
+    @Modifying
+    @Query(value = "update balance_total set balance = balance + :amount " +
+            "where account_id = cast(:accountId as uuid) and bucket = :bucket",
+            nativeQuery = true)
+    int adjustBucket(@Param("accountId") String accountId, @Param("bucket") int bucket,
+                     @Param("amount") BigDecimal amount);
+
+    //Rows of (bucket, balance), locked in bucket order so that two transactions locking all of them cannot
+    //deadlock on each other.
+    @Query(value = "select bucket, balance from balance_total where account_id = cast(:accountId as uuid) " +
+            "order by bucket for update",
+            nativeQuery = true)
+    List<Object[]> lockTotals(@Param("accountId") String accountId);
+
+    @Modifying
+    @Query(value = "update balance_total set balance = case when bucket = 0 " +
+            "then :balance - (:buckets - 1) * trunc(:balance / :buckets, 2) else trunc(:balance / :buckets, 2) end " +
+            "where account_id = cast(:accountId as uuid)",
+            nativeQuery = true)
+    int setTotals(@Param("accountId") String accountId, @Param("balance") BigDecimal balance,
+                  @Param("buckets") int buckets);
+
+    @Transactional
+    @Modifying
+    @Query(value = "delete from balance_total", nativeQuery = true)
+    int deleteAllTotals();
+
+    //Snapshot plus entries, read in one statement so that a concurrent compaction is seen entirely or not at all.
+    @Query("select a.id, a.accountBalance " +
+            "+ coalesce((select sum(e.amount) from BalanceEntry e where e.accountId = a.id), 0) " +
+            "from Account a where a.id in :accountIds")
+    List<Object[]> findCurrentBalances(@Param("accountIds") Collection<String> accountIds);
+
+    @Modifying
+    @Query("delete from BalanceEntry e where e.accountId = :accountId")
+    int deleteAllByAccountIdInBulk(@Param("accountId") String accountId);
+
+    //Rolls the snapshot (Account.accountBalance) forward: the oldest entries are removed and their sums
+    //are added to their accounts in the same statement.
+    @Modifying
+    @Query(value = "with moved as (" +
+            "delete from balance_entry where id in (select id from balance_entry order by id limit :limit) " +
+            "returning account_id, amount) " +
+            "update account a set account_balance = a.account_balance + m.total " +
+            "from (select account_id, sum(amount) as total from moved group by account_id) m " +
+            "where a.id = m.account_id",
+            nativeQuery = true)
+    int compact(@Param("limit") int limit);
+
+    //Folds every entry into its snapshot, for the row mode, which reads the snapshot alone.
+    @Transactional
+    @Modifying
+    @Query(value = "with moved as (delete from balance_entry returning account_id, amount) " +
+            "update account a set account_balance = a.account_balance + m.total " +
+            "from (select account_id, sum(amount) as total from moved group by account_id) m " +
+            "where a.id = m.account_id",
+            nativeQuery = true)
+    int compactAll();
+}
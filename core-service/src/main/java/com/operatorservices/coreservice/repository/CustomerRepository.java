@@ -1,8 +1,19 @@
 package com.operatorservices.coreservice.repository;
 
 import com.operatorservices.coreservice.model.Customer;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.Optional;
 
 public interface CustomerRepository extends JpaRepository<Customer, String> {
+
+    //Accounts, their purchases and the packages of those in one statement: the chain of sets joins into one
+    //row per purchase, not a cartesian product.
+    @EntityGraph("Customer.detail")
+    Optional<Customer> findDetailById(String id);
+
+    Slice<Customer> findByIdGreaterThan(String id, Pageable pageable);
 }
@@ -0,0 +1,15 @@
+package com.operatorservices.coreservice.repository;
+
+import com.operatorservices.coreservice.model.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    //SKIP LOCKED lets every core-service instance relay concurrently without picking the same events
+    @Query(value = "select * from outbox_event order by id limit :limit for update skip locked", nativeQuery = true)
+    List<OutboxEvent> findNextBatchForUpdate(@Param("limit") int limit);
+}
@@ -0,0 +1,139 @@
+package com.operatorservices.coreservice.repository;
+
+import org.springframework.boot.sql.init.dependency.DependsOnDatabaseInitialization;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+//The purchase table is range partitioned by purchase_date, one partition per month (purchase_pYYYY_MM) and
+//purchase_default for anything outside them. The parent table, purchase_default and purchase_archive come
+//from the migrations; the monthly partitions come and go at run time, so this does their DDL with plain JDBC.
+//Every operation runs in its own transaction under an advisory lock, so instances never race on the DDL.
+@Component
+@DependsOnDatabaseInitialization
+public class PurchasePartitions {
+
+    private static final long DDL_LOCK = 0x70757263L;
+    private static final Pattern PARTITION_NAME = Pattern.compile("purchase_p(\\d{4})_(\\d{2})");
+    private static final String COLUMNS = "id, account_id, package_id, package_price, purchase_date";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public PurchasePartitions(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    }
+
+    private void lock() {
+        jdbcTemplate.queryForList("select pg_advisory_xact_lock(?)", DDL_LOCK);
+    }
+
+    private static String partitionName(YearMonth month) {
+        return String.format("purchase_p%04d_%02d", month.getYear(), month.getMonthValue());
+    }
+
+    private static Timestamp monthStart(YearMonth month) {
+        return Timestamp.valueOf(month.atDay(1).atStartOfDay());
+    }
+
+    public List<YearMonth> returnPartitions() {
+        return jdbcTemplate.queryForList(
+                "select c.relname from pg_inherits i join pg_class c on c.oid = i.inhrelid"
+                        + " where i.inhparent = to_regclass('purchase')", String.class)
+                .stream()
+                .map(PARTITION_NAME::matcher)
+                .filter(Matcher::matches)
+                .map(matcher -> YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2))))
+                .sorted()
+                .toList();
+    }
+
+    public void createPartition(YearMonth month) {
+        transactionTemplate.executeWithoutResult(status -> {
+            lock();
+            createPartitionLocked(month);
+        });
+    }
+
+    //Rows of the month that already went to purchase_default are moved into the new partition before it is
+    //attached, as Postgres refuses a partition whose range overlaps rows of the default one.
+    private void createPartitionLocked(YearMonth month) {
+        if (returnPartitions().contains(month)) {
+            return;
+        }
+        String partition = partitionName(month);
+        Timestamp from = monthStart(month);
+        Timestamp to = monthStart(month.plusMonths(1));
+
+        jdbcTemplate.execute("create table " + partition + " (like purchase including defaults)");
+        jdbcTemplate.update("with moved as (delete from purchase_default"
+                + " where purchase_date >= ? and purchase_date < ? returning " + COLUMNS + ")"
+                + " insert into " + partition + " (" + COLUMNS + ") select " + COLUMNS + " from moved", from, to);
+        jdbcTemplate.execute("alter table purchase attach partition " + partition
+                + " for values from ('" + from + "') to ('" + to + "')");
+    }
+
+    //Monthly partitions detached by archiveBefore but not archived yet.
+    private List<YearMonth> returnDetachedPartitions() {
+        return jdbcTemplate.queryForList(
+                "select c.relname from pg_class c where c.relkind = 'r' and c.relname like 'purchase\\_p%'"
+                        + " and c.relnamespace = to_regnamespace(current_schema())"
+                        + " and not exists (select 1 from pg_inherits i where i.inhrelid = c.oid)", String.class)
+                .stream()
+                .map(PARTITION_NAME::matcher)
+                .filter(Matcher::matches)
+                .map(matcher -> YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2))))
+                .sorted()
+                .toList();
+    }
+
+    //Moves every partition before the given month, and the rows of purchase_default before it, into
+    //purchase_archive. A partition is first detached in a transaction of its own, which holds the lock on the
+    //parent table only for the detach; its rows are then copied and it is dropped in a second one, which does
+    //not touch the parent. A partition left detached by a failure in between is archived on the next run.
+    //(DETACH CONCURRENTLY is not possible next to purchase_default.) Returns the number of archived purchases.
+    public long archiveBefore(YearMonth month) {
+        for (YearMonth partitionMonth : returnPartitions()) {
+            if (!partitionMonth.isBefore(month)) {
+                break;
+            }
+            transactionTemplate.executeWithoutResult(status -> {
+                lock();
+                if (returnPartitions().contains(partitionMonth)) {
+                    jdbcTemplate.execute("alter table purchase detach partition " + partitionName(partitionMonth));
+                }
+            });
+        }
+        long archived = 0;
+        for (YearMonth partitionMonth : returnDetachedPartitions()) {
+            String partition = partitionName(partitionMonth);
+            archived += transactionTemplate.execute(status -> {
+                lock();
+                if (!returnDetachedPartitions().contains(partitionMonth)) {
+                    return 0;
+                }
+                int rows = jdbcTemplate.update("insert into purchase_archive (" + COLUMNS + ") select " + COLUMNS
+                        + " from " + partition);
+                jdbcTemplate.execute("drop table " + partition);
+                return rows;
+            });
+        }
+        archived += transactionTemplate.execute(status -> {
+            lock();
+            return jdbcTemplate.update("with moved as (delete from purchase_default where purchase_date < ?"
+                    + " returning " + COLUMNS + ")"
+                    + " insert into purchase_archive (" + COLUMNS + ") select " + COLUMNS + " from moved",
+                    monthStart(month));
+        });
+        return archived;
+    }
+}
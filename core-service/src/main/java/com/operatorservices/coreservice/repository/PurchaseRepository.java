@@ -1,7 +1,71 @@
 package com.operatorservices.coreservice.repository;
 
+import com.operatorservices.coreservice.dto.PurchaseExportDto;
 import com.operatorservices.coreservice.model.Purchase;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.AvailableHints.HINT_FETCH_SIZE;
 
 public interface PurchaseRepository extends JpaRepository<Purchase, String> {
+
+    //What a refund needs, without loading the purchase, its account or its package.
+    //The purchase date is the partition key, so the delete that follows touches a single partition.
+    interface Refund {
+        String getAccountId();
+        Short getPackagePrice();
+        LocalDateTime getPurchaseDate();
+    }
+
+    //The "recent" variants only search the partitions from the given date on.
+    @EntityGraph("Purchase.detail")
+    Optional<Purchase> findDetailById(String id);
+
+    @EntityGraph("Purchase.detail")
+    @Query("select p from Purchase p where p.id = :id and p.purchaseDate >= :since")
+    Optional<Purchase> findRecentById(@Param("id") String id, @Param("since") LocalDateTime since);
+
+    @Query("select p.account.id as accountId, p.packagePrice as packagePrice, p.purchaseDate as purchaseDate"
+            + " from Purchase p where p.id = :id")
+    Optional<Refund> findRefundById(@Param("id") String id);
+
+    @Query("select p.account.id as accountId, p.packagePrice as packagePrice, p.purchaseDate as purchaseDate"
+            + " from Purchase p where p.id = :id and p.purchaseDate >= :since")
+    Optional<Refund> findRecentRefundById(@Param("id") String id, @Param("since") LocalDateTime since);
+
+    //Keyset page of an account's history: purchases after (afterDate, afterId) and before the given date,
+    //served by purchase_account_id_purchase_date_idx however long the history is. The plain bound on
+    //purchaseDate repeats the comparison in a form that lets Postgres skip the older partitions. It is spelled
+    //out rather than a row comparison, whose parameters Hibernate would not bind as uuid.
+    @Query("select p from Purchase p join fetch p.subPackage where p.account.id = :accountId"
+            + " and (p.purchaseDate > :afterDate or p.purchaseDate = :afterDate and p.id > :afterId)"
+            + " and p.purchaseDate >= :afterDate and p.purchaseDate < :before"
+            + " order by p.purchaseDate, p.id")
+    List<Purchase> findPageByAccountId(@Param("accountId") String accountId,
+                                       @Param("afterDate") LocalDateTime afterDate,
+                                       @Param("afterId") String afterId,
+                                       @Param("before") LocalDateTime before,
+                                       Pageable pageable);
+
+    //Server-side cursor for the export, straight into rows: no purchase, account or package is loaded.
+    //Must be consumed inside a transaction, 1000 rows per round trip.
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("select new com.operatorservices.coreservice.dto.PurchaseExportDto("
+            + "p.id, p.account.id, p.subPackage.id, p.packagePrice, p.purchaseDate) from Purchase p")
+    Stream<PurchaseExportDto> streamAllForExport();
+
+    @Modifying
+    @Query("delete from Purchase p where p.id = :id and p.purchaseDate = :purchaseDate")
+    int deleteInBulkById(@Param("id") String id, @Param("purchaseDate") LocalDateTime purchaseDate);
 }
@@ -1,8 +1,25 @@
 package com.operatorservices.coreservice.repository;
 
+import com.operatorservices.coreservice.dto.PackageDto;
 import com.operatorservices.coreservice.model.SubPackage;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.Optional;
 
 public interface SubPackageRepository extends JpaRepository<SubPackage, Long> {
 
+    @Query("select new com.operatorservices.coreservice.dto.PackageDto(p.id, p.name, p.packageType, p.duration, p.purchasable) " +
+            "from SubPackage p")
+    List<PackageDto> findAllCatalogEntries();
+
+    @Query("select new com.operatorservices.coreservice.dto.PackageDto(p.id, p.name, p.packageType, p.duration, p.purchasable) " +
+            "from SubPackage p where p.id = :id")
+    Optional<PackageDto> findCatalogEntryById(@Param("id") Long id);
+
+    Slice<SubPackage> findByIdGreaterThan(Long id, Pageable pageable);
 }
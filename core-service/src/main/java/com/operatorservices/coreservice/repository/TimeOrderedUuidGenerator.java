@@ -0,0 +1,34 @@
+package com.operatorservices.coreservice.repository;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+//Version 7 UUIDs: the first 48 bits are the creation time in milliseconds, the rest is random. Consecutive
+//inserts land next to each other at the right edge of the primary key index, where random (version 4) ids
+//touch a different leaf page each, and split them half full.
+//The 12 bits after the version are a counter within the millisecond, which starts at a random value in its
+//lower half: ids of one instance keep increasing even when many are made in one millisecond, so the rightmost
+//leaf page is only ever appended to and Postgres splits it full. A counter that runs out carries into the time.
+public class TimeOrderedUuidGenerator implements IdentifierGenerator {
+
+    //Milliseconds and counter of the last id, as millis << 12 | counter.
+    private static final AtomicLong LAST_TICK = new AtomicLong();
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object object) {
+        return generate().toString();
+    }
+
+    public static UUID generate() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long now = System.currentTimeMillis() << 12 | random.nextLong() & 0x7FFL;
+        long tick = LAST_TICK.updateAndGet(last -> now > last ? now : last + 1);
+        long mostSigBits = (tick >>> 12) << 16 | 0x7000L | tick & 0x0FFFL;
+        long leastSigBits = random.nextLong() & 0x3FFF_FFFF_FFFF_FFFFL | 0x8000_0000_0000_0000L;
+        return new UUID(mostSigBits, leastSigBits);
+    }
+}
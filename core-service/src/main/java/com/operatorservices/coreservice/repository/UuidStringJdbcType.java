@@ -0,0 +1,117 @@
+package com.operatorservices.coreservice.repository;
+
+import com.operatorservices.coreservice.exception.InvalidIdException;
+import org.hibernate.type.SqlTypes;
+import org.hibernate.type.descriptor.ValueBinder;
+import org.hibernate.type.descriptor.ValueExtractor;
+import org.hibernate.type.descriptor.WrapperOptions;
+import org.hibernate.type.descriptor.java.JavaType;
+import org.hibernate.type.descriptor.jdbc.BasicBinder;
+import org.hibernate.type.descriptor.jdbc.BasicExtractor;
+import org.hibernate.type.descriptor.jdbc.JdbcType;
+
+import java.sql.CallableStatement;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Locale;
+
+//Maps the String ids of the entities to native uuid columns: 16 bytes per key instead of a 36 character
+//varchar. The string is sent untyped and parsed by Postgres, so no java.util.UUID is made per bind, and
+//the column is read back as its text form, in lower case. Ids from clients go through normalize first, so
+//they match the ids read back (say, as map keys); a string that is not a UUID fails to bind. The empty
+//string is the id of an entity not saved yet, which merge looks up before inserting, so it binds as null.
+public class UuidStringJdbcType implements JdbcType {
+
+    @Override
+    public int getJdbcTypeCode() {
+        return SqlTypes.UUID;
+    }
+
+    public static boolean isUuid(String value) {
+        if (value == null || value.length() != 36) {
+            return false;
+        }
+        for (int i = 0; i < 36; i++) {
+            char c = value.charAt(i);
+            if (i == 8 || i == 13 || i == 18 || i == 23) {
+                if (c != '-') {
+                    return false;
+                }
+            } else if (!(c >= '0' && c <= '9' || c >= 'a' && c <= 'f' || c >= 'A' && c <= 'F')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    //For ids from clients: rejects what is not a UUID and returns the rest in the case Postgres reads them back in.
+    public static String normalize(String value) {
+        if (!isUuid(value)) {
+            throw new InvalidIdException("Not a valid id: " + value);
+        }
+        return value.toLowerCase(Locale.ROOT);
+    }
+
+    private static <X> String toUuid(JavaType<X> javaType, X value, WrapperOptions options) {
+        String uuid = javaType.unwrap(value, String.class, options);
+        if (uuid.isEmpty()) {
+            return null;
+        }
+        if (!isUuid(uuid)) {
+            throw new IllegalArgumentException("Not a UUID: " + uuid);
+        }
+        return uuid;
+    }
+
+    @Override
+    public <X> ValueBinder<X> getBinder(JavaType<X> javaType) {
+        return new BasicBinder<>(javaType, this) {
+
+            @Override
+            protected void doBindNull(PreparedStatement st, int index, WrapperOptions options) throws SQLException {
+                st.setNull(index, Types.OTHER);
+            }
+
+            @Override
+            protected void doBindNull(CallableStatement st, String name, WrapperOptions options) throws SQLException {
+                st.setNull(name, Types.OTHER);
+            }
+
+            @Override
+            protected void doBind(PreparedStatement st, X value, int index, WrapperOptions options)
+                    throws SQLException {
+                st.setObject(index, toUuid(javaType, value, options), Types.OTHER);
+            }
+
+            @Override
+            protected void doBind(CallableStatement st, X value, String name, WrapperOptions options)
+                    throws SQLException {
+                st.setObject(name, toUuid(javaType, value, options), Types.OTHER);
+            }
+        };
+    }
+
+    @Override
+    public <X> ValueExtractor<X> getExtractor(JavaType<X> javaType) {
+        return new BasicExtractor<>(javaType, this) {
+
+            @Override
+            protected X doExtract(ResultSet rs, int paramIndex, WrapperOptions options) throws SQLException {
+                return javaType.wrap(rs.getString(paramIndex), options);
+            }
+
+            @Override
+            protected X doExtract(CallableStatement statement, int index, WrapperOptions options) throws SQLException {
+                return javaType.wrap(statement.getString(index), options);
+            }
+
+            @Override
+            protected X doExtract(CallableStatement statement, String name, WrapperOptions options)
+                    throws SQLException {
+                return javaType.wrap(statement.getString(name), options);
+            }
+        };
+    }
+}
@@ -3,19 +3,34 @@ package com.operatorservices.coreservice.service;
 import com.operatorservices.coreservice.dto.AccountCreateRequestDto;
 import com.operatorservices.coreservice.dto.AccountDto;
 import com.operatorservices.coreservice.dto.AccountUpdateRequestDto;
-import com.operatorservices.coreservice.dto.PurchaseDto;
+import com.operatorservices.coreservice.dto.PurchaseHistoryPageDto;
 import com.operatorservices.coreservice.dto.converter.ModelDtoConverter;
 import com.operatorservices.coreservice.exception.EntryNotFoundException;
+import com.operatorservices.coreservice.exception.InvalidCursorException;
 import com.operatorservices.coreservice.repository.AccountRepository;
 import com.operatorservices.coreservice.model.Account;
 import com.operatorservices.coreservice.model.Customer;
 import com.operatorservices.coreservice.model.Purchase;
+import com.operatorservices.coreservice.repository.PurchaseRepository;
+import com.operatorservices.coreservice.repository.UuidStringJdbcType;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.Collection;
 import java.util.List;
-import java.util.Objects;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -24,16 +39,34 @@ public class AccountService {
     private final AccountRepository accountRepository;
     private final ModelDtoConverter modelDtoConverter;
     private final CustomerService customerService;
+    private final BalanceStore balanceStore;
+    private final PurchaseRepository purchaseRepository;
+
+    public static final int DEFAULT_PURCHASE_PAGE_SIZE = 50;
+    public static final int MAX_PURCHASE_PAGE_SIZE = 200;
+    static final Set<String> ACCOUNT_SORT = Set.of("id", "creationDate", "tariffType");
+    //Open date bounds are replaced by these, so the history query is one index range scan in every case.
+    //Without a from date it does not prune: the first page probes the account index of every retained monthly
+    //partition (at most retention-months + premake-months + 1 of them). Later pages start at their cursor's date
+    //and skip the older partitions.
+    private static final LocalDateTime HISTORY_START = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime HISTORY_END = LocalDateTime.of(9999, 12, 31, 0, 0);
+    //The smallest uuid: keyset pages that start after it start with the first row.
+    private static final String FIRST_ID = "00000000-0000-0000-0000-000000000000";
 
 
     public AccountService(
             AccountRepository accountRepository,
             ModelDtoConverter modelDtoConverter,
-            CustomerService customerService) {
+            CustomerService customerService,
+            BalanceStore balanceStore,
+            PurchaseRepository purchaseRepository) {
 
         this.accountRepository = accountRepository;
         this.modelDtoConverter = modelDtoConverter;
         this.customerService = customerService;
+        this.balanceStore = balanceStore;
+        this.purchaseRepository = purchaseRepository;
     }
 
 
@@ -43,24 +76,124 @@ public class AccountService {
                         () -> new EntryNotFoundException("No account found with this id: " + id));
     }
 
-    public AccountDto getAccountById(String accountId) {
-        return modelDtoConverter.accountToAccountDto(returnAccountById(accountId));
+    private Account returnAccountDetailById(String id) {
+        return accountRepository.findDetailById(id)
+                .orElseThrow(
+                        () -> new EntryNotFoundException("No account found with this id: " + id));
     }
 
-    public List<AccountDto> getAllAccounts() {
-        return accountRepository.findAll()
+    protected Map<String, Account> returnAccountsByIds(Collection<String> ids) {
+        return accountRepository.findAllWithCustomerByIdIn(ids)
                 .stream()
-                .map(modelDtoConverter::accountToAccountDto)
-                .collect(Collectors.toList());
+                .collect(Collectors.toMap(Account::getId, Function.identity()));
     }
 
-    public List<PurchaseDto> getAllPurchases(String accountId){
-        Account account = returnAccountById(accountId);
-        return account.getPurchases()
-                .stream()
-                .map(modelDtoConverter::purchaseToPurchaseDto)
-                .collect(Collectors.toList());
+    protected Account returnAccountReference(String id) {
+        return accountRepository.getReferenceById(id);
+    }
+
+    protected Map<String, BigDecimal> returnBalancesOf(Collection<Account> accounts) {
+        return balanceStore.currentBalances(accounts);
+    }
+
+    protected boolean debitAccount(String accountId, BigDecimal amount) {
+        if (balanceStore.debit(accountId, amount)) {
+            return true;
+        }
+        if (!accountRepository.existsById(accountId)) {
+            throw new EntryNotFoundException("No account found with this id: " + accountId);
+        }
+        return false;
+    }
+
+    protected void creditAccount(String accountId, BigDecimal amount) {
+        balanceStore.credit(accountId, amount);
+    }
+
+    //Account.accountBalance is only a snapshot in ledger mode, so views take the balance from the store.
+    protected AccountDto withCurrentBalance(AccountDto accountDto, Map<String, BigDecimal> balances) {
+        BigDecimal balance = balances.get(accountDto.getId());
+        if (balance == null || balance.compareTo(accountDto.getAccountBalance()) == 0) {
+            return accountDto;
+        }
+        return accountDto.copy(
+                accountDto.getId(),
+                accountDto.getCreationDate(),
+                accountDto.getCustomer(),
+                accountDto.getTariffType(),
+                balance,
+                accountDto.getPurchases());
     }
+
+    public AccountDto getAccountById(String accountId) {
+        Account account = returnAccountDetailById(accountId);
+        return withCurrentBalance(
+                modelDtoConverter.accountToAccountDto(account), balanceStore.currentBalances(List.of(account)));
+    }
+
+    public Page<AccountDto> getAccounts(Pageable pageable) {
+        Page<Account> accounts = accountRepository.findAll(Paging.sorted(pageable, ACCOUNT_SORT));
+        Map<String, BigDecimal> balances = balanceStore.currentBalances(accounts.getContent());
+        return accounts.map(account -> withCurrentBalance(modelDtoConverter.accountToAccountSummaryDto(account), balances));
+    }
+
+    public Slice<AccountDto> getAccountsAfter(String afterId, Pageable pageable) {
+        Slice<Account> accounts = accountRepository.findByIdGreaterThan(
+                afterId.isEmpty() ? FIRST_ID : afterId, Paging.keyset(pageable));
+        Map<String, BigDecimal> balances = balanceStore.currentBalances(accounts.getContent());
+        return accounts.map(account -> withCurrentBalance(modelDtoConverter.accountToAccountSummaryDto(account), balances));
+    }
+
+    //The cursor is the (purchaseDate, id) of the last purchase of the previous page, so each page starts with
+    //an index seek instead of skipping the purchases before it. A cursor takes over the from bound it was made with.
+    public PurchaseHistoryPageDto getPurchases(String accountId, String cursor,
+                                               LocalDateTime from, LocalDateTime to, int size) {
+        if (!accountRepository.existsById(accountId)) {
+            throw new EntryNotFoundException("No account found with this id: " + accountId);
+        }
+        int pageSize = Math.max(1, Math.min(size, MAX_PURCHASE_PAGE_SIZE));
+
+        LocalDateTime afterDate = from != null ? from : HISTORY_START;
+        String afterId = FIRST_ID;
+        if (cursor != null) {
+            String[] position = decodeCursor(cursor);
+            afterDate = LocalDateTime.parse(position[0]);
+            afterId = position[1];
+        }
+
+        List<Purchase> purchases = purchaseRepository.findPageByAccountId(
+                accountId, afterDate, afterId, to != null ? to : HISTORY_END, PageRequest.of(0, pageSize + 1));
+
+        String nextCursor = null;
+        if (purchases.size() > pageSize) {
+            purchases = purchases.subList(0, pageSize);
+            nextCursor = encodeCursor(purchases.get(pageSize - 1));
+        }
+        return new PurchaseHistoryPageDto(
+                purchases.stream().map(modelDtoConverter::purchaseToPurchaseDto).collect(Collectors.toList()),
+                nextCursor);
+    }
+
+    private static String encodeCursor(Purchase purchase) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(
+                (purchase.getPurchaseDate() + "," + purchase.getId()).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decodeCursor(String cursor) {
+        try {
+            String[] position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(",", 2);
+            LocalDateTime.parse(position[0]);
+            if (position.length == 2 && UuidStringJdbcType.isUuid(position[1])) {
+                return position;
+            }
+        } catch (IllegalArgumentException | DateTimeParseException ignored) {
+        }
+        throw new InvalidCursorException("Invalid purchase history cursor: " + cursor);
+    }
+
+    //One transaction, so that the saved account refers to the customer loaded here rather than to a lazy
+    //reference that the mapping could no longer initialize.
+    @Transactional
     public AccountDto createAccount(AccountCreateRequestDto accountCreateRequestDto) {
 
         Customer customer = customerService.returnCustomerById(accountCreateRequestDto.getCustomerId());
@@ -74,11 +207,12 @@ public class AccountService {
         return modelDtoConverter.accountToAccountDto(accountRepository.save(account));
     }
 
+    @Transactional
     public AccountDto updateAccount(AccountUpdateRequestDto accountUpdateDto, String accountId) {
 
-        return accountRepository.findById(accountId)
+        return accountRepository.findDetailById(accountId)
                 .map(account -> {
-                    account.setAccountBalance(accountUpdateDto.getAccountBalance());
+                    balanceStore.setBalance(account, accountUpdateDto.getAccountBalance());
                     account.setTariffType(accountUpdateDto.getTariffType());
                     return modelDtoConverter.accountToAccountDto(accountRepository.save(account));
                 })
@@ -86,14 +220,6 @@ public class AccountService {
                         () -> new EntryNotFoundException("No account found with this id: " + accountId));
     }
 
-    public void syncAccount(Purchase purchase){
-       accountRepository.findById(Objects.requireNonNull(purchase.getAccount()).getId())
-               .map(account -> {
-                   account.getPurchases().remove(purchase);
-                   return accountRepository.save(account);
-               });
-    }
-
     public void deleteAccount(String accountId) {
         if (accountRepository.existsById(accountId)) {
             accountRepository.deleteById(accountId);
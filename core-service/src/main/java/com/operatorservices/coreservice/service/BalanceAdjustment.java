@@ -0,0 +1,56 @@
+package com.operatorservices.coreservice.service;
+
+import com.hazelcast.map.EntryProcessor;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+//Runs on the partition owner of the account, so the check and the change of a balance are one step without a
+//lock. Returns false for a missing account or a debit the balance does not cover. Backups get the resulting
+//balance rather than the adjustment: a backup without the entry loads it from the map store, which may already
+//have the journaled change.
+public class BalanceAdjustment implements EntryProcessor<String, BigDecimal, Boolean> {
+
+    private final BigDecimal amount;
+    private BigDecimal adjusted;
+
+    public BalanceAdjustment(BigDecimal amount) {
+        this.amount = amount;
+    }
+
+    @Override
+    public Boolean process(Map.Entry<String, BigDecimal> entry) {
+        BigDecimal balance = entry.getValue();
+        if (balance == null) {
+            return false;
+        }
+        BigDecimal adjusted = balance.add(amount);
+        if (adjusted.signum() < 0) {
+            return false;
+        }
+        entry.setValue(adjusted);
+        this.adjusted = adjusted;
+        return true;
+    }
+
+    //Called on the owner after process; nothing to back up if the balance did not change.
+    @Override
+    public EntryProcessor<String, BigDecimal, Boolean> getBackupProcessor() {
+        return adjusted == null ? null : new BalanceBackup(adjusted);
+    }
+
+    private static class BalanceBackup implements EntryProcessor<String, BigDecimal, Boolean> {
+
+        private final BigDecimal balance;
+
+        private BalanceBackup(BigDecimal balance) {
+            this.balance = balance;
+        }
+
+        @Override
+        public Boolean process(Map.Entry<String, BigDecimal> entry) {
+            entry.setValue(balance);
+            return true;
+        }
+    }
+}
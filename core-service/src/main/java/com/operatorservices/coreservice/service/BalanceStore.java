@@ -0,0 +1,21 @@
+package com.operatorservices.coreservice.service;
+
+import com.operatorservices.coreservice.model.Account;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Map;
+
+//Where account balances live, selected by core.balance.mode. AccountService is the only caller.
+public interface BalanceStore {
+
+    //Returns false when the account does not exist or its balance does not cover the amount.
+    boolean debit(String accountId, BigDecimal amount);
+
+    void credit(String accountId, BigDecimal amount);
+
+    Map<String, BigDecimal> currentBalances(Collection<Account> accounts);
+
+    //Sets the balance of an account about to be saved by the caller, within the caller's transaction.
+    void setBalance(Account account, BigDecimal balance);
+}
@@ -3,13 +3,22 @@ package com.operatorservices.coreservice.service;
 import com.operatorservices.coreservice.dto.converter.ModelDtoConverter;
 import com.operatorservices.coreservice.dto.*;
 import com.operatorservices.coreservice.exception.EntryNotFoundException;
+import com.operatorservices.coreservice.model.Account;
 import com.operatorservices.coreservice.model.Customer;
+import com.operatorservices.coreservice.repository.AccountRepository;
 import com.operatorservices.coreservice.repository.CustomerRepository;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.util.List;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -17,10 +26,19 @@ public class CustomerService {
 
    private final CustomerRepository customerRepository;
    private final ModelDtoConverter modelDtoConverter;
+   private final AccountRepository accountRepository;
+   private final BalanceStore balanceStore;
 
-    public CustomerService(CustomerRepository customerRepository, ModelDtoConverter modelDtoConverter) {
+   static final Set<String> CUSTOMER_SORT = Set.of("id", "creationDate", "name", "surname", "email");
+
+    public CustomerService(CustomerRepository customerRepository,
+                           ModelDtoConverter modelDtoConverter,
+                           AccountRepository accountRepository,
+                           BalanceStore balanceStore) {
         this.customerRepository = customerRepository;
         this.modelDtoConverter = modelDtoConverter;
+        this.accountRepository = accountRepository;
+        this.balanceStore = balanceStore;
     }
 
     protected Customer returnCustomerById(String id){
@@ -29,22 +47,79 @@ public class CustomerService {
                         () -> new EntryNotFoundException("No customer found with this id: " + id));
     }
 
+    //Account.accountBalance is only a snapshot in ledger mode, so the accounts of a customer take their balance
+    //from the store, like the account views of AccountService.
+    private CustomerRequestGetAccountDto withCurrentBalance(CustomerRequestGetAccountDto accountDto,
+                                                            Map<String, BigDecimal> balances) {
+        BigDecimal balance = balances.get(accountDto.getId());
+        if (balance == null || balance.compareTo(accountDto.getAccountBalance()) == 0) {
+            return accountDto;
+        }
+        return accountDto.copy(
+                accountDto.getId(),
+                accountDto.getCreationDate(),
+                accountDto.getTariffType(),
+                balance,
+                accountDto.getPurchases());
+    }
+
+    private Set<CustomerRequestGetAccountDto> withCurrentBalances(Set<CustomerRequestGetAccountDto> accountDtos,
+                                                                  Collection<Account> accounts) {
+        if (accountDtos == null || accountDtos.isEmpty()) {
+            return accountDtos;
+        }
+        Map<String, BigDecimal> balances = balanceStore.currentBalances(accounts);
+        return accountDtos.stream()
+                .map(accountDto -> withCurrentBalance(accountDto, balances))
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+
+    private CustomerDto withCurrentBalances(CustomerDto customerDto, Customer customer) {
+        return customerDto.copy(
+                customerDto.getId(),
+                customerDto.getCreationDate(),
+                customerDto.getName(),
+                customerDto.getSurname(),
+                customerDto.getEmail(),
+                customerDto.getPassword(),
+                withCurrentBalances(customerDto.getAccounts(), customer.getAccounts()));
+    }
+
     public CustomerGetDto getCustomerById(String customerId){
-        return modelDtoConverter.customerToCustomerGetDto(returnCustomerById(customerId));
+        return customerRepository.findDetailById(customerId)
+                .map(customer -> {
+                    CustomerGetDto customerGetDto = modelDtoConverter.customerToCustomerGetDto(customer);
+                    return customerGetDto.copy(
+                            customerGetDto.getId(),
+                            customerGetDto.getCreationDate(),
+                            customerGetDto.getName(),
+                            customerGetDto.getSurname(),
+                            customerGetDto.getEmail(),
+                            withCurrentBalances(customerGetDto.getAccounts(), customer.getAccounts()));
+                })
+                .orElseThrow(
+                        () -> new EntryNotFoundException("No customer found with this id: " + customerId));
     }
 
-    public List<CustomerGetDto> getAllCustomers() {
-        return customerRepository.findAll()
-                .stream()
-                .map(modelDtoConverter::customerToCustomerGetDto)
-                .collect(Collectors.toList());
+    public Page<CustomerGetDto> getCustomers(Pageable pageable) {
+        return customerRepository.findAll(Paging.sorted(pageable, CUSTOMER_SORT))
+                .map(modelDtoConverter::customerToCustomerSummaryDto);
     }
 
-    public List<CustomerRequestGetAccountDto> getAllAccounts(String customerId) {
-        return returnCustomerById(customerId).getAccounts()
-                .stream()
-                .map(modelDtoConverter::accountToCustomerRequestGetAccountDto)
-                .collect(Collectors.toList());
+    public Slice<CustomerGetDto> getCustomersAfter(String afterId, Pageable pageable) {
+        return customerRepository.findByIdGreaterThan(afterId, Paging.keyset(pageable))
+                .map(modelDtoConverter::customerToCustomerSummaryDto);
+    }
+
+    public Page<CustomerRequestGetAccountDto> getAccounts(String customerId, Pageable pageable) {
+        if (!customerRepository.existsById(customerId)) {
+            throw new EntryNotFoundException("No customer found with this id: " + customerId);
+        }
+        Page<Account> accounts = accountRepository.findByCustomerId(
+                customerId, Paging.sorted(pageable, AccountService.ACCOUNT_SORT));
+        Map<String, BigDecimal> balances = balanceStore.currentBalances(accounts.getContent());
+        return accounts.map(account ->
+                withCurrentBalance(modelDtoConverter.accountToCustomerRequestGetAccountSummaryDto(account), balances));
     }
 
     public CustomerDto createCustomer(CustomerCreateRequestDto customerCreateRequestDto){
@@ -61,11 +136,12 @@ public class CustomerService {
 
     public CustomerDto updateCustomer(CustomerUpdateRequestDto customerUpdateRequestDto, String customerId) {
 
-        return customerRepository.findById(customerId)
+        return customerRepository.findDetailById(customerId)
                 .map(customer -> {
                     customer.setEmail(Objects.requireNonNull(customerUpdateRequestDto.getEmail()));
                     customer.setPassword(Objects.requireNonNull(customerUpdateRequestDto.getPassword()));
-                    return modelDtoConverter.customerToCustomerDto(customerRepository.save(customer));
+                    return withCurrentBalances(
+                            modelDtoConverter.customerToCustomerDto(customerRepository.save(customer)), customer);
                 })
                 .orElseThrow(
                         () -> new EntryNotFoundException("No customer found with this id: " + customerId));
@@ -0,0 +1,52 @@
+package com.operatorservices.coreservice.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.listener.adapter.RecordFilterStrategy;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+
+//purchase-order-service stops waiting for a reply at the deadline it sends along with every request-reply order.
+//An order consumed after that is discarded unanswered: purchasing it would be dead work, and worse, a purchase
+//the client was told had timed out and may already have retried. Orders without the header are always kept.
+@Component
+public class ExpiredOrderFilter implements RecordFilterStrategy<String, Object> {
+
+    public static final String DEADLINE_HEADER = "order-deadline";
+
+    private final Counter expired;
+    private static final Logger logger = LoggerFactory.getLogger(ExpiredOrderFilter.class);
+
+    public ExpiredOrderFilter(MeterRegistry meterRegistry) {
+        this.expired = Counter.builder("purchase.order.expired")
+                .description("Orders discarded because their deadline had passed when they were consumed")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public boolean filter(ConsumerRecord<String, Object> consumerRecord) {
+        Header deadline = consumerRecord.headers().lastHeader(DEADLINE_HEADER);
+        if (deadline == null) {
+            return false;
+        }
+        long deadlineMillis;
+        try {
+            deadlineMillis = Long.parseLong(new String(deadline.value(), StandardCharsets.UTF_8));
+        } catch (NumberFormatException exception) {
+            return false;
+        }
+        long overdueMillis = System.currentTimeMillis() - deadlineMillis;
+        if (overdueMillis <= 0) {
+            return false;
+        }
+        expired.increment();
+        logger.warn("Discarding order {}-{}@{}, {} ms past its deadline", consumerRecord.topic(),
+                consumerRecord.partition(), consumerRecord.offset(), overdueMillis);
+        return true;
+    }
+}
@@ -0,0 +1,117 @@
+package com.operatorservices.coreservice.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.operatorservices.coreservice.dto.PurchaseExportDto;
+import com.operatorservices.coreservice.dto.converter.ModelDtoConverter;
+import com.operatorservices.coreservice.model.Account;
+import com.operatorservices.coreservice.repository.AccountRepository;
+import com.operatorservices.coreservice.repository.PurchaseRepository;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+//Full exports for reconciliation, one JSON document per line. Rows come from a server-side cursor and are
+//written as they arrive; accounts are detached once written, so the heap holds at most one chunk of them.
+@Service
+public class ExportService {
+
+    //Accounts per balance lookup, and per flush of the response
+    private static final int CHUNK_SIZE = 1000;
+
+    private final AccountRepository accountRepository;
+    private final PurchaseRepository purchaseRepository;
+    private final AccountService accountService;
+    private final BalanceStore balanceStore;
+    private final ModelDtoConverter modelDtoConverter;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private static final Logger logger = LoggerFactory.getLogger(ExportService.class);
+
+    public ExportService(AccountRepository accountRepository,
+                         PurchaseRepository purchaseRepository,
+                         AccountService accountService,
+                         BalanceStore balanceStore,
+                         ModelDtoConverter modelDtoConverter,
+                         EntityManager entityManager,
+                         ObjectMapper objectMapper) {
+
+        this.accountRepository = accountRepository;
+        this.purchaseRepository = purchaseRepository;
+        this.accountService = accountService;
+        this.balanceStore = balanceStore;
+        this.modelDtoConverter = modelDtoConverter;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+    }
+
+    private JsonGenerator newGenerator(OutputStream outputStream) throws IOException {
+        return objectMapper.getFactory()
+                .createGenerator(outputStream)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    private static void writeLine(JsonGenerator generator, Object value) throws IOException {
+        generator.writeObject(value);
+        generator.writeRaw('\n');
+    }
+
+    //Accounts as in the account collection (without purchases), with the balance the balance store reports.
+    @Transactional(readOnly = true)
+    public long exportAccounts(OutputStream outputStream) throws IOException {
+        long exported = 0;
+        try (Stream<Account> accounts = accountRepository.streamAllWithCustomer();
+             JsonGenerator generator = newGenerator(outputStream)) {
+
+            Iterator<Account> iterator = accounts.iterator();
+            List<Account> chunk = new ArrayList<>(CHUNK_SIZE);
+            while (iterator.hasNext()) {
+                chunk.add(iterator.next());
+                if (chunk.size() == CHUNK_SIZE || !iterator.hasNext()) {
+                    Map<String, BigDecimal> balances = balanceStore.currentBalances(chunk);
+                    for (Account account : chunk) {
+                        writeLine(generator, accountService.withCurrentBalance(
+                                modelDtoConverter.accountToAccountSummaryDto(account), balances));
+                        entityManager.detach(account);
+                        entityManager.detach(Objects.requireNonNull(account.getCustomer()));
+                    }
+                    exported += chunk.size();
+                    chunk.clear();
+                    generator.flush();
+                }
+            }
+        }
+        logger.info("Exported {} accounts", exported);
+        return exported;
+    }
+
+    @Transactional(readOnly = true)
+    public long exportPurchases(OutputStream outputStream) throws IOException {
+        long exported = 0;
+        try (Stream<PurchaseExportDto> purchases = purchaseRepository.streamAllForExport();
+             JsonGenerator generator = newGenerator(outputStream)) {
+
+            Iterator<PurchaseExportDto> iterator = purchases.iterator();
+            while (iterator.hasNext()) {
+                writeLine(generator, iterator.next());
+                if (++exported % CHUNK_SIZE == 0) {
+                    generator.flush();
+                }
+            }
+        }
+        logger.info("Exported {} purchases", exported);
+        return exported;
+    }
+}
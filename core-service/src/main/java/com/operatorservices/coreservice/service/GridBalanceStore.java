@@ -0,0 +1,107 @@
+package com.operatorservices.coreservice.service;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.map.IMap;
+import com.operatorservices.coreservice.model.Account;
+import com.operatorservices.coreservice.model.BalanceEntry;
+import com.operatorservices.coreservice.repository.BalanceEntryRepository;
+import com.operatorservices.coreservice.repository.UuidStringJdbcType;
+import jakarta.annotation.PreDestroy;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+//Grid mode for flash sales: balances live in the partitioned "balances" IMap and are checked and changed through
+//BalanceAdjustment on their partition owner. Each change is also journaled as a BalanceEntry in the caller's
+//transaction, so Postgres always has the balance of the committed purchases: the snapshot in
+//Account.accountBalance plus the entries. AccountBalanceMapStore folds the entries into the snapshot behind,
+//and loads the map from both, which rebuilds it after the whole cluster went down.
+@Service
+@ConditionalOnProperty(name = "core.balance.mode", havingValue = "grid")
+public class GridBalanceStore implements BalanceStore {
+
+    public static final String BALANCES = "balances";
+
+    private final IMap<String, BigDecimal> balances;
+    private final BalanceEntryRepository balanceEntryRepository;
+
+    public GridBalanceStore(HazelcastInstance hazelcastInstance, BalanceEntryRepository balanceEntryRepository) {
+        this.balances = hazelcastInstance.getMap(BALANCES);
+        this.balanceEntryRepository = balanceEntryRepository;
+    }
+
+    //The map is not transactional: a debit whose transaction rolls back is credited back. If the member running
+    //the transaction dies before that, the map keeps the debit until it is reloaded, which can only reject
+    //purchases the account could have paid, never accept one it cannot.
+    @Override
+    public boolean debit(String accountId, BigDecimal amount) {
+        //A malformed id would reach the map store, whose native SQL fails on it instead of finding nothing.
+        if (!UuidStringJdbcType.isUuid(accountId)) {
+            return false;
+        }
+        if (!balances.executeOnKey(accountId, new BalanceAdjustment(amount.negate()))) {
+            return false;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        balances.executeOnKey(accountId, new BalanceAdjustment(amount));
+                    }
+                }
+            });
+        }
+        balanceEntryRepository.save(new BalanceEntry(accountId, amount.negate(), LocalDateTime.now()));
+        return true;
+    }
+
+    //A credit reaches the map only once it is committed, so nothing can be bought with a refund that rolls back.
+    //The balance is loaded first: loaded after the commit, it would already contain the credit.
+    @Override
+    public void credit(String accountId, BigDecimal amount) {
+        balances.get(accountId);
+        balanceEntryRepository.save(new BalanceEntry(accountId, amount, LocalDateTime.now()));
+        afterCommit(() -> balances.executeOnKey(accountId, new BalanceAdjustment(amount)));
+    }
+
+    @Override
+    public Map<String, BigDecimal> currentBalances(Collection<Account> accounts) {
+        return balances.getAll(accounts.stream().map(Account::getId).collect(Collectors.toSet()));
+    }
+
+    //The snapshot is set and the entries before it dropped in the caller's transaction; the map follows once
+    //that commits.
+    @Override
+    public void setBalance(Account account, BigDecimal balance) {
+        account.setAccountBalance(balance);
+        balanceEntryRepository.deleteAllByAccountIdInBulk(account.getId());
+        afterCommit(() -> balances.set(account.getId(), balance));
+    }
+
+    //Folds the entries of the accounts queued on the local partitions before the member leaves.
+    @PreDestroy
+    public void flush() {
+        balances.flush();
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
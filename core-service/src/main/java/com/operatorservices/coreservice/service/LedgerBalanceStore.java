@@ -0,0 +1,161 @@
+package com.operatorservices.coreservice.service;
+
+import com.operatorservices.coreservice.model.Account;
+import com.operatorservices.coreservice.model.BalanceEntry;
+import com.operatorservices.coreservice.repository.BalanceEntryRepository;
+import com.operatorservices.coreservice.repository.UuidStringJdbcType;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Savepoint;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+//Ledger mode for hot accounts: Account.accountBalance is a snapshot and every debit or credit appends a
+//BalanceEntry, so purchases neither update nor lock the account row. The current balance is the snapshot
+//plus the entries after it, and compact() periodically folds entries into the snapshot. Debits are checked
+//against the running balance of the account, split over core.balance.ledger.buckets rows (balance_total), so
+//that concurrent debits of one account rarely wait for each other.
+@Service
+@ConditionalOnProperty(name = "core.balance.mode", havingValue = "ledger")
+public class LedgerBalanceStore implements BalanceStore {
+
+    private final BalanceEntryRepository balanceEntryRepository;
+    private final EntityManager entityManager;
+    private static final Logger logger = LoggerFactory.getLogger(LedgerBalanceStore.class);
+
+    @Value("${core.balance.ledger.compaction-batch-size}")
+    private int compactionBatchSize;
+
+    @Value("${core.balance.ledger.buckets}")
+    private int buckets;
+
+    public LedgerBalanceStore(BalanceEntryRepository balanceEntryRepository, EntityManager entityManager) {
+        this.balanceEntryRepository = balanceEntryRepository;
+        this.entityManager = entityManager;
+    }
+
+    //Only this mode keeps the buckets up to date, so whatever a previous run in another mode left behind is
+    //dropped; each account starts its buckets again from its snapshot and entries on first use.
+    @PostConstruct
+    public void resetTotals() {
+        int rows = balanceEntryRepository.deleteAllTotals();
+        if (rows > 0) {
+            logger.info("Dropped {} balance buckets, to be rebuilt from the ledger", rows);
+        }
+    }
+
+    //The bucket of the calling thread: the debits of one transaction stay on one row, and those of different
+    //threads spread over the buckets.
+    private int bucket() {
+        return (int) Math.floorMod(Thread.currentThread().getId(), (long) buckets);
+    }
+
+    //A transaction that debits an account again after a successful debit of it may lock its buckets out of
+    //order. Callers debit each account once, or again only after a failed debit, which leaves all of them locked.
+    @Override
+    @Transactional
+    public boolean debit(String accountId, BigDecimal amount) {
+        //The debit is native SQL, where a malformed id would be an error rather than a missing account.
+        if (!UuidStringJdbcType.isUuid(accountId)) {
+            return false;
+        }
+        if (!debitOwnBucket(accountId, amount) && !debitAcrossBuckets(accountId, amount)) {
+            return false;
+        }
+        balanceEntryRepository.save(new BalanceEntry(accountId, amount.negate(), LocalDateTime.now()));
+        return true;
+    }
+
+    //In a savepoint: a guarded update that waited for a concurrent debit of the bucket keeps it locked even when
+    //it then finds the bucket short, and debitAcrossBuckets must not start out holding a bucket out of order.
+    private boolean debitOwnBucket(String accountId, BigDecimal amount) {
+        entityManager.flush();
+        Session session = entityManager.unwrap(Session.class);
+        Savepoint savepoint = session.doReturningWork(Connection::setSavepoint);
+        boolean debited = balanceEntryRepository.debitBucket(accountId, bucket(), amount) > 0;
+        session.doWork(connection -> {
+            if (debited) {
+                connection.releaseSavepoint(savepoint);
+            } else {
+                connection.rollback(savepoint);
+            }
+        });
+        return debited;
+    }
+
+    //The bucket did not cover the amount, or the account has no buckets yet: all of them are locked, in order,
+    //and the debit is taken from as many as it needs.
+    private boolean debitAcrossBuckets(String accountId, BigDecimal amount) {
+        balanceEntryRepository.startTotals(accountId, buckets);
+        List<Object[]> totals = balanceEntryRepository.lockTotals(accountId);
+
+        BigDecimal available = totals.stream().map(row -> (BigDecimal) row[1]).reduce(BigDecimal.ZERO, BigDecimal::add);
+        if (totals.isEmpty() || available.compareTo(amount) < 0) {
+            return false;
+        }
+        BigDecimal remaining = amount;
+        for (Object[] row : totals) {
+            BigDecimal taken = remaining.min((BigDecimal) row[1]);
+            if (taken.signum() > 0) {
+                balanceEntryRepository.adjustBucket(accountId, ((Number) row[0]).intValue(), taken.negate());
+                remaining = remaining.subtract(taken);
+            }
+        }
+        return true;
+    }
+
+    @Override
+    @Transactional
+    public void credit(String accountId, BigDecimal amount) {
+        if (balanceEntryRepository.adjustBucket(accountId, bucket(), amount) == 0) {
+            balanceEntryRepository.startTotals(accountId, buckets);
+            balanceEntryRepository.adjustBucket(accountId, bucket(), amount);
+        }
+        balanceEntryRepository.save(new BalanceEntry(accountId, amount, LocalDateTime.now()));
+    }
+
+    @Override
+    public Map<String, BigDecimal> currentBalances(Collection<Account> accounts) {
+        if (accounts.isEmpty()) {
+            return Map.of();
+        }
+        return balanceEntryRepository.findCurrentBalances(accounts.stream().map(Account::getId).toList())
+                .stream()
+                .collect(Collectors.toMap(row -> (String) row[0], row -> (BigDecimal) row[1]));
+    }
+
+    //An explicit balance becomes the new snapshot and running balance, replacing the entries of the account.
+    //Locking the buckets first waits for the debits in flight, as deleting their entries would not.
+    @Override
+    @Transactional
+    public void setBalance(Account account, BigDecimal balance) {
+        balanceEntryRepository.startTotals(account.getId(), buckets);
+        balanceEntryRepository.lockTotals(account.getId());
+        balanceEntryRepository.setTotals(account.getId(), balance, buckets);
+        balanceEntryRepository.deleteAllByAccountIdInBulk(account.getId());
+        account.setAccountBalance(balance);
+    }
+
+    @Scheduled(fixedDelayString = "${core.balance.ledger.compaction-interval-ms}")
+    @Transactional
+    public void compact() {
+        int accounts = balanceEntryRepository.compact(compactionBatchSize);
+        if (accounts > 0) {
+            logger.debug("Rolled the balance snapshot of {} accounts forward", accounts);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.operatorservices.coreservice.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.operatorservices.coreservice.dto.PurchaseDto;
+import com.operatorservices.coreservice.model.OutboxEvent;
+import com.operatorservices.coreservice.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+//Transactional outbox: events are written in the caller's database transaction and
+//relayed to Kafka in the background, so a purchase neither waits for nor depends on the broker.
+@Service
+public class OutboxService {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final KafkaTemplate<String, PurchaseDto> kafkaTemplate;
+    private final ObjectMapper objectMapper;
+    private final Timer relayLag;
+    private final DistributionSummary relayBatchSize;
+    private static final Logger logger = LoggerFactory.getLogger(OutboxService.class);
+
+    @Value("${outbox.relay.batch-size}")
+    private int batchSize;
+
+    @Value("${outbox.relay.send-timeout-ms}")
+    private long sendTimeoutMs;
+
+    public OutboxService(OutboxEventRepository outboxEventRepository,
+                         KafkaTemplate<String, PurchaseDto> kafkaTemplate,
+                         ObjectMapper objectMapper,
+                         MeterRegistry meterRegistry) {
+
+        this.outboxEventRepository = outboxEventRepository;
+        this.kafkaTemplate = kafkaTemplate;
+        this.objectMapper = objectMapper;
+        this.relayLag = Timer.builder("outbox.relay.lag")
+                .description("Age of the oldest event of a relayed batch")
+                .register(meterRegistry);
+        this.relayBatchSize = DistributionSummary.builder("outbox.relay.batch.size")
+                .description("Events relayed per batch")
+                .register(meterRegistry);
+    }
+
+    private OutboxEvent toOutboxEvent(String topic, PurchaseDto purchaseDto) {
+        try {
+            return new OutboxEvent(topic, objectMapper.writeValueAsString(purchaseDto), LocalDateTime.now());
+        } catch (JsonProcessingException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    public void enqueue(String topic, PurchaseDto purchaseDto) {
+        outboxEventRepository.save(toOutboxEvent(topic, purchaseDto));
+    }
+
+    public void enqueueAll(String topic, Collection<PurchaseDto> purchaseDtos) {
+        outboxEventRepository.saveAll(purchaseDtos.stream()
+                .map(purchaseDto -> toOutboxEvent(topic, purchaseDto))
+                .toList());
+    }
+
+    //At-least-once: events are deleted only after the broker acknowledged the whole batch,
+    //otherwise the transaction rolls back and the batch is picked up again on the next run.
+    @Scheduled(fixedDelayString = "${outbox.relay.interval-ms}")
+    @Transactional
+    public void relay() throws JsonProcessingException, ExecutionException, InterruptedException, TimeoutException {
+
+        List<OutboxEvent> batch = outboxEventRepository.findNextBatchForUpdate(batchSize);
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        CompletableFuture<?>[] sends = new CompletableFuture<?>[batch.size()];
+        for (int i = 0; i < batch.size(); i++) {
+            OutboxEvent event = batch.get(i);
+            sends[i] = kafkaTemplate.send(event.getTopic(), objectMapper.readValue(event.getPayload(), PurchaseDto.class));
+        }
+        CompletableFuture.allOf(sends).get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+
+        outboxEventRepository.deleteAllInBatch(batch);
+
+        relayBatchSize.record(batch.size());
+        relayLag.record(Duration.between(batch.get(0).getCreatedAt(), LocalDateTime.now()));
+        logger.debug("Relayed {} outbox events", batch.size());
+    }
+}
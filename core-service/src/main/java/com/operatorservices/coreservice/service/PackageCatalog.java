@@ -0,0 +1,80 @@
+package com.operatorservices.coreservice.service;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.topic.ITopic;
+import com.operatorservices.coreservice.dto.PackageDto;
+import com.operatorservices.coreservice.repository.SubPackageRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+//In-process copy of every package without its purchases, loaded at startup, so the purchase path reads
+//packages without a query. A changed package is re-read locally and announced on the "package-catalog"
+//topic, on which every other instance re-reads it too. Topic messages are best-effort, so the whole catalog is
+//also reloaded every reload-interval-ms, which bounds how long a missed announcement leaves a package stale.
+@Component
+public class PackageCatalog {
+
+    private final SubPackageRepository packageRepository;
+    private final ITopic<Long> invalidations;
+    private final Map<Long, PackageDto> packages = new ConcurrentHashMap<>();
+
+    public PackageCatalog(SubPackageRepository packageRepository, HazelcastInstance hazelcastInstance) {
+        this.packageRepository = packageRepository;
+        this.invalidations = hazelcastInstance.getTopic("package-catalog");
+    }
+
+    @PostConstruct
+    public void load() {
+        invalidations.addMessageListener(message -> {
+            if (!message.getPublishingMember().localMember()) {
+                refresh(message.getMessageObject());
+            }
+        });
+        reload();
+    }
+
+    @Scheduled(fixedDelayString = "${core.package-catalog.reload-interval-ms}",
+            initialDelayString = "${core.package-catalog.reload-interval-ms}")
+    public void reload() {
+        Set<Long> loaded = new HashSet<>();
+        packageRepository.findAllCatalogEntries().forEach(subPackage -> {
+            packages.put(subPackage.getId(), subPackage);
+            loaded.add(subPackage.getId());
+        });
+        packages.keySet().retainAll(loaded);
+    }
+
+    //A miss is read through, as a package created on another instance may be used before its announcement arrives.
+    //putIfAbsent keeps a concurrent refresh, which read the package no earlier than this.
+    public PackageDto get(Long packageId) {
+        PackageDto subPackage = packages.get(packageId);
+        if (subPackage != null) {
+            return subPackage;
+        }
+        return packageRepository.findCatalogEntryById(packageId)
+                .map(loaded -> {
+                    PackageDto previous = packages.putIfAbsent(packageId, loaded);
+                    return previous != null ? previous : loaded;
+                })
+                .orElse(null);
+    }
+
+    //Call after the change is committed.
+    public void invalidate(Long packageId) {
+        refresh(packageId);
+        invalidations.publish(packageId);
+    }
+
+    private void refresh(Long packageId) {
+        packageRepository.findCatalogEntryById(packageId)
+                .ifPresentOrElse(
+                        subPackage -> packages.put(packageId, subPackage),
+                        () -> packages.remove(packageId));
+    }
+}
@@ -0,0 +1,39 @@
+package com.operatorservices.coreservice.service;
+
+import com.operatorservices.coreservice.exception.InvalidPageRequestException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.util.Set;
+
+//Page requests of the collection endpoints; size defaults and limits come from spring.data.web.pageable.*.
+final class Paging {
+
+    private Paging() {
+    }
+
+    //Only the given properties may be sorted on, and id is always the last sort key: the order is then total,
+    //so consecutive offset pages neither repeat nor skip rows.
+    static Pageable sorted(Pageable pageable, Set<String> sortable) {
+        for (Sort.Order order : pageable.getSort()) {
+            if (!sortable.contains(order.getProperty())) {
+                throw new InvalidPageRequestException("Can not sort by " + order.getProperty()
+                        + ", sortable properties are " + sortable);
+            }
+        }
+        Sort sort = pageable.getSort().getOrderFor("id") != null
+                ? pageable.getSort()
+                : pageable.getSort().and(Sort.by("id"));
+        return PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), sort);
+    }
+
+    //Keyset pages run in id order and start after the last id of the previous page: one index seek, however
+    //deep the page. They can not be sorted otherwise.
+    static Pageable keyset(Pageable pageable) {
+        if (pageable.getSort().isSorted()) {
+            throw new InvalidPageRequestException("Pages after an id are in id order and can not be sorted");
+        }
+        return PageRequest.of(0, pageable.getPageSize(), Sort.by("id"));
+    }
+}
@@ -0,0 +1,48 @@
+package com.operatorservices.coreservice.service;
+
+import com.operatorservices.coreservice.repository.PurchasePartitions;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.YearMonth;
+
+//Keeps a partition for the current month and the next premake-months ones, and moves the months older than
+//retention-months into purchase_archive, so the live table and its indexes hold only the hot history.
+//It first runs before the entity manager factory is built (see PurchasePartitionConfig), then daily.
+@Service
+public class PurchaseArchiver {
+
+    private final PurchasePartitions purchasePartitions;
+    private static final Logger logger = LoggerFactory.getLogger(PurchaseArchiver.class);
+
+    @Value("${core.purchase.partition.premake-months}")
+    private int premakeMonths;
+
+    @Value("${core.purchase.partition.retention-months}")
+    private int retentionMonths;
+
+    public PurchaseArchiver(PurchasePartitions purchasePartitions) {
+        this.purchasePartitions = purchasePartitions;
+    }
+
+    @PostConstruct
+    public void init() {
+        maintain();
+    }
+
+    @Scheduled(cron = "${core.purchase.partition.maintenance-cron}")
+    public void maintain() {
+        YearMonth currentMonth = YearMonth.now();
+        for (int i = 0; i <= premakeMonths; i++) {
+            purchasePartitions.createPartition(currentMonth.plusMonths(i));
+        }
+        long archived = purchasePartitions.archiveBefore(currentMonth.minusMonths(retentionMonths - 1));
+        if (archived > 0) {
+            logger.info("Archived {} purchases older than {} months", archived, retentionMonths);
+        }
+    }
+}
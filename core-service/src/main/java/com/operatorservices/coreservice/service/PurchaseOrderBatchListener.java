@@ -0,0 +1,80 @@
+package com.operatorservices.coreservice.service;
+
+import com.operatorservices.coreservice.dto.PurchaseCreateRequestDto;
+import com.operatorservices.coreservice.dto.PurchaseDto;
+import com.operatorservices.coreservice.dto.PurchaseOrderDto;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+@Service
+public class PurchaseOrderBatchListener {
+
+    private final PurchaseService purchaseService;
+    private final KafkaTemplate<String, PurchaseDto> kafkaTemplate;
+    private static final Logger logger = LoggerFactory.getLogger(PurchaseOrderBatchListener.class);
+
+    public PurchaseOrderBatchListener(PurchaseService purchaseService, KafkaTemplate<String, PurchaseDto> kafkaTemplate) {
+        this.purchaseService = purchaseService;
+        this.kafkaTemplate = kafkaTemplate;
+    }
+
+    //Opt-in replacement for PurchaseService.consume, see kafka.purchase-order.batch.enabled
+    @KafkaListener(topics = "purchase-order", groupId = "listener-group",
+            containerFactory = "batchKafkaListenerContainerFactory",
+            autoStartup = "${kafka.purchase-order.batch.enabled}")
+    public void consume(List<ConsumerRecord<String, PurchaseOrderDto>> records) {
+        //Every order of the poll may have been discarded by ExpiredOrderFilter
+        if (records.isEmpty()) {
+            return;
+        }
+        logger.info("Received {} orders", records.size());
+
+        List<Object> replies = purchaseService.createPurchases(records.stream()
+                .map(ConsumerRecord::value)
+                .map(purchaseOrderDto -> new PurchaseCreateRequestDto(
+                        purchaseOrderDto.getAccountId(),
+                        purchaseOrderDto.getSubPackageId(),
+                        purchaseOrderDto.getPackagePrice()))
+                .toList());
+
+        for (int i = 0; i < records.size(); i++) {
+            reply(records.get(i), replies.get(i));
+        }
+    }
+
+    //Does by hand what @SendTo does for a single record: answer on the requester's reply topic
+    //(and partition, if it asked for one) under the request's correlation id.
+    private void reply(ConsumerRecord<String, PurchaseOrderDto> record, Object reply) {
+
+        Header replyTopic = record.headers().lastHeader(KafkaHeaders.REPLY_TOPIC);
+        if (replyTopic == null) {
+            return;
+        }
+
+        MessageBuilder<Object> message = MessageBuilder.withPayload(reply)
+                .setHeader(KafkaHeaders.TOPIC, new String(replyTopic.value(), StandardCharsets.UTF_8));
+
+        Header correlationId = record.headers().lastHeader(KafkaHeaders.CORRELATION_ID);
+        if (correlationId != null) {
+            message.setHeader(KafkaHeaders.CORRELATION_ID, correlationId.value());
+        }
+
+        Header replyPartition = record.headers().lastHeader(KafkaHeaders.REPLY_PARTITION);
+        if (replyPartition != null) {
+            message.setHeader(KafkaHeaders.PARTITION, ByteBuffer.wrap(replyPartition.value()).getInt());
+        }
+
+        kafkaTemplate.send(message.build());
+    }
+}
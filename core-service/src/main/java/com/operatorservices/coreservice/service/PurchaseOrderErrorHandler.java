@@ -3,6 +3,7 @@ package com.operatorservices.coreservice.service;
 import com.operatorservices.coreservice.dto.ExceptionDto;
 import com.operatorservices.coreservice.exception.EntryNotFoundException;
 import com.operatorservices.coreservice.exception.InsufficientFundsException;
+import com.operatorservices.coreservice.exception.InvalidIdException;
 import com.operatorservices.coreservice.exception.PurchaseNotPossibleException;
 import org.apache.kafka.clients.consumer.Consumer;
 import org.springframework.kafka.listener.ConsumerAwareListenerErrorHandler;
@@ -15,20 +16,29 @@ public class PurchaseOrderErrorHandler implements ConsumerAwareListenerErrorHand
 
     @Override
     public Object handleError(Message<?> message, ListenerExecutionFailedException exception, Consumer<?, ?> consumer) {
+        return toExceptionDto(exception.getCause());
+    }
+
+    public static ExceptionDto toExceptionDto(Throwable cause) {
+
+        if (cause instanceof EntryNotFoundException){
+
+            return new ExceptionDto((short) 404, cause.getMessage());
+        }
 
-        if (exception.getCause() instanceof EntryNotFoundException){
+        if (cause instanceof InsufficientFundsException){
 
-            return new ExceptionDto((short) 404, exception.getCause().getMessage());
+            return new ExceptionDto((short) 402, cause.getMessage());
         }
 
-        if (exception.getCause() instanceof InsufficientFundsException){
+        if (cause instanceof PurchaseNotPossibleException){
 
-            return new ExceptionDto((short) 402, exception.getCause().getMessage());
+            return new ExceptionDto((short) 403, cause.getMessage());
         }
 
-        if (exception.getCause() instanceof PurchaseNotPossibleException){
+        if (cause instanceof InvalidIdException){
 
-            return new ExceptionDto((short) 403, exception.getCause().getMessage());
+            return new ExceptionDto((short) 400, cause.getMessage());
         }
 
         return null;
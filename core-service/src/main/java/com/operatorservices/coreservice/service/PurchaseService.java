@@ -1,29 +1,37 @@
 package com.operatorservices.coreservice.service;
 
-import com.operatorservices.coreservice.dto.AccountUpdateRequestDto;
+import com.operatorservices.coreservice.dto.ExceptionDto;
+import com.operatorservices.coreservice.dto.PackageDto;
 import com.operatorservices.coreservice.dto.PurchaseCreateRequestDto;
 import com.operatorservices.coreservice.dto.PurchaseDto;
+import com.operatorservices.coreservice.dto.PurchaseOrderBatchDto;
+import com.operatorservices.coreservice.dto.PurchaseOrderBatchReplyDto;
 import com.operatorservices.coreservice.dto.PurchaseOrderDto;
+import com.operatorservices.coreservice.dto.PurchaseOrderLineResultDto;
 import com.operatorservices.coreservice.dto.converter.ModelDtoConverter;
 import com.operatorservices.coreservice.exception.EntryNotFoundException;
 import com.operatorservices.coreservice.exception.InsufficientFundsException;
+import com.operatorservices.coreservice.exception.InvalidIdException;
 import com.operatorservices.coreservice.exception.PurchaseNotPossibleException;
 import com.operatorservices.coreservice.model.Account;
 import com.operatorservices.coreservice.model.Purchase;
-import com.operatorservices.coreservice.model.SubPackage;
 import com.operatorservices.coreservice.repository.PurchaseRepository;
+import com.operatorservices.coreservice.repository.UuidStringJdbcType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.kafka.annotation.KafkaListener;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.messaging.handler.annotation.SendTo;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.util.Objects;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.stream.Collectors;
 
 @Service
 public class PurchaseService {
@@ -32,105 +40,221 @@ public class PurchaseService {
     private final ModelDtoConverter modelDtoConverter;
     private final AccountService accountService;
     private final SubPackageService subPackageService;
-    private final KafkaTemplate<String, PurchaseDto> kafkaTemplate;
+    private final OutboxService outboxService;
     private static final Logger logger = LoggerFactory.getLogger(PurchaseService.class);
 
+    @Value("${core.purchase.partition.hot-months}")
+    private int hotMonths;
+
     public PurchaseService(PurchaseRepository purchaseRepository,
                            ModelDtoConverter modelDtoConverter,
                            AccountService accountService,
-                           SubPackageService subPackageService, KafkaTemplate<String, PurchaseDto> kafkaTemplate) {
+                           SubPackageService subPackageService, OutboxService outboxService) {
 
         this.purchaseRepository = purchaseRepository;
         this.modelDtoConverter = modelDtoConverter;
         this.accountService = accountService;
         this.subPackageService = subPackageService;
-        this.kafkaTemplate = kafkaTemplate;
+        this.outboxService = outboxService;
     }
 
 
+    //Start of the hot partitions: most lookups are of recent purchases, so they are tried there first.
+    private LocalDateTime hotPartitionsStart() {
+        return YearMonth.now().minusMonths(hotMonths - 1).atDay(1).atStartOfDay();
+    }
+
     protected Purchase returnPurchaseById(String id) {
-        return purchaseRepository.findById(id)
+        return purchaseRepository.findRecentById(id, hotPartitionsStart())
+                .or(() -> purchaseRepository.findDetailById(id))
                 .orElseThrow(
                         () -> new EntryNotFoundException("No purchase found with this id: " + id));
     }
 
     protected BigDecimal returnBalance(BigDecimal accountBalance, Short packagePrice, String packageName){
         if (accountBalance.compareTo(BigDecimal.valueOf(packagePrice)) < 0){
-            throw new InsufficientFundsException(
-                    "Insufficient account balance to make this purchase: " + packageName
-                    + " with the price of " + packagePrice + "." + " Payment Required.");
+            throw insufficientFunds(packagePrice, packageName);
         }
             return accountBalance.subtract(BigDecimal.valueOf(packagePrice));
     }
 
+    private InsufficientFundsException insufficientFunds(Short packagePrice, String packageName){
+        return new InsufficientFundsException(
+                "Insufficient account balance to make this purchase: " + packageName
+                + " with the price of " + packagePrice + "." + " Payment Required.");
+    }
+
     @Cacheable(cacheNames = "purchases", sync = true)
     public PurchaseDto getPurchaseById(String purchaseId) {
         return modelDtoConverter.purchaseToPurchaseDto(returnPurchaseById(purchaseId));
     }
 
 
+    @Transactional
     public PurchaseDto createPurchase(PurchaseCreateRequestDto purchaseCreateRequestDto) {
 
-        SubPackage subPackage = subPackageService.returnSubPackageById(purchaseCreateRequestDto.getSubPackageId());
+        PackageDto subPackage = subPackageService.returnCatalogPackageById(purchaseCreateRequestDto.getSubPackageId());
 
         if (!subPackage.getPurchasable()) {
             throw new PurchaseNotPossibleException ("This package can not be purchased at this moment!");
         }
 
-        Account account = accountService.returnAccountById(purchaseCreateRequestDto.getAccountId());
-        BigDecimal newBalance = returnBalance(
-                Objects.requireNonNull(account.getAccountBalance()),
-                purchaseCreateRequestDto.getPackagePrice(),
-                subPackage.getName());
-
-        account.setAccountBalance(newBalance);
-
-        AccountUpdateRequestDto accountUpdateRequestDto = new AccountUpdateRequestDto(
-                newBalance,
-                Objects.requireNonNull(account.getTariffType())
-        );
-
-        accountService.updateAccount(accountUpdateRequestDto, account.getId());
+        if (!accountService.debitAccount(
+                purchaseCreateRequestDto.getAccountId(),
+                BigDecimal.valueOf(purchaseCreateRequestDto.getPackagePrice()))) {
+            throw insufficientFunds(purchaseCreateRequestDto.getPackagePrice(), subPackage.getName());
+        }
 
         Purchase purchase = new Purchase(
                 LocalDateTime.now(),
-                account,
-                subPackage,
+                accountService.returnAccountReference(purchaseCreateRequestDto.getAccountId()),
+                subPackageService.returnSubPackageReference(subPackage),
                 purchaseCreateRequestDto.getPackagePrice()
         );
 
         PurchaseDto purchaseDto = modelDtoConverter.purchaseToPurchaseDto(purchaseRepository.save(purchase));
-        kafkaTemplate.send("notification", purchaseDto);
+        outboxService.enqueue("notification", purchaseDto);
 
         return purchaseDto;
     }
 
-    @KafkaListener(topics = "purchase-order", errorHandler = "orderErrorHandler", groupId = "listener-group")
+    //Grouped variant of createPurchase: one query loads the accounts, one the packages, each account is
+    //debited once with the sum of its accepted lines and the purchases are inserted in JDBC batches.
+    //Returns one PurchaseDto or ExceptionDto per request, in request order; a line whose account id is not a UUID
+    //gets a 400. Both batch listeners come through here, so the account ids are normalized here as well.
+    @Transactional
+    public List<Object> createPurchases(List<PurchaseCreateRequestDto> purchaseCreateRequests) {
+
+        Map<Long, PackageDto> subPackages = subPackageService.returnCatalogPackagesByIds(
+                purchaseCreateRequests.stream().map(PurchaseCreateRequestDto::getSubPackageId).collect(Collectors.toSet()));
+        Map<String, Account> accounts = accountService.returnAccountsByIds(purchaseCreateRequests.stream()
+                .map(PurchaseCreateRequestDto::getAccountId)
+                .filter(UuidStringJdbcType::isUuid)
+                .map(UuidStringJdbcType::normalize)
+                .collect(Collectors.toSet()));
+        Map<String, BigDecimal> balances = accountService.returnBalancesOf(accounts.values());
+
+        Object[] results = new Object[purchaseCreateRequests.size()];
+        Map<Integer, Purchase> purchases = new LinkedHashMap<>();
+        Map<String, BigDecimal> remainingBalances = new HashMap<>();
+        Map<String, BigDecimal> debits = new LinkedHashMap<>();
+
+        for (int i = 0; i < purchaseCreateRequests.size(); i++) {
+            PurchaseCreateRequestDto request = purchaseCreateRequests.get(i);
+            try {
+                PackageDto subPackage = subPackages.get(request.getSubPackageId());
+                if (subPackage == null) {
+                    throw new EntryNotFoundException("No package found with this id: " + request.getSubPackageId());
+                }
+                if (!subPackage.getPurchasable()) {
+                    throw new PurchaseNotPossibleException ("This package can not be purchased at this moment!");
+                }
+                Account account = accounts.get(UuidStringJdbcType.normalize(request.getAccountId()));
+                if (account == null) {
+                    throw new EntryNotFoundException("No account found with this id: " + request.getAccountId());
+                }
+
+                BigDecimal remainingBalance = returnBalance(
+                        remainingBalances.getOrDefault(account.getId(), balances.get(account.getId())),
+                        request.getPackagePrice(),
+                        subPackage.getName());
+
+                remainingBalances.put(account.getId(), remainingBalance);
+                debits.merge(account.getId(), BigDecimal.valueOf(request.getPackagePrice()), BigDecimal::add);
+                purchases.put(i, new Purchase(
+                        LocalDateTime.now(),
+                        account,
+                        subPackageService.returnSubPackageReference(subPackage),
+                        request.getPackagePrice()));
+
+            } catch (EntryNotFoundException | PurchaseNotPossibleException | InsufficientFundsException
+                     | InvalidIdException exception) {
+                results[i] = PurchaseOrderErrorHandler.toExceptionDto(exception);
+            }
+        }
+
+        //The balances above were read without a lock, so the debit stays guarded. If another order got in
+        //between and the sum no longer fits, the lines of that account are debited one by one, so that only
+        //those the balance cannot cover anymore are rejected.
+        debits.forEach((accountId, amount) -> {
+            if (accountService.debitAccount(accountId, amount)) {
+                return;
+            }
+            purchases.entrySet().removeIf(entry -> {
+                Purchase purchase = entry.getValue();
+                if (!accountId.equals(Objects.requireNonNull(purchase.getAccount()).getId())
+                        || accountService.debitAccount(accountId, BigDecimal.valueOf(purchase.getPackagePrice()))) {
+                    return false;
+                }
+                results[entry.getKey()] = PurchaseOrderErrorHandler.toExceptionDto(insufficientFunds(
+                        purchase.getPackagePrice(), Objects.requireNonNull(purchase.getSubPackage()).getName()));
+                return true;
+            });
+        });
+
+        purchaseRepository.saveAll(purchases.values());
+
+        List<PurchaseDto> purchaseDtos = new ArrayList<>();
+        purchases.forEach((index, purchase) -> {
+            PurchaseDto purchaseDto = modelDtoConverter.purchaseToPurchaseDto(purchase);
+            purchaseDtos.add(purchaseDto);
+            results[index] = purchaseDto;
+        });
+        outboxService.enqueueAll("notification", purchaseDtos);
+
+        return Arrays.asList(results);
+    }
+
+    //Transactional here, as the call to createPurchase does not pass the proxy: the debit, the purchase and its
+    //outbox event commit together or not at all.
+    @KafkaListener(topics = "purchase-order", errorHandler = "orderErrorHandler", groupId = "listener-group",
+            autoStartup = "#{!${kafka.purchase-order.batch.enabled}}")
     @SendTo
+    @Transactional
     public Object consume(PurchaseOrderDto purchaseOrderDto){
         logger.info("Received order: {}", purchaseOrderDto);
         PurchaseCreateRequestDto purchaseCreateRequest = new PurchaseCreateRequestDto(
-                purchaseOrderDto.getAccountId(),
+                UuidStringJdbcType.normalize(purchaseOrderDto.getAccountId()),
                 purchaseOrderDto.getSubPackageId(),
                 purchaseOrderDto.getPackagePrice()
         );
         return createPurchase(purchaseCreateRequest);
     }
 
+    //Enterprise and campaign orders: all lines of one message go through createPurchases and are answered
+    //with a single reply. Transactional here, as the call to createPurchases does not pass the proxy.
+    @KafkaListener(topics = "purchase-order-batch", errorHandler = "orderErrorHandler", groupId = "listener-group")
+    @SendTo
+    @Transactional
+    public PurchaseOrderBatchReplyDto consumeBatch(PurchaseOrderBatchDto purchaseOrderBatchDto){
+        logger.info("Received batch of {} orders", purchaseOrderBatchDto.getOrders().size());
+        List<Object> results = createPurchases(purchaseOrderBatchDto.getOrders().stream()
+                .map(purchaseOrderDto -> new PurchaseCreateRequestDto(
+                        purchaseOrderDto.getAccountId(),
+                        purchaseOrderDto.getSubPackageId(),
+                        purchaseOrderDto.getPackagePrice()))
+                .toList());
+
+        return new PurchaseOrderBatchReplyDto(results.stream()
+                .map(result -> result instanceof PurchaseDto
+                        ? new PurchaseOrderLineResultDto((PurchaseDto) result, null)
+                        : new PurchaseOrderLineResultDto(null, (ExceptionDto) result))
+                .toList());
+    }
+
+    //A refund is two statements in one transaction, whatever the number of purchases of the account or package.
+    //The delete comes first: of two concurrent refunds of one purchase, only the one that deleted it credits.
+    @Transactional
     @CacheEvict(cacheNames = "purchases")
     public void deletePurchase(String purchaseId) {
-        Purchase purchase = returnPurchaseById(purchaseId);
-        (Objects.requireNonNull(purchase.getAccount())).setAccountBalance(
-                (Objects.requireNonNull(purchase.getAccount().getAccountBalance()))
-                        .add(BigDecimal.valueOf(purchase.getPackagePrice())));
-
-        AccountUpdateRequestDto accountUpdateRequestDto = new AccountUpdateRequestDto(
-                purchase.getAccount().getAccountBalance(),
-                Objects.requireNonNull(purchase.getAccount().getTariffType())
-        );
-        accountService.updateAccount(accountUpdateRequestDto, purchase.getAccount().getId());
-        accountService.syncAccount(purchase);
-        subPackageService.syncPackage(purchase);
-        purchaseRepository.deleteById(purchaseId);
+        PurchaseRepository.Refund refund = purchaseRepository.findRecentRefundById(purchaseId, hotPartitionsStart())
+                .or(() -> purchaseRepository.findRefundById(purchaseId))
+                .orElseThrow(
+                        () -> new EntryNotFoundException("No purchase found with this id: " + purchaseId));
+
+        if (purchaseRepository.deleteInBulkById(purchaseId, refund.getPurchaseDate()) == 0) {
+            throw new EntryNotFoundException("No purchase found with this id: " + purchaseId);
+        }
+        accountService.creditAccount(refund.getAccountId(), BigDecimal.valueOf(refund.getPackagePrice()));
     }
 }
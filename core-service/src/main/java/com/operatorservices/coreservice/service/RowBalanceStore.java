@@ -0,0 +1,63 @@
+package com.operatorservices.coreservice.service;
+
+import com.operatorservices.coreservice.model.Account;
+import com.operatorservices.coreservice.repository.AccountRepository;
+import com.operatorservices.coreservice.repository.BalanceEntryRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+//Default mode: the balance is the Account.accountBalance column, changed in place by guarded updates.
+@Service
+@ConditionalOnProperty(name = "core.balance.mode", havingValue = "row", matchIfMissing = true)
+public class RowBalanceStore implements BalanceStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(RowBalanceStore.class);
+
+    private final AccountRepository accountRepository;
+    private final BalanceEntryRepository balanceEntryRepository;
+
+    public RowBalanceStore(AccountRepository accountRepository, BalanceEntryRepository balanceEntryRepository) {
+        this.accountRepository = accountRepository;
+        this.balanceEntryRepository = balanceEntryRepository;
+    }
+
+    //The ledger and grid modes leave balance entries that are not folded yet; they would be lost to this mode.
+    @PostConstruct
+    public void foldEntries() {
+        int accounts = balanceEntryRepository.compactAll();
+        if (accounts > 0) {
+            logger.info("Folded the balance entries of {} accounts into their snapshots", accounts);
+        }
+    }
+
+    @Override
+    public boolean debit(String accountId, BigDecimal amount) {
+        return accountRepository.debitBalance(accountId, amount) > 0;
+    }
+
+    @Override
+    public void credit(String accountId, BigDecimal amount) {
+        accountRepository.creditBalance(accountId, amount);
+    }
+
+    @Override
+    public Map<String, BigDecimal> currentBalances(Collection<Account> accounts) {
+        return accounts.stream()
+                .collect(Collectors.toMap(Account::getId, account -> Objects.requireNonNull(account.getAccountBalance()),
+                        (first, second) -> first));
+    }
+
+    @Override
+    public void setBalance(Account account, BigDecimal balance) {
+        account.setAccountBalance(balance);
+    }
+}
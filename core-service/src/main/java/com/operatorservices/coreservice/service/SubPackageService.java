@@ -5,24 +5,39 @@ import com.operatorservices.coreservice.dto.PackageRequestDto;
 import com.operatorservices.coreservice.dto.PackageDto;
 import com.operatorservices.coreservice.dto.converter.ModelDtoConverter;
 import com.operatorservices.coreservice.exception.EntryNotFoundException;
-import com.operatorservices.coreservice.model.Purchase;
 import com.operatorservices.coreservice.model.SubPackage;
+import com.operatorservices.coreservice.repository.AccountRepository;
 import com.operatorservices.coreservice.repository.SubPackageRepository;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Objects;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 public class SubPackageService {
 
     private final SubPackageRepository packageRepository;
     private final ModelDtoConverter modelDtoConverter;
+    private final PackageCatalog packageCatalog;
+    private final AccountRepository accountRepository;
 
-    public SubPackageService(SubPackageRepository packageRepository, ModelDtoConverter modelDtoConverter) {
+    static final Set<String> PACKAGE_SORT = Set.of("id", "name", "packageType", "duration");
+
+    public SubPackageService(SubPackageRepository packageRepository,
+                             ModelDtoConverter modelDtoConverter,
+                             PackageCatalog packageCatalog,
+                             AccountRepository accountRepository) {
         this.packageRepository = packageRepository;
         this.modelDtoConverter = modelDtoConverter;
+        this.packageCatalog = packageCatalog;
+        this.accountRepository = accountRepository;
     }
 
     public SubPackage returnSubPackageById(Long subPackageId) {
@@ -31,34 +46,86 @@ public class SubPackageService {
                         () -> new EntryNotFoundException("No package found with this id: " + subPackageId));
     }
 
+    protected PackageDto returnCatalogPackageById(Long subPackageId) {
+        PackageDto subPackage = packageCatalog.get(subPackageId);
+        if (subPackage == null) {
+            throw new EntryNotFoundException("No package found with this id: " + subPackageId);
+        }
+        return subPackage;
+    }
+
+    protected Map<Long, PackageDto> returnCatalogPackagesByIds(Collection<Long> subPackageIds) {
+        Map<Long, PackageDto> subPackages = new HashMap<>();
+        subPackageIds.forEach(subPackageId -> {
+            PackageDto subPackage = packageCatalog.get(subPackageId);
+            if (subPackage != null) {
+                subPackages.put(subPackageId, subPackage);
+            }
+        });
+        return subPackages;
+    }
+
+    //A detached package carrying the catalog values: enough for a new Purchase to reference it without loading it.
+    protected SubPackage returnSubPackageReference(PackageDto subPackage) {
+        return new SubPackage(
+                subPackage.getId(),
+                subPackage.getName(),
+                subPackage.getPackageType(),
+                subPackage.getDuration(),
+                subPackage.getPurchasable(),
+                new HashSet<>());
+    }
+
     public PackageDto getPackageById(Long packageId) {
         return modelDtoConverter.packageToPackageDto(returnSubPackageById(packageId));
     }
 
-    public List<PackageDto> getAllPackages() {
-        return packageRepository.findAll()
-                .stream()
-                .map(modelDtoConverter::packageToPackageDto)
-                .collect(Collectors.toList());
+    public Page<PackageDto> getPackages(Pageable pageable) {
+        return packageRepository.findAll(Paging.sorted(pageable, PACKAGE_SORT))
+                .map(modelDtoConverter::packageToPackageDto);
     }
 
-    public List<GetAccountsByPackageDto> getAccountsByPackage(Long packageId) {
-        return returnSubPackageById(packageId).getPurchases()
-                .stream()
-                .map(Purchase::getAccount).filter(Objects::nonNull)
-                .map(modelDtoConverter::accountToGetAccountsByPackageDto)
-                .collect(Collectors.toList());
+    public Slice<PackageDto> getPackagesAfter(Long afterId, Pageable pageable) {
+        return packageRepository.findByIdGreaterThan(afterId, Paging.keyset(pageable))
+                .map(modelDtoConverter::packageToPackageDto);
     }
 
-    public PackageDto createPackage(PackageRequestDto packageRequestDto) {
+    public Page<GetAccountsByPackageDto> getAccountsByPackage(Long packageId, Pageable pageable) {
+        if (!packageRepository.existsById(packageId)) {
+            throw new EntryNotFoundException("No package found with this id: " + packageId);
+        }
+        return accountRepository.findByPurchasedPackageId(packageId, Paging.sorted(pageable, AccountService.ACCOUNT_SORT))
+                .map(modelDtoConverter::accountToGetAccountsByPackageDto);
+    }
 
-        SubPackage subPackage =new SubPackage(
+    private static SubPackage newSubPackage(PackageRequestDto packageRequestDto) {
+        return new SubPackage(
                 packageRequestDto.getName(),
                 packageRequestDto.getPackageType(),
                 packageRequestDto.getDuration(),
                 packageRequestDto.getPurchasable());
+    }
+
+    public PackageDto createPackage(PackageRequestDto packageRequestDto) {
 
-        return modelDtoConverter.packageToPackageDto(packageRepository.save(subPackage));
+        PackageDto packageDto = modelDtoConverter.packageToPackageDto(
+                packageRepository.save(newSubPackage(packageRequestDto)));
+        packageCatalog.invalidate(packageDto.getId());
+        return packageDto;
+    }
+
+    //One saveAll, so one transaction whose inserts go out in JDBC batches. The catalog is invalidated after
+    //the commit, as in createPackage.
+    public List<PackageDto> createPackages(List<PackageRequestDto> packageRequestDtos) {
+
+        List<SubPackage> subPackages = packageRepository.saveAll(
+                packageRequestDtos.stream().map(SubPackageService::newSubPackage).toList());
+        return subPackages.stream()
+                .map(subPackage -> {
+                    packageCatalog.invalidate(subPackage.getId());
+                    return modelDtoConverter.packageToPackageDto(subPackage);
+                })
+                .toList();
     }
 
     public PackageDto updatePackage(PackageRequestDto packageRequestDto, Long packageId) {
@@ -69,21 +136,15 @@ public class SubPackageService {
                     subPackage.setPackageType(packageRequestDto.getPackageType());
                     subPackage.setDuration(packageRequestDto.getDuration());
                     subPackage.setPurchasable(packageRequestDto.getPurchasable());
-                    return modelDtoConverter.packageToPackageDto(packageRepository.save(subPackage));
+                    PackageDto packageDto = modelDtoConverter.packageToPackageDto(packageRepository.save(subPackage));
+                    packageCatalog.invalidate(packageId);
+                    return packageDto;
                 })
                 .orElseThrow(
                         () -> new EntryNotFoundException("No package found with this id: " + packageId)
                 );
     }
 
-    public void syncPackage(Purchase purchase){
-        packageRepository.findById(Objects.requireNonNull(Objects.requireNonNull(purchase.getSubPackage()).getId()))
-                .map(subPackage -> {
-                    subPackage.getPurchases().remove(purchase);
-                    return packageRepository.save(subPackage);
-                });
-    }
-
     /*
     public void deletePackage(Long packageId) {
         if (packageRepository.existsById(packageId)) {
@@ -0,0 +1,44 @@
+-- The schema of the last release, as its ddl-auto created it. Databases created that way are baselined at
+-- this version (spring.flyway.baseline-on-migrate), so this script only runs on empty ones; everything added
+-- since comes in the migrations after it.
+
+create table customer (
+    id varchar(255) not null,
+    creation_date timestamp(6),
+    email varchar(255),
+    name varchar(255),
+    password varchar(255),
+    surname varchar(255),
+    primary key (id)
+);
+
+create table account (
+    id varchar(255) not null,
+    account_balance numeric(38,2),
+    creation_date timestamp(6),
+    tariff_type smallint,
+    customer_id varchar(255) not null,
+    primary key (id)
+);
+
+create table sub_package (
+    id bigserial not null,
+    duration bigint not null,
+    name varchar(255),
+    package_type smallint,
+    purchasable boolean not null,
+    primary key (id)
+);
+
+create table purchase (
+    id varchar(255) not null,
+    package_price smallint not null,
+    purchase_date timestamp(6),
+    account_id varchar(255) not null,
+    package_id bigint not null,
+    primary key (id)
+);
+
+alter table account add constraint fknnwpo0lfq4xai1rs6887sx02k foreign key (customer_id) references customer;
+alter table purchase add constraint fkj4nqpwiw7s85ps78eghvnlaeh foreign key (account_id) references account;
+alter table purchase add constraint fkoj5g5t291p87ymcuxnv9wol3 foreign key (package_id) references sub_package;
@@ -0,0 +1,11 @@
+-- Events waiting to be relayed to Kafka (OutboxService), stored in the transaction of the change they announce.
+
+create sequence outbox_event_seq start with 1 increment by 50;
+
+create table outbox_event (
+    id bigint not null,
+    created_at timestamp(6),
+    payload text,
+    topic varchar(255),
+    primary key (id)
+);
@@ -0,0 +1,14 @@
+-- Debits and credits of the ledger balance mode, appended per change and folded into account.account_balance by
+-- LedgerBalanceStore. Balances are read as the snapshot plus the entries of the account after it.
+
+create sequence balance_entry_seq start with 1 increment by 1;
+
+create table balance_entry (
+    id bigint not null,
+    account_id varchar(255) not null,
+    amount numeric(38,2) not null,
+    created_at timestamp(6),
+    primary key (id)
+);
+
+create index balance_entry_account_id_idx on balance_entry (account_id, id);
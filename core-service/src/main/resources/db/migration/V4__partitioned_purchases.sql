@@ -0,0 +1,53 @@
+-- Purchases become range partitioned by purchase_date: one partition per month (purchase_pYYYY_MM, kept by
+-- PurchaseArchiver through PurchasePartitions) and purchase_default for anything outside them. The primary
+-- key has to include the partition column, so it becomes (id, purchase_date).
+-- A plain table cannot be partitioned in place: it is renamed, the partitioned one is created under its name
+-- with a partition for every month the existing purchases cover, and the rows are copied over. Purchases
+-- always had a date, so making the column not null fails only on rows written outside the application.
+
+alter table purchase rename to purchase_unpartitioned;
+alter table purchase_unpartitioned drop constraint purchase_pkey;
+
+create table purchase (
+    id varchar(255) not null,
+    account_id varchar(255) not null,
+    package_id bigint not null,
+    package_price smallint not null,
+    purchase_date timestamp(6) not null,
+    primary key (id, purchase_date)
+) partition by range (purchase_date);
+
+create table purchase_default partition of purchase default;
+
+do $$
+declare
+    month timestamp;
+begin
+    for month in select distinct date_trunc('month', purchase_date) from purchase_unpartitioned
+                 where purchase_date is not null loop
+        execute format('create table %I partition of purchase for values from (%L) to (%L)',
+                to_char(month, '"purchase_p"YYYY_MM'), month, month + interval '1 month');
+    end loop;
+end $$;
+
+insert into purchase (id, account_id, package_id, package_price, purchase_date)
+select id, account_id, package_id, package_price, purchase_date from purchase_unpartitioned;
+
+drop table purchase_unpartitioned;
+
+-- The purchase history of an account is read in date order, a page at a time (PurchaseRepository).
+create index purchase_account_id_purchase_date_idx on purchase (account_id, purchase_date, id);
+
+alter table purchase add constraint fkj4nqpwiw7s85ps78eghvnlaeh foreign key (account_id) references account;
+alter table purchase add constraint fkoj5g5t291p87ymcuxnv9wol3 foreign key (package_id) references sub_package;
+
+-- Months older than the retention of PurchaseArchiver, moved out of the live table.
+create table purchase_archive (
+    id varchar(255) not null,
+    account_id varchar(255) not null,
+    package_id bigint not null,
+    package_price smallint not null,
+    purchase_date timestamp(6) not null
+);
+
+create index purchase_archive_account_id_idx on purchase_archive (account_id);
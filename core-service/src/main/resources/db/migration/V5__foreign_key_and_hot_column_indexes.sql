@@ -0,0 +1,11 @@
+-- Postgres does not index referencing columns. Without these, deleting a customer or a package checks
+-- its references with a scan of every account or purchase, and so do the lookups by customer or package.
+-- purchase.account_id needs none: it leads purchase_account_id_purchase_date_idx.
+create index if not exists account_customer_id_idx on account (customer_id);
+create index if not exists purchase_package_id_idx on purchase (package_id);
+
+-- Moving the rows of a month out of purchase_default (PurchasePartitions) selects them by date.
+create index if not exists purchase_purchase_date_idx on purchase (purchase_date);
+
+-- Customer pages may be sorted by email.
+create index if not exists customer_email_idx on customer (email);
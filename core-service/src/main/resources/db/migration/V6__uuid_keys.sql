@@ -0,0 +1,18 @@
+-- Ids become native uuid columns: 16 bytes instead of a 36 character varchar, in the primary keys and in
+-- every index on a reference. Existing ids are UUID strings already. The foreign keys are dropped while
+-- both sides change type and then restored under the same names.
+
+alter table account drop constraint fknnwpo0lfq4xai1rs6887sx02k;
+alter table purchase drop constraint fkj4nqpwiw7s85ps78eghvnlaeh;
+
+alter table customer alter column id type uuid using id::uuid;
+alter table account alter column id type uuid using id::uuid;
+alter table account alter column customer_id type uuid using customer_id::uuid;
+alter table purchase alter column id type uuid using id::uuid;
+alter table purchase alter column account_id type uuid using account_id::uuid;
+alter table purchase_archive alter column id type uuid using id::uuid;
+alter table purchase_archive alter column account_id type uuid using account_id::uuid;
+alter table balance_entry alter column account_id type uuid using account_id::uuid;
+
+alter table account add constraint fknnwpo0lfq4xai1rs6887sx02k foreign key (customer_id) references customer;
+alter table purchase add constraint fkj4nqpwiw7s85ps78eghvnlaeh foreign key (account_id) references account;
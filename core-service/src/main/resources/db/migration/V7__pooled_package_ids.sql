@@ -0,0 +1,3 @@
+-- SubPackage takes its ids from this sequence 50 at a time (pooled-lo), so the sequence has to step by 50.
+-- The column default stays: an id it hands out starts a block that no instance uses.
+alter sequence sub_package_id_seq increment by 50;
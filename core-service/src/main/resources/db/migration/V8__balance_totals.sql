@@ -0,0 +1,15 @@
+-- Running balance of each account in the ledger balance mode, split over a few buckets: a debit lowers one
+-- bucket, so concurrent debits of one account mostly lock different rows, and only a debit that its bucket does
+-- not cover locks all of them. The buckets of an account add up to its snapshot plus its entries. They are
+-- started from those on first use (BalanceEntryRepository.startTotals) and dropped when the ledger mode starts,
+-- as no other mode maintains them. Compaction leaves them alone: it does not change the balance.
+
+create table balance_total (
+    account_id uuid not null,
+    bucket smallint not null,
+    balance numeric(38,2) not null,
+    primary key (account_id, bucket)
+);
+
+-- BalanceEntry takes its ids from this sequence 50 at a time (pooled-lo), so the sequence has to step by 50.
+alter sequence balance_entry_seq increment by 50;
@@ -2,9 +2,16 @@ package com.operatorservices.coreservice;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.operatorservices.coreservice.dto.converter.ModelDtoConverter;
+import com.operatorservices.coreservice.model.Account;
+import com.operatorservices.coreservice.model.Customer;
+import com.operatorservices.coreservice.model.Purchase;
+import com.operatorservices.coreservice.repository.UuidStringJdbcType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.util.Set;
+import java.util.UUID;
+
 public class IntegrationSetup extends TestSupport {
 
     @Autowired
@@ -16,4 +23,30 @@ public class IntegrationSetup extends TestSupport {
     @Autowired
     public  ObjectMapper objectMapper;
 
+    //Saved entities get a generated id, so the names given here only have to be distinct: they are swapped
+    //for random UUIDs, as ids that are not UUIDs don't bind. Real ids (say, of a saved customer) are kept.
+    private static String placeholder(String id) {
+        return UuidStringJdbcType.isUuid(id) ? id : UUID.randomUUID().toString();
+    }
+
+    @Override
+    public Customer newCustomer(String id) {
+        return super.newCustomer(placeholder(id));
+    }
+
+    @Override
+    public Account newAccount(String id, String customerId, Long accountBalance, Set<Purchase> purchases) {
+        return super.newAccount(placeholder(id), customerId, accountBalance, purchases);
+    }
+
+    @Override
+    public Purchase newPurchase(Account account, String purchaseId, Long subPackageId) {
+        return super.newPurchase(account, placeholder(purchaseId), subPackageId);
+    }
+
+    @Override
+    public Purchase newForbiddenPurchase(Account account, String purchaseId, Long subPackageId) {
+        return super.newForbiddenPurchase(account, placeholder(purchaseId), subPackageId);
+    }
+
 }
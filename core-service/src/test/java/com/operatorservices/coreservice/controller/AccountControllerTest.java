@@ -2,6 +2,7 @@ package com.operatorservices.coreservice.controller;
 
 import com.operatorservices.coreservice.IntegrationSetup;
 import com.operatorservices.coreservice.exception.EntryNotFoundException;
+import com.operatorservices.coreservice.exception.InvalidIdException;
 import com.operatorservices.coreservice.model.Account;
 import com.operatorservices.coreservice.model.Customer;
 import com.operatorservices.coreservice.model.TariffType;
@@ -17,11 +18,14 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import com.jayway.jsonpath.JsonPath;
 import org.springframework.hateoas.MediaTypes;
 import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 
 import java.math.BigDecimal;
+import java.net.URI;
 import java.util.*;
 
 import static org.hamcrest.Matchers.*;
@@ -36,6 +40,8 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 @AutoConfigureMockMvc
 class AccountControllerTest extends IntegrationSetup {
 
+    private static final String UNKNOWN_ID = "7c9e6679-7425-40de-944b-e07fc1f90ae7";
+
     @Autowired
     private AccountRepository accountRepository;
 
@@ -83,15 +89,45 @@ class AccountControllerTest extends IntegrationSetup {
     @Test
     void getAccountById_whenIdIsInvalid_thenReturn404andException() throws Exception{
 
-        this.mockMvc.perform(get("/v1/accounts/{accountId}", "404"))
+        this.mockMvc.perform(get("/v1/accounts/{accountId}", UNKNOWN_ID))
                 .andExpect(status().isNotFound())
                 .andExpect(content().contentType(MediaType.valueOf("text/plain;charset=UTF-8")))
                 .andExpect(result -> assertTrue(result.getResolvedException() instanceof EntryNotFoundException))
                 .andExpect(result -> assertEquals(
-                        "No account found with this id: 404",
+                        "No account found with this id: " + UNKNOWN_ID,
                         Objects.requireNonNull(result.getResolvedException()).getMessage()));
     }
 
+    @DisplayName("getAccountById with Malformed Id Test")
+    @Test
+    void getAccountById_whenIdIsMalformed_thenReturn400andException() throws Exception{
+
+        this.mockMvc.perform(get("/v1/accounts/{accountId}", "404"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().contentType(MediaType.valueOf("text/plain;charset=UTF-8")))
+                .andExpect(result -> assertTrue(result.getResolvedException() instanceof InvalidIdException))
+                .andExpect(result -> assertEquals(
+                        "Not a valid id: 404",
+                        Objects.requireNonNull(result.getResolvedException()).getMessage()));
+    }
+
+    @DisplayName("getAccountById with Uppercase Id Test")
+    @Test
+    void getAccountById_whenIdIsUppercase_thenReturnAccount() throws Exception{
+
+        Customer dummyCusto = newCustomer("dummyCusto");
+        CustomerCreateRequestDto customerCreateRequestDto =
+                newCustomerCreateRequestDto(Objects.requireNonNull(dummyCusto));
+
+        String customerId = customerService.createCustomer(customerCreateRequestDto).getId();
+
+        Account account = accountRepository.save(newAccount("dummy", customerId, 100L, Set.of()));
+
+        this.mockMvc.perform(get("/v1/accounts/{accountId}", account.getId().toUpperCase()))
+                .andExpect(status().is2xxSuccessful())
+                .andExpect(jsonPath("$.id", is(account.getId())));
+    }
+
     @DisplayName("getPurchasesByAccountId with Valid Id Test")
     @Test
     void getPurchasesByAccountId_whenIdIsValid_thenReturnListOfPurchases() throws Exception {
@@ -120,16 +156,52 @@ class AccountControllerTest extends IntegrationSetup {
                 .andExpect(jsonPath("$.size()", is(2)));
     }
 
+    @DisplayName("getPurchasesByAccountId with Next Page Test")
+    @Test
+    void getPurchasesByAccountId_whenHistoryIsLongerThanPage_thenReturnNextLinkWithCursor() throws Exception {
+
+        Customer dummyCusto = newCustomer("dummyCusto");
+        CustomerCreateRequestDto customerCreateRequestDto =
+                newCustomerCreateRequestDto(Objects.requireNonNull(dummyCusto));
+
+        String customerId = customerService.createCustomer(customerCreateRequestDto).getId();
+
+        Account account = accountRepository.save(newAccount("dummy", customerId, 100L, Set.of()));
+
+        PackageRequestDto packageRequestDto = newPackageRequestDto(newSubPackage(1L, Set.of()));
+        Long packageId = packageService.createPackage(packageRequestDto).getId();
+
+        account.getPurchases().add(newPurchase(account, "purchase1", packageId));
+        account.getPurchases().add(newPurchase(account, "purchase2", packageId));
+        account.getPurchases().add(newPurchase(account, "purchase3", packageId));
+
+        String accountId = accountRepository.save(account).getId();
+
+        MvcResult firstPage = this.mockMvc.perform(get("/v1/accounts/{accountId}/purchases", accountId)
+                        .param("size", "2"))
+                .andExpect(status().is2xxSuccessful())
+                .andExpect(jsonPath("$._embedded.purchases.length()", is(2)))
+                .andExpect(jsonPath("$._links.next.href", containsString("cursor=")))
+                .andReturn();
+
+        String next = JsonPath.read(firstPage.getResponse().getContentAsString(), "$._links.next.href");
+
+        this.mockMvc.perform(get(URI.create(next)))
+                .andExpect(status().is2xxSuccessful())
+                .andExpect(jsonPath("$._embedded.purchases.length()", is(1)))
+                .andExpect(jsonPath("$._links.next").doesNotExist());
+    }
+
     @DisplayName("getPurchasesByAccountId with Invalid Id Test")
     @Test
     void getPurchasesByAccountId_whenIdIsInvalid_thenReturn404andException() throws Exception {
 
-        this.mockMvc.perform(get("/v1/accounts/{accountId}/purchases", "404"))
+        this.mockMvc.perform(get("/v1/accounts/{accountId}/purchases", UNKNOWN_ID))
                 .andExpect(status().isNotFound())
                 .andExpect(content().contentType(MediaType.valueOf("text/plain;charset=UTF-8")))
                 .andExpect(result -> assertTrue(result.getResolvedException() instanceof EntryNotFoundException))
                 .andExpect(result -> assertEquals(
-                        "No account found with this id: 404",
+                        "No account found with this id: " + UNKNOWN_ID,
                         Objects.requireNonNull(result.getResolvedException()).getMessage()));
     }
 
@@ -146,10 +218,50 @@ class AccountControllerTest extends IntegrationSetup {
         accountRepository.save(newAccount("account1", customerId, 100L, Set.of()));
         accountRepository.save(newAccount("account2", customerId, 100L, Set.of()));
 
-        this.mockMvc.perform(get("/v1/accounts"))
+        this.mockMvc.perform(get("/v1/accounts").param("size", "1").param("sort", "creationDate,desc"))
                 .andExpect(status().is2xxSuccessful())
                 .andExpect(content().contentType(MediaTypes.HAL_JSON))
-                .andExpect(jsonPath("$.size()", is(2)));
+                .andExpect(jsonPath("$._embedded.accounts.length()", is(1)))
+                .andExpect(jsonPath("$._embedded.accounts[0].purchases").doesNotExist())
+                .andExpect(jsonPath("$.page.size", is(1)))
+                .andExpect(jsonPath("$.page.totalElements", greaterThanOrEqualTo(2)))
+                .andExpect(jsonPath("$._links.next.href", containsString("page=1")));
+    }
+
+    @DisplayName("getAllAccounts after an Id Test")
+    @Test
+    void getAllAccounts_whenAfterIsGiven_thenReturnTheAccountsFollowingItWithNextLink() throws Exception {
+
+        Customer dummyCusto = newCustomer("dummyCusto");
+        CustomerCreateRequestDto customerCreateRequestDto =
+                newCustomerCreateRequestDto(Objects.requireNonNull(dummyCusto));
+
+        String customerId = customerService.createCustomer(customerCreateRequestDto).getId();
+
+        accountRepository.save(newAccount("account1", customerId, 100L, Set.of()));
+        accountRepository.save(newAccount("account2", customerId, 100L, Set.of()));
+
+        MvcResult firstPage = this.mockMvc.perform(get("/v1/accounts").param("after", "").param("size", "1"))
+                .andExpect(status().is2xxSuccessful())
+                .andExpect(jsonPath("$._embedded.accounts.length()", is(1)))
+                .andExpect(jsonPath("$.page").doesNotExist())
+                .andReturn();
+
+        String firstId = JsonPath.read(firstPage.getResponse().getContentAsString(), "$._embedded.accounts[0].id");
+        String next = JsonPath.read(firstPage.getResponse().getContentAsString(), "$._links.next.href");
+        assertTrue(next.contains("after=" + firstId));
+
+        this.mockMvc.perform(get(URI.create(next)))
+                .andExpect(status().is2xxSuccessful())
+                .andExpect(jsonPath("$._embedded.accounts[0].id", greaterThan(firstId)));
+    }
+
+    @DisplayName("getAllAccounts with Unsortable Property Test")
+    @Test
+    void getAllAccounts_whenSortPropertyIsNotSortable_thenReturn400() throws Exception {
+
+        this.mockMvc.perform(get("/v1/accounts").param("sort", "purchases"))
+                .andExpect(status().isBadRequest());
     }
 
     @DisplayName("createAccount with Valid Id Test")
@@ -193,7 +305,7 @@ class AccountControllerTest extends IntegrationSetup {
     void createAccount_whenCustomerIdIsInvalid_thenReturn404andException() throws Exception {
 
         AccountCreateRequestDto body = new AccountCreateRequestDto(
-                "InvalidId",
+                UNKNOWN_ID,
                 BigDecimal.valueOf(100L),
                 TariffType.STANDARD
         );
@@ -205,7 +317,7 @@ class AccountControllerTest extends IntegrationSetup {
                 .andExpect(content().contentType(MediaType.valueOf("text/plain;charset=UTF-8")))
                 .andExpect(result -> assertTrue(result.getResolvedException() instanceof EntryNotFoundException))
                 .andExpect(result -> assertEquals(
-                        "No customer found with this id: InvalidId",
+                        "No customer found with this id: " + UNKNOWN_ID,
                         Objects.requireNonNull(result.getResolvedException()).getMessage()));
     }
 
@@ -305,14 +417,14 @@ class AccountControllerTest extends IntegrationSetup {
                 TariffType.ECONOMY
         );
 
-        this.mockMvc.perform(patch("/v1/accounts/{accountId}", "404")
+        this.mockMvc.perform(patch("/v1/accounts/{accountId}", UNKNOWN_ID)
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writer().writeValueAsString(body)))
                 .andExpect(status().isNotFound())
                 .andExpect(content().contentType(MediaType.valueOf("text/plain;charset=UTF-8")))
                 .andExpect(result -> assertTrue(result.getResolvedException() instanceof EntryNotFoundException))
                 .andExpect(result -> assertEquals(
-                        "No account found with this id: 404",
+                        "No account found with this id: " + UNKNOWN_ID,
                         Objects.requireNonNull(result.getResolvedException()).getMessage()));
     }
 
@@ -365,12 +477,12 @@ class AccountControllerTest extends IntegrationSetup {
     @Test
     void deleteAccountById_whenIdIsInvalid_thenDeleteAccount() throws Exception {
 
-        this.mockMvc.perform(delete("/v1/accounts/{accountId}", "404"))
+        this.mockMvc.perform(delete("/v1/accounts/{accountId}", UNKNOWN_ID))
                 .andExpect(status().isNotFound())
                 .andExpect(content().contentType(MediaType.valueOf("text/plain;charset=UTF-8")))
                 .andExpect(result -> assertTrue(result.getResolvedException() instanceof EntryNotFoundException))
                 .andExpect(result -> assertEquals(
-                        "No account found with this id: 404",
+                        "No account found with this id: " + UNKNOWN_ID,
                         Objects.requireNonNull(result.getResolvedException()).getMessage()));
     }
 }
\ No newline at end of file
@@ -30,6 +30,8 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 @AutoConfigureMockMvc
 class CustomerControllerTest extends IntegrationSetup {
 
+    private static final String UNKNOWN_ID = "7c9e6679-7425-40de-944b-e07fc1f90ae7";
+
     @Autowired
     private CustomerRepository customerRepository;
 
@@ -64,12 +66,12 @@ class CustomerControllerTest extends IntegrationSetup {
     @Test
     void getCustomerById_whenIdIsInvalid_thenReturn404AndException() throws Exception {
 
-        this.mockMvc.perform(get("/v1/customers/{customerId}", "404"))
+        this.mockMvc.perform(get("/v1/customers/{customerId}", UNKNOWN_ID))
                 .andExpect(status().isNotFound())
                 .andExpect(content().contentType(MediaType.valueOf("text/plain;charset=UTF-8")))
                 .andExpect(result -> assertTrue(result.getResolvedException() instanceof EntryNotFoundException))
                 .andExpect(result -> assertEquals(
-                                "No customer found with this id: 404",
+                                "No customer found with this id: " + UNKNOWN_ID,
                                 Objects.requireNonNull(result.getResolvedException()).getMessage()));
     }
 
@@ -83,7 +85,9 @@ class CustomerControllerTest extends IntegrationSetup {
         this.mockMvc.perform(get("/v1/customers"))
                 .andExpect(status().is2xxSuccessful())
                 .andExpect(content().contentType(MediaTypes.HAL_JSON))
-                .andExpect(jsonPath("$.size()", is(2)));
+                .andExpect(jsonPath("$._embedded.customers.length()", greaterThanOrEqualTo(2)))
+                .andExpect(jsonPath("$._embedded.customers[0].accounts").doesNotExist())
+                .andExpect(jsonPath("$.page.size", is(20)));
     }
 
     @DisplayName("getAllAccounts when customerId Valid Test")
@@ -101,19 +105,20 @@ class CustomerControllerTest extends IntegrationSetup {
         this.mockMvc.perform(get("/v1/customers/{customerId}/accounts", customer.getId()))
                 .andExpect(status().is2xxSuccessful())
                 .andExpect(content().contentType(MediaTypes.HAL_JSON))
-                .andExpect(jsonPath("$.size()", is(2)));
+                .andExpect(jsonPath("$._embedded.accounts.length()", is(2)))
+                .andExpect(jsonPath("$.page.totalElements", is(2)));
     }
 
     @DisplayName("getAllAccounts when customerId Invalid Test")
     @Test
     void getAllAccounts_whenCustomerIdIsInvalid_thenReturn404andException() throws Exception {
 
-        this.mockMvc.perform(get("/v1/customers/{customerId}/accounts", "404"))
+        this.mockMvc.perform(get("/v1/customers/{customerId}/accounts", UNKNOWN_ID))
                 .andExpect(status().isNotFound())
                 .andExpect(content().contentType(MediaType.valueOf("text/plain;charset=UTF-8")))
                 .andExpect(result -> assertTrue(result.getResolvedException() instanceof EntryNotFoundException))
                 .andExpect(result -> assertEquals(
-                        "No customer found with this id: 404",
+                        "No customer found with this id: " + UNKNOWN_ID,
                         Objects.requireNonNull(result.getResolvedException()).getMessage()));
     }
 
@@ -336,7 +341,7 @@ class CustomerControllerTest extends IntegrationSetup {
 
         CustomerUpdateRequestDto body = newCustomerUpdateRequestDto(newCustomer("dummy"));
 
-        this.mockMvc.perform(patch("/v1/customers/{customerId}", "404")
+        this.mockMvc.perform(patch("/v1/customers/{customerId}", UNKNOWN_ID)
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writer().writeValueAsString(body)))
                 .andExpect(status().isNotFound())
@@ -345,7 +350,7 @@ class CustomerControllerTest extends IntegrationSetup {
                 .andExpect(result -> assertTrue(result.getResolvedException() instanceof EntryNotFoundException))
 
                 .andExpect(result -> assertEquals(
-                        "No customer found with this id: 404",
+                        "No customer found with this id: " + UNKNOWN_ID,
                         Objects.requireNonNull(result.getResolvedException()).getMessage()));
     }
 
@@ -452,12 +457,12 @@ class CustomerControllerTest extends IntegrationSetup {
     @Test
     void deleteCustomerById_whenIdIsInvalid_thenReturn404AndException() throws Exception {
 
-        this.mockMvc.perform(get("/v1/customers/{customerId}", "404"))
+        this.mockMvc.perform(get("/v1/customers/{customerId}", UNKNOWN_ID))
                 .andExpect(status().isNotFound())
                 .andExpect(content().contentType(MediaType.valueOf("text/plain;charset=UTF-8")))
                 .andExpect(result -> assertTrue(result.getResolvedException() instanceof EntryNotFoundException))
                 .andExpect(result -> assertEquals(
-                        "No customer found with this id: 404",
+                        "No customer found with this id: " + UNKNOWN_ID,
                         Objects.requireNonNull(result.getResolvedException()).getMessage()));
     }
 
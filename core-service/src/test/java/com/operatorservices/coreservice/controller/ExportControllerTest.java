@@ -0,0 +1,97 @@
+package com.operatorservices.coreservice.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.operatorservices.coreservice.IntegrationSetup;
+import com.operatorservices.coreservice.dto.*;
+import com.operatorservices.coreservice.model.TariffType;
+import com.operatorservices.coreservice.service.AccountService;
+import com.operatorservices.coreservice.service.CustomerService;
+import com.operatorservices.coreservice.service.PurchaseService;
+import com.operatorservices.coreservice.service.SubPackageService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureMockMvc
+class ExportControllerTest extends IntegrationSetup {
+
+    @Autowired
+    private PurchaseService purchaseService;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private SubPackageService subPackageService;
+
+    private String createAccount(BigDecimal balance) {
+        String customerId = customerService.createCustomer(newCustomerCreateRequestDto(newCustomer("exported")))
+                .getId();
+        return accountService.createAccount(new AccountCreateRequestDto(customerId, balance, TariffType.PREMIUM))
+                .getId();
+    }
+
+    private List<JsonNode> export(String path) throws Exception {
+        String body = this.mockMvc.perform(get(path))
+                .andExpect(status().is2xxSuccessful())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+
+        List<JsonNode> lines = new ArrayList<>();
+        for (String line : body.split("\n")) {
+            lines.add(objectMapper.readTree(line));
+        }
+        return lines;
+    }
+
+    @DisplayName("exportAccounts writes one account per line with its balance Test")
+    @Test
+    void exportAccounts_whenAccountsExist_thenWriteOneLinePerAccount() throws Exception {
+
+        String accountId = createAccount(BigDecimal.valueOf(75));
+
+        JsonNode exported = export("/v1/exports/accounts").stream()
+                .filter(line -> accountId.equals(line.get("id").asText()))
+                .findFirst()
+                .orElseThrow();
+
+        assertEquals(0, BigDecimal.valueOf(75).compareTo(exported.get("accountBalance").decimalValue()));
+        assertEquals("PREMIUM", exported.get("tariffType").asText());
+        assertFalse(exported.has("purchases"));
+    }
+
+    @DisplayName("exportPurchases writes one purchase per line with its account and package Test")
+    @Test
+    void exportPurchases_whenPurchasesExist_thenWriteOneLinePerPurchase() throws Exception {
+
+        String accountId = createAccount(BigDecimal.valueOf(100));
+        Long packageId = subPackageService.createPackage(newPackageRequestDto(newSubPackage(1L))).getId();
+        PurchaseDto purchaseDto = purchaseService.createPurchase(
+                new PurchaseCreateRequestDto(accountId, packageId, (short) 25));
+
+        JsonNode exported = export("/v1/exports/purchases").stream()
+                .filter(line -> purchaseDto.getId().equals(line.get("id").asText()))
+                .findFirst()
+                .orElseThrow();
+
+        assertEquals(accountId, exported.get("accountId").asText());
+        assertEquals(packageId, exported.get("packageId").asLong());
+        assertEquals(25, exported.get("packagePrice").asInt());
+    }
+}
@@ -0,0 +1,139 @@
+package com.operatorservices.coreservice.controller;
+
+import com.operatorservices.coreservice.IntegrationSetup;
+import com.operatorservices.coreservice.dto.*;
+import com.operatorservices.coreservice.model.TariffType;
+import com.operatorservices.coreservice.service.AccountService;
+import com.operatorservices.coreservice.service.CustomerService;
+import com.operatorservices.coreservice.service.PurchaseService;
+import com.operatorservices.coreservice.service.SubPackageService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+//Counts the statements behind the account and customer views with Hibernate statistics. The outbox relay
+//is slowed down so that its polling does not show up in the counts.
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"spring.jpa.properties.hibernate.generate_statistics = true",
+                "outbox.relay.interval-ms = 3600000"})
+@AutoConfigureMockMvc
+class FetchPlanTest extends IntegrationSetup {
+
+    @Autowired
+    private PurchaseService purchaseService;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private SubPackageService subPackageService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @AfterEach
+    void tearDown() {
+        statistics.clear();
+    }
+
+    private String createCustomer() {
+        return customerService.createCustomer(newCustomerCreateRequestDto(newCustomer("fetched"))).getId();
+    }
+
+    private String createAccount(String customerId) {
+        return accountService.createAccount(
+                new AccountCreateRequestDto(customerId, BigDecimal.valueOf(1000), TariffType.PREMIUM)).getId();
+    }
+
+    private void createPurchases(String accountId, int count) {
+        for (int i = 0; i < count; i++) {
+            Long packageId = subPackageService.createPackage(newPackageRequestDto(newSubPackage(1L))).getId();
+            purchaseService.createPurchase(new PurchaseCreateRequestDto(accountId, packageId, (short) 1));
+        }
+    }
+
+    private long statementsOf(String path, Object... uriVariables) throws Exception {
+        statistics.clear();
+        this.mockMvc.perform(get(path, uriVariables)).andExpect(status().is2xxSuccessful());
+        return statistics.getPrepareStatementCount();
+    }
+
+    @DisplayName("getAccountById issues the same statements whatever the number of purchases Test")
+    @Test
+    void getAccountById_whenPurchasesGrow_thenStatementCountStaysTheSame() throws Exception {
+
+        String accountId = createAccount(createCustomer());
+        createPurchases(accountId, 1);
+        long withOnePurchase = statementsOf("/v1/accounts/{accountId}", accountId);
+
+        createPurchases(accountId, 5);
+        long withSixPurchases = statementsOf("/v1/accounts/{accountId}", accountId);
+
+        assertEquals(1, withOnePurchase);
+        assertEquals(withOnePurchase, withSixPurchases);
+    }
+
+    @DisplayName("getCustomerById issues the same statements whatever the number of accounts and purchases Test")
+    @Test
+    void getCustomerById_whenAccountsGrow_thenStatementCountStaysTheSame() throws Exception {
+
+        String customerId = createCustomer();
+        createPurchases(createAccount(customerId), 1);
+        long withOneAccount = statementsOf("/v1/customers/{customerId}", customerId);
+
+        for (int i = 0; i < 3; i++) {
+            createPurchases(createAccount(customerId), 2);
+        }
+        long withFourAccounts = statementsOf("/v1/customers/{customerId}", customerId);
+
+        assertEquals(1, withOneAccount);
+        assertEquals(withOneAccount, withFourAccounts);
+    }
+
+    @DisplayName("getAllAccounts issues a page and a count statement whatever the number of customers Test")
+    @Test
+    void getAllAccounts_whenAccountsOfManyCustomers_thenPageAndCountStatementsOnly() throws Exception {
+
+        for (int i = 0; i < 25; i++) {
+            createAccount(createCustomer());
+        }
+
+        assertTrue(statementsOf("/v1/accounts?size=20") <= 2);
+        assertTrue(statementsOf("/v1/customers/{customerId}/accounts", createCustomer()) <= 3);
+    }
+
+    @DisplayName("getPurchaseById loads the purchase and its package in one statement Test")
+    @Test
+    void getPurchaseById_whenNotCached_thenOneStatement() throws Exception {
+
+        String accountId = createAccount(createCustomer());
+        Long packageId = subPackageService.createPackage(newPackageRequestDto(newSubPackage(1L))).getId();
+        String purchaseId = purchaseService.createPurchase(
+                new PurchaseCreateRequestDto(accountId, packageId, (short) 1)).getId();
+
+        assertEquals(1, statementsOf("/v1/purchases/{purchaseId}", purchaseId));
+    }
+}
@@ -3,6 +3,7 @@ package com.operatorservices.coreservice.controller;
 import com.operatorservices.coreservice.IntegrationSetup;
 import com.operatorservices.coreservice.dto.AccountCreateRequestDto;
 import com.operatorservices.coreservice.dto.CustomerCreateRequestDto;
+import com.operatorservices.coreservice.dto.PackageBatchRequestDto;
 import com.operatorservices.coreservice.dto.PackageRequestDto;
 import com.operatorservices.coreservice.dto.PurchaseCreateRequestDto;
 import com.operatorservices.coreservice.exception.EntryNotFoundException;
@@ -25,6 +26,7 @@ import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 
 import java.math.BigDecimal;
+import java.util.List;
 import java.util.Objects;
 
 import static org.hamcrest.Matchers.*;
@@ -134,7 +136,8 @@ class PackageControllerTest extends IntegrationSetup {
         this.mockMvc.perform(get("/v1/packages/{packageId}/accounts", packageId))
                 .andExpect(status().is2xxSuccessful())
                 .andExpect(content().contentType(MediaTypes.HAL_JSON))
-                .andExpect(jsonPath("$.size()", is(2)));
+                .andExpect(jsonPath("$._embedded.accounts.length()", is(2)))
+                .andExpect(jsonPath("$.page.totalElements", is(2)));
     }
 
     @DisplayName("getAccountsByPackage with Invalid Id Test")
@@ -162,7 +165,8 @@ class PackageControllerTest extends IntegrationSetup {
         this.mockMvc.perform(get("/v1/packages"))
                 .andExpect(status().is2xxSuccessful())
                 .andExpect(content().contentType(MediaTypes.HAL_JSON))
-                .andExpect(jsonPath("$.size()", is(2)));
+                .andExpect(jsonPath("$._embedded.packages.length()", greaterThanOrEqualTo(2)))
+                .andExpect(jsonPath("$.page.size", is(20)));
     }
 
     @DisplayName("createPackage with valid Request Test")
@@ -229,6 +233,43 @@ class PackageControllerTest extends IntegrationSetup {
                         instanceof MethodArgumentNotValidException));
     }
 
+    @DisplayName("createPackages with Valid Request Test")
+    @Test
+    void createPackages_whenRequestIsValid_thenReturnPackagesInRequestOrder() throws Exception {
+
+        PackageBatchRequestDto packageBatchRequestDto = new PackageBatchRequestDto(List.of(
+                new PackageRequestDto("First", PackageType.COMBO, true, 6),
+                new PackageRequestDto("Second", PackageType.COMBO, false, 12)));
+
+        this.mockMvc.perform(post("/v1/packages/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writer().writeValueAsString(packageBatchRequestDto)))
+                .andExpect(status().isCreated())
+                .andExpect(content().contentType(MediaTypes.HAL_JSON))
+                .andExpect(jsonPath("$._embedded.packages.length()", is(2)))
+                .andExpect(jsonPath("$._embedded.packages[0].id", is(notNullValue())))
+                .andExpect(jsonPath("$._embedded.packages[0].name", is("First")))
+                .andExpect(jsonPath("$._embedded.packages[1].name", is("Second")))
+                .andExpect(jsonPath("$._embedded.packages[1].purchasable", is(false)))
+                .andExpect(jsonPath("$._embedded.packages[1]._links.self.href", notNullValue()));
+    }
+
+    @DisplayName("createPackages with an Invalid Package Test")
+    @Test
+    void createPackages_whenAPackageIsInvalid_thenReturn400andException() throws Exception {
+
+        PackageBatchRequestDto packageBatchRequestDto = new PackageBatchRequestDto(List.of(
+                new PackageRequestDto("Name", PackageType.COMBO, true, 6),
+                new PackageRequestDto("", PackageType.COMBO, true, 6)));
+
+        this.mockMvc.perform(post("/v1/packages/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writer().writeValueAsString(packageBatchRequestDto)))
+                .andExpect(status().isBadRequest())
+                .andExpect(result -> assertTrue(result.getResolvedException()
+                        instanceof MethodArgumentNotValidException));
+    }
+
     @DisplayName("updatePackage with Valid Request Test")
     @Test
     void updatePackage_whenRequestIsValid_thenUpdatePackage() throws Exception {
@@ -33,6 +33,8 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 @AutoConfigureMockMvc
 class PurchaseControllerTest extends IntegrationSetup {
 
+    private static final String UNKNOWN_ID = "7c9e6679-7425-40de-944b-e07fc1f90ae7";
+
     @Autowired
     private PurchaseService purchaseService;
 
@@ -89,12 +91,12 @@ class PurchaseControllerTest extends IntegrationSetup {
     @Test
     void getPurchaseById_whenIdIsInvalid_thenReturn404andException() throws Exception {
 
-        this.mockMvc.perform(get("/v1/purchases/{purchaseId}", "404"))
+        this.mockMvc.perform(get("/v1/purchases/{purchaseId}", UNKNOWN_ID))
                 .andExpect(status().isNotFound())
                 .andExpect(content().contentType(MediaType.valueOf("text/plain;charset=UTF-8")))
                 .andExpect(result -> assertTrue(result.getResolvedException() instanceof EntryNotFoundException))
                 .andExpect(result -> assertEquals(
-                        "No purchase found with this id: 404",
+                        "No purchase found with this id: " + UNKNOWN_ID,
                         Objects.requireNonNull(result.getResolvedException()).getMessage()));
     }
 
@@ -302,12 +304,12 @@ class PurchaseControllerTest extends IntegrationSetup {
     @Test
     void deletePurchaseById_whenIdIsInValid_thenReturn404andException() throws Exception {
 
-        this.mockMvc.perform(delete("/v1/purchases/{purchaseId}", "404"))
+        this.mockMvc.perform(delete("/v1/purchases/{purchaseId}", UNKNOWN_ID))
                 .andExpect(status().isNotFound())
                 .andExpect(content().contentType(MediaType.valueOf("text/plain;charset=UTF-8")))
                 .andExpect(result -> assertTrue(result.getResolvedException() instanceof EntryNotFoundException))
                 .andExpect(result -> assertEquals(
-                        "No purchase found with this id: 404",
+                        "No purchase found with this id: " + UNKNOWN_ID,
                         Objects.requireNonNull(result.getResolvedException()).getMessage()));
     }
 }
\ No newline at end of file
@@ -0,0 +1,69 @@
+package com.operatorservices.coreservice.repository;
+
+import com.operatorservices.coreservice.TestSupport;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+//Plans of the lookups the migrations index for, on the migrated test database. The test tables are small
+//enough for Postgres to prefer a sequential scan anyway, so sequential scans are disabled: the planner then
+//only falls back to one when no index can serve the query.
+@SpringBootTest
+@Transactional
+class IndexUsageTest extends TestSupport {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private void assertServedByIndex(String query) {
+        jdbcTemplate.execute("set local enable_seqscan = off");
+        String plan = String.join("\n", jdbcTemplate.queryForList("explain " + query, String.class));
+
+        assertFalse(plan.contains("Seq Scan"), plan);
+        assertTrue(plan.contains("Index"), plan);
+    }
+
+    @DisplayName("Accounts of a Customer Use an Index Test")
+    @Test
+    void whenAccountsAreSelectedByCustomer_thePlanShouldUseAnIndex() {
+        assertServedByIndex("select * from account where customer_id = '0188e1c2-5a3b-7c4d-8e5f-6a7b8c9d0e1f'");
+    }
+
+    @DisplayName("Purchases of an Account Use an Index Test")
+    @Test
+    void whenPurchasesAreSelectedByAccount_thePlanShouldUseAnIndex() {
+        assertServedByIndex("select * from purchase where account_id = '0188e1c2-5a3b-7c4d-8e5f-6a7b8c9d0e1f'");
+    }
+
+    @DisplayName("Purchases of a Package Use an Index Test")
+    @Test
+    void whenPurchasesAreSelectedByPackage_thePlanShouldUseAnIndex() {
+        assertServedByIndex("select * from purchase where package_id = 1");
+    }
+
+    @DisplayName("Purchases of a Date Range Use an Index Test")
+    @Test
+    void whenPurchasesAreSelectedByDate_thePlanShouldUseAnIndex() {
+        assertServedByIndex("select * from purchase_default"
+                + " where purchase_date >= '2020-01-01' and purchase_date < '2020-02-01'");
+    }
+
+    @DisplayName("Customer by Email Uses an Index Test")
+    @Test
+    void whenACustomerIsSelectedByEmail_thePlanShouldUseAnIndex() {
+        assertServedByIndex("select * from customer where email = 'customer@mail.com'");
+    }
+
+    //The reference checks behind these deletes run the lookups above, which explain does not show.
+    @DisplayName("Deleting a Customer or a Package Uses Indexes Test")
+    @Test
+    void whenACustomerOrAPackageIsDeleted_theReferenceChecksShouldUseAnIndex() {
+        assertServedByIndex("select 1 from only account where customer_id = '0188e1c2-5a3b-7c4d-8e5f-6a7b8c9d0e1f' for key share");
+        assertServedByIndex("select 1 from purchase where package_id = 1 for key share");
+    }
+}
@@ -0,0 +1,48 @@
+package com.operatorservices.coreservice.repository;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimeOrderedUuidGeneratorTest {
+
+    @DisplayName("Generated Id Is a Version 7 UUID Test")
+    @Test
+    void whenAnIdIsGenerated_itShouldBeAVersion7UuidOfTheCurrentTime() {
+        long before = System.currentTimeMillis();
+        UUID id = TimeOrderedUuidGenerator.generate();
+        long after = System.currentTimeMillis();
+
+        assertEquals(7, id.version());
+        assertEquals(2, id.variant());
+        long millis = id.getMostSignificantBits() >>> 16;
+        assertTrue(millis >= before && millis <= after);
+        assertTrue(UuidStringJdbcType.isUuid(id.toString()));
+    }
+
+    @DisplayName("Ids Sort in Creation Order Test")
+    @Test
+    void whenManyIdsAreGeneratedInARow_theirTextShouldSortInCreationOrder() {
+        String previous = TimeOrderedUuidGenerator.generate().toString();
+        for (int i = 0; i < 1_000; i++) {
+            UUID id = TimeOrderedUuidGenerator.generate();
+            assertEquals(7, id.version());
+            assertTrue(previous.compareTo(id.toString()) < 0);
+            previous = id.toString();
+        }
+    }
+
+    @DisplayName("isUuid Test")
+    @Test
+    void whenIsUuidCalled_itShouldOnlyAcceptTheTextFormOfAUuid() {
+        assertTrue(UuidStringJdbcType.isUuid("0188E1C2-5a3b-7c4d-8e5f-6a7b8c9d0e1f"));
+        assertFalse(UuidStringJdbcType.isUuid(null));
+        assertFalse(UuidStringJdbcType.isUuid("accountId"));
+        assertFalse(UuidStringJdbcType.isUuid("0188e1c2-5a3b-7c4d-8e5f-6a7b8c9d0e1"));
+        assertFalse(UuidStringJdbcType.isUuid("0188e1c2-5a3b-7c4d-8e5f-6a7b8c9d0e1g"));
+        assertFalse(UuidStringJdbcType.isUuid("0188e1c2x5a3b-7c4d-8e5f-6a7b8c9d0e1f"));
+    }
+}
@@ -3,19 +3,31 @@ package com.operatorservices.coreservice.service;
 import com.operatorservices.coreservice.TestSupport;
 import com.operatorservices.coreservice.dto.converter.ModelDtoConverter;
 import com.operatorservices.coreservice.exception.EntryNotFoundException;
+import com.operatorservices.coreservice.exception.InvalidCursorException;
+import com.operatorservices.coreservice.exception.InvalidPageRequestException;
 import com.operatorservices.coreservice.repository.AccountRepository;
+import com.operatorservices.coreservice.repository.BalanceEntryRepository;
+import com.operatorservices.coreservice.repository.PurchaseRepository;
 import com.operatorservices.coreservice.dto.AccountCreateRequestDto;
 import com.operatorservices.coreservice.dto.AccountDto;
 import com.operatorservices.coreservice.dto.AccountUpdateRequestDto;
-import com.operatorservices.coreservice.dto.PurchaseDto;
+import com.operatorservices.coreservice.dto.PurchaseHistoryPageDto;
 import com.operatorservices.coreservice.model.Account;
 import com.operatorservices.coreservice.model.Purchase;
 import com.operatorservices.coreservice.model.TariffType;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -27,13 +39,17 @@ class AccountServiceTest extends TestSupport {
     private AccountRepository accountRepository;
     private ModelDtoConverter modelDtoConverter;
     private CustomerService customerService;
+    private PurchaseRepository purchaseRepository;
 
     @BeforeEach
     void setUp() {
         accountRepository = mock(AccountRepository.class);
         modelDtoConverter = mock(ModelDtoConverter.class);
         customerService = mock(CustomerService.class);
-        accountService = new AccountService(accountRepository, modelDtoConverter, customerService);
+        purchaseRepository = mock(PurchaseRepository.class);
+        accountService = new AccountService(
+                accountRepository, modelDtoConverter, customerService, new RowBalanceStore(accountRepository, mock(BalanceEntryRepository.class)),
+                purchaseRepository);
     }
 
     @DisplayName("getAccountById with Valid Id Test")
@@ -43,14 +59,14 @@ class AccountServiceTest extends TestSupport {
         Account account = newAccount("accountId", "customerId", 100L, Set.of());
         AccountDto accountDto = newAccountDto(account);
 
-        when(accountRepository.findById("accountId")).thenReturn(Optional.of(account));
+        when(accountRepository.findDetailById("accountId")).thenReturn(Optional.of(account));
         when(modelDtoConverter.accountToAccountDto(account)).thenReturn(accountDto);
 
         AccountDto test = accountService.getAccountById("accountId");
 
         assertEquals(test, accountDto);
 
-        verify(accountRepository).findById("accountId");
+        verify(accountRepository).findDetailById("accountId");
         verify(modelDtoConverter).accountToAccountDto(account);
     }
 
@@ -58,63 +74,125 @@ class AccountServiceTest extends TestSupport {
     @Test
     void whenGetAccountByIdCalled_withAnInValidId_itShouldThrowEntryNotFoundException() {
 
-        when(accountRepository.findById("invalidId")).thenReturn(Optional.empty());
+        when(accountRepository.findDetailById("invalidId")).thenReturn(Optional.empty());
 
         assertThrows(EntryNotFoundException.class,
                 () -> accountService.getAccountById("invalidId"));
 
-        verify(accountRepository).findById("invalidId");
+        verify(accountRepository).findDetailById("invalidId");
         verifyNoInteractions(modelDtoConverter);
     }
 
-    @DisplayName("getAllAccounts test")
+    @DisplayName("getAccounts test")
     @Test
-    void whenGetAllAccountsCalled_itShouldReturnAListOfAccountDto() {
+    void whenGetAccountsCalled_itShouldReturnAPageOfAccountDtoSortedWithIdLast() {
 
         Account account1 = newAccount("account-1","customer-1", 100L, Set.of());
-        Account account2 = newAccount("account-1","customer-2", 100L, Set.of());
+        Account account2 = newAccount("account-2","customer-2", 100L, Set.of());
+        PageRequest expected = PageRequest.of(1, 2, Sort.by("creationDate").and(Sort.by("id")));
 
-        when(accountRepository.findAll()).thenReturn(List.of(account1, account2));
-        when(modelDtoConverter.accountToAccountDto(account1)).thenReturn(newAccountDto(account1));
-        when(modelDtoConverter.accountToAccountDto(account2)).thenReturn(newAccountDto(account2));
+        when(accountRepository.findAll(expected)).thenReturn(new PageImpl<>(List.of(account1, account2), expected, 5));
+        when(modelDtoConverter.accountToAccountSummaryDto(account1)).thenReturn(newAccountDto(account1));
+        when(modelDtoConverter.accountToAccountSummaryDto(account2)).thenReturn(newAccountDto(account2));
 
-        List<AccountDto> test = accountService.getAllAccounts();
+        Page<AccountDto> test = accountService.getAccounts(PageRequest.of(1, 2, Sort.by("creationDate")));
 
-        assertEquals(test, List.of(newAccountDto(account1),newAccountDto(account2)));
+        assertEquals(test.getContent(), List.of(newAccountDto(account1),newAccountDto(account2)));
+        assertEquals(5, test.getTotalElements());
 
-        verify(accountRepository).findAll();
-        verify(modelDtoConverter).accountToAccountDto(account1);
-        verify(modelDtoConverter).accountToAccountDto(account1);
+        verify(accountRepository).findAll(expected);
+        verify(modelDtoConverter, never()).accountToAccountDto(any());
     }
 
-    @DisplayName("getAllPurchases with Valid Id Test")
+    @DisplayName("getAccounts with Unsortable Property test")
     @Test
-    void whenGetAllPurchasesCalled_withAValidId_itShouldReturnAListOfPurchaseDto() {
+    void whenGetAccountsCalled_withAnUnsortableProperty_itShouldThrowInvalidPageRequestException() {
 
-        Account dummy = newAccount("accountId", "customerId", 100L, Set.of());
-        Purchase purchase1 = newPurchase(dummy, "purchase1-Id", 1L);
-        Purchase purchase2 = newPurchase(dummy, "purchase2-Id", 2L);
-        Set<Purchase> purchases = Set.of(purchase1, purchase2);
-        Account account = newAccount("accountId", "customerId", 100L, purchases);
+        assertThrows(InvalidPageRequestException.class,
+                () -> accountService.getAccounts(PageRequest.of(0, 20, Sort.by("purchases"))));
 
-        when(accountRepository.findById("accountId")).thenReturn(Optional.of(account));
+        verifyNoInteractions(accountRepository);
+    }
+
+    @DisplayName("getAccountsAfter test")
+    @Test
+    void whenGetAccountsAfterCalled_itShouldReadTheSliceAfterTheIdInIdOrder() {
+
+        Account account = newAccount("account-2","customer-1", 100L, Set.of());
+        PageRequest expected = PageRequest.of(0, 1, Sort.by("id"));
+
+        when(accountRepository.findByIdGreaterThan("account-1", expected))
+                .thenReturn(new SliceImpl<>(List.of(account), expected, true));
+        when(modelDtoConverter.accountToAccountSummaryDto(account)).thenReturn(newAccountDto(account));
+
+        Slice<AccountDto> test = accountService.getAccountsAfter("account-1", PageRequest.of(3, 1));
 
+        assertEquals(test.getContent(), List.of(newAccountDto(account)));
+        assertTrue(test.hasNext());
+        assertThrows(InvalidPageRequestException.class,
+                () -> accountService.getAccountsAfter("account-1", PageRequest.of(0, 1, Sort.by("creationDate"))));
+    }
+
+    @DisplayName("getPurchases with Valid Id Test")
+    @Test
+    void whenGetPurchasesCalled_withAValidId_itShouldReturnThePageAndTheCursorOfTheNextOne() {
+
+        Account account = newAccount("accountId", "customerId", 100L, Set.of());
+        Purchase purchase1 = newPurchase(account, "0188e1c2-5a3b-7c4d-8e5f-000000000001", 1L);
+        Purchase purchase2 = newPurchase(account, "0188e1c2-5a3b-7c4d-8e5f-000000000002", 2L);
+        Purchase purchase3 = newPurchase(account, "0188e1c2-5a3b-7c4d-8e5f-000000000003", 3L);
+        LocalDateTime from = LocalDateTime.of(2023, 1, 1, 0, 0);
+
+        when(accountRepository.existsById("accountId")).thenReturn(true);
+        when(purchaseRepository.findPageByAccountId(
+                eq("accountId"), eq(from), eq("00000000-0000-0000-0000-000000000000"), any(LocalDateTime.class), eq(PageRequest.of(0, 3))))
+                .thenReturn(List.of(purchase1, purchase2, purchase3));
         when(modelDtoConverter.purchaseToPurchaseDto(purchase1))
                 .thenReturn(newPurchaseDto(purchase1, newPackageDto(newSubPackage(1L))));
-
         when(modelDtoConverter.purchaseToPurchaseDto(purchase2))
                 .thenReturn(newPurchaseDto(purchase2, newPackageDto(newSubPackage(2L))));
 
-        List<PurchaseDto> test = accountService.getAllPurchases("accountId");
-        test.sort(Comparator.comparing(PurchaseDto::getId));
+        PurchaseHistoryPageDto test = accountService.getPurchases("accountId", null, from, null, 2);
 
-        assertEquals(test, List.of(
+        assertEquals(test.getPurchases(), List.of(
                 newPurchaseDto(purchase1, newPackageDto(newSubPackage(1L))),
                 newPurchaseDto(purchase2, newPackageDto(newSubPackage(2L)))));
+        assertNotNull(test.getNextCursor());
+
+        accountService.getPurchases("accountId", test.getNextCursor(), from, null, 2);
+
+        verify(purchaseRepository).findPageByAccountId(
+                eq("accountId"), eq(purchase2.getPurchaseDate()), eq("0188e1c2-5a3b-7c4d-8e5f-000000000002"),
+                any(LocalDateTime.class), eq(PageRequest.of(0, 3)));
+        verify(modelDtoConverter, never()).purchaseToPurchaseDto(purchase3);
+    }
+
+    @DisplayName("getPurchases with Invalid Id Test")
+    @Test
+    void whenGetPurchasesCalled_withAnInvalidId_itShouldThrowEntryNotFoundException() {
+
+        when(accountRepository.existsById("accountId")).thenReturn(false);
+
+        assertThrows(EntryNotFoundException.class,
+                () -> accountService.getPurchases("accountId", null, null, null, 50));
+
+        verifyNoInteractions(purchaseRepository);
+    }
+
+    @DisplayName("getPurchases with Invalid Cursor Test")
+    @Test
+    void whenGetPurchasesCalled_withAnInvalidCursor_itShouldThrowInvalidCursorException() {
 
-        verify(accountRepository).findById("accountId");
-        verify(modelDtoConverter).purchaseToPurchaseDto(purchase1);
-        verify(modelDtoConverter).purchaseToPurchaseDto(purchase2);
+        when(accountRepository.existsById("accountId")).thenReturn(true);
+
+        assertThrows(InvalidCursorException.class,
+                () -> accountService.getPurchases("accountId", "not-a-cursor", null, null, 50));
+        String cursorWithoutUuid = Base64.getUrlEncoder().encodeToString(
+                "2023-01-01T00:00,purchase-Id".getBytes(StandardCharsets.UTF_8));
+        assertThrows(InvalidCursorException.class,
+                () -> accountService.getPurchases("accountId", cursorWithoutUuid, null, null, 50));
+
+        verifyNoInteractions(purchaseRepository);
     }
 
     @DisplayName("crateAccount with Valid Request Test")
@@ -155,7 +233,7 @@ class AccountServiceTest extends TestSupport {
           BigDecimal.valueOf(100L),
           TariffType.STANDARD);
 
-        when(accountRepository.findById("accountId")).thenReturn(Optional.of(account));
+        when(accountRepository.findDetailById("accountId")).thenReturn(Optional.of(account));
         when(accountRepository.save(account)).thenReturn(account);
         when(modelDtoConverter.accountToAccountDto(account)).thenReturn(accountDto);
 
@@ -163,29 +241,51 @@ class AccountServiceTest extends TestSupport {
 
         assertEquals(test, accountDto);
 
-        verify(accountRepository).findById("accountId");
+        verify(accountRepository).findDetailById("accountId");
         verify(accountRepository).save(account);
         verify(modelDtoConverter).accountToAccountDto(account);
     }
 
-    @DisplayName("syncAccount Test")
+    @DisplayName("debitAccount when Balance Is Sufficient Test")
     @Test
-    void whenSyncAccountCalled_itShouldUpdateAccount() {
-        Account dummy = newAccount("accountId", "customerId",100L, new HashSet<>());
-        Purchase purchase = newPurchase(dummy, "purchaseId", 1L);
-        Account account = newAccount(
-                "accountId",
-                "customerId",
-                100L,
-                new HashSet<>(Collections.singleton(purchase)));
+    void whenDebitAccountCalled_withSufficientBalance_itShouldReturnTrue() {
+        when(accountRepository.debitBalance("accountId", BigDecimal.TEN)).thenReturn(1);
 
-        when(accountRepository.findById(account.getId())).thenReturn(Optional.of(account));
-        when(accountRepository.save(any(Account.class))).thenReturn(account);
+        assertTrue(accountService.debitAccount("accountId", BigDecimal.TEN));
 
-        accountService.syncAccount(purchase);
+        verify(accountRepository).debitBalance("accountId", BigDecimal.TEN);
+        verify(accountRepository, never()).existsById(anyString());
+    }
 
-        verify(accountRepository).findById(account.getId());
-        verify(accountRepository).save(any(Account.class));
+    @DisplayName("debitAccount when Balance Is Insufficient Test")
+    @Test
+    void whenDebitAccountCalled_withInsufficientBalance_itShouldReturnFalse() {
+        when(accountRepository.debitBalance("accountId", BigDecimal.TEN)).thenReturn(0);
+        when(accountRepository.existsById("accountId")).thenReturn(true);
+
+        assertFalse(accountService.debitAccount("accountId", BigDecimal.TEN));
+
+        verify(accountRepository).debitBalance("accountId", BigDecimal.TEN);
+        verify(accountRepository).existsById("accountId");
+    }
+
+    @DisplayName("debitAccount with Invalid Id Test")
+    @Test
+    void whenDebitAccountCalled_withAnInvalidId_itShouldThrowEntryNotFoundException() {
+        when(accountRepository.debitBalance("invalidId", BigDecimal.TEN)).thenReturn(0);
+        when(accountRepository.existsById("invalidId")).thenReturn(false);
+
+        assertThrows(EntryNotFoundException.class,
+                () -> accountService.debitAccount("invalidId", BigDecimal.TEN));
+    }
+
+    @DisplayName("creditAccount Test")
+    @Test
+    void whenCreditAccountCalled_itShouldIncrementTheBalanceInPlace() {
+        accountService.creditAccount("accountId", BigDecimal.TEN);
+
+        verify(accountRepository).creditBalance("accountId", BigDecimal.TEN);
+        verify(accountRepository, never()).save(any());
     }
 
     @DisplayName("deleteAccount with Invalid Id Test")
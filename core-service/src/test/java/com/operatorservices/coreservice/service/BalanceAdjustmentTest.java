@@ -0,0 +1,60 @@
+package com.operatorservices.coreservice.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.AbstractMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BalanceAdjustmentTest {
+
+    @DisplayName("Debit when Balance Is Sufficient Test")
+    @Test
+    void whenDebit_withSufficientBalance_itShouldDecrementTheBalance() {
+        Map.Entry<String, BigDecimal> entry = new AbstractMap.SimpleEntry<>("accountId", BigDecimal.TEN);
+
+        assertTrue(new BalanceAdjustment(BigDecimal.TEN.negate()).process(entry));
+        assertEquals(0, entry.getValue().compareTo(BigDecimal.ZERO));
+    }
+
+    @DisplayName("Debit when Balance Is Insufficient Test")
+    @Test
+    void whenDebit_withInsufficientBalance_itShouldLeaveTheBalance() {
+        Map.Entry<String, BigDecimal> entry = new AbstractMap.SimpleEntry<>("accountId", BigDecimal.ONE);
+
+        assertFalse(new BalanceAdjustment(BigDecimal.TEN.negate()).process(entry));
+        assertEquals(BigDecimal.ONE, entry.getValue());
+    }
+
+    @DisplayName("Adjustment of a Missing Account Test")
+    @Test
+    void whenAdjusted_withoutBalance_itShouldReturnFalse() {
+        Map.Entry<String, BigDecimal> entry = new AbstractMap.SimpleEntry<>("missingId", null);
+
+        assertFalse(new BalanceAdjustment(BigDecimal.TEN).process(entry));
+        assertNull(entry.getValue());
+    }
+
+    @DisplayName("Backup of an Adjustment Test")
+    @Test
+    void whenBackedUp_itShouldSetTheAdjustedBalanceWhateverTheBackupHeld() {
+        BalanceAdjustment adjustment = new BalanceAdjustment(BigDecimal.ONE.negate());
+        adjustment.process(new AbstractMap.SimpleEntry<>("accountId", BigDecimal.TEN));
+        Map.Entry<String, BigDecimal> backup = new AbstractMap.SimpleEntry<>("accountId", BigDecimal.valueOf(9));
+
+        assertTrue(adjustment.getBackupProcessor().process(backup));
+        assertEquals(0, backup.getValue().compareTo(BigDecimal.valueOf(9)));
+    }
+
+    @DisplayName("Backup of a Rejected Adjustment Test")
+    @Test
+    void whenRejected_itShouldHaveNothingToBackUp() {
+        BalanceAdjustment adjustment = new BalanceAdjustment(BigDecimal.TEN.negate());
+        adjustment.process(new AbstractMap.SimpleEntry<>("accountId", BigDecimal.ONE));
+
+        assertNull(adjustment.getBackupProcessor());
+    }
+}
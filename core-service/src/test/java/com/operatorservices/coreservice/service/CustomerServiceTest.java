@@ -5,14 +5,21 @@ import com.operatorservices.coreservice.dto.converter.ModelDtoConverter;
 import com.operatorservices.coreservice.exception.EntryNotFoundException;
 import com.operatorservices.coreservice.model.Account;
 import com.operatorservices.coreservice.model.Customer;
+import com.operatorservices.coreservice.repository.AccountRepository;
 import com.operatorservices.coreservice.repository.CustomerRepository;
 
 import com.operatorservices.coreservice.dto.*;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 
+import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
@@ -26,12 +33,16 @@ class CustomerServiceTest extends TestSupport {
     private CustomerRepository customerRepository;
     private ModelDtoConverter modelDtoConverter;
     private CustomerService customerService;
+    private AccountRepository accountRepository;
+    private BalanceStore balanceStore;
 
     @BeforeEach
     void setUp() {
         customerRepository = mock(CustomerRepository.class);
         modelDtoConverter = mock(ModelDtoConverter.class);
-        customerService = new CustomerService(customerRepository, modelDtoConverter);
+        accountRepository = mock(AccountRepository.class);
+        balanceStore = mock(BalanceStore.class);
+        customerService = new CustomerService(customerRepository, modelDtoConverter, accountRepository, balanceStore);
     }
 
     @DisplayName("getCustomerById with Valid Id Test")
@@ -41,14 +52,14 @@ class CustomerServiceTest extends TestSupport {
        Customer customer = newCustomer("customerId");
        CustomerGetDto customerGetDto = newCustomerGetDto(customer);
 
-       when(customerRepository.findById("customerId")).thenReturn(Optional.of(customer));
+       when(customerRepository.findDetailById("customerId")).thenReturn(Optional.of(customer));
        when(modelDtoConverter.customerToCustomerGetDto(customer)).thenReturn(customerGetDto);
 
        CustomerGetDto test = customerService.getCustomerById("customerId");
 
        assertEquals(test, customerGetDto);
 
-       verify(customerRepository).findById("customerId");
+       verify(customerRepository).findDetailById("customerId");
        verify(modelDtoConverter).customerToCustomerGetDto(customer);
     }
 
@@ -56,62 +67,93 @@ class CustomerServiceTest extends TestSupport {
     @Test
     void whenGetCustomerByIdIsCalled_withInvalidId_itShouldThrowEntryNotFoundException() {
 
-        when(customerRepository.findById("invalidId")).thenReturn(Optional.empty());
+        when(customerRepository.findDetailById("invalidId")).thenReturn(Optional.empty());
 
         assertThrows(EntryNotFoundException.class,
                 ()->customerService.getCustomerById("invalidId"));
 
-        verify(customerRepository).findById("invalidId");
+        verify(customerRepository).findDetailById("invalidId");
         verifyNoInteractions(modelDtoConverter);
     }
 
-    @DisplayName("getAllCustomers Test")
+    @DisplayName("getCustomers Test")
     @Test
-    void whenGetAllCustomersIsCalled_thenReturnAListOfCustomerGetDto() {
+    void whenGetCustomersIsCalled_thenReturnAPageOfCustomerGetDto() {
 
         Customer customer1 = newCustomer("customer-1");
         Customer customer2 = newCustomer("customer-2");
+        PageRequest expected = PageRequest.of(0, 20, Sort.by("id"));
 
-        when(customerRepository.findAll()).thenReturn(List.of(customer1, customer2));
-        when(modelDtoConverter.customerToCustomerGetDto(customer1)).thenReturn(newCustomerGetDto(customer1));
-        when(modelDtoConverter.customerToCustomerGetDto(customer2)).thenReturn(newCustomerGetDto(customer2));
+        when(customerRepository.findAll(expected)).thenReturn(new PageImpl<>(List.of(customer1, customer2)));
+        when(modelDtoConverter.customerToCustomerSummaryDto(customer1)).thenReturn(newCustomerGetDto(customer1));
+        when(modelDtoConverter.customerToCustomerSummaryDto(customer2)).thenReturn(newCustomerGetDto(customer2));
 
-        List<CustomerGetDto> test = customerService.getAllCustomers();
+        Page<CustomerGetDto> test = customerService.getCustomers(PageRequest.of(0, 20));
 
-        assertEquals(test, List.of(newCustomerGetDto(customer1),newCustomerGetDto(customer2)));
+        assertEquals(test.getContent(), List.of(newCustomerGetDto(customer1),newCustomerGetDto(customer2)));
 
-        verify(customerRepository).findAll();
-        verify(modelDtoConverter).customerToCustomerGetDto(customer1);
-        verify(modelDtoConverter).customerToCustomerGetDto(customer2);
+        verify(customerRepository).findAll(expected);
+        verify(modelDtoConverter).customerToCustomerSummaryDto(customer1);
+        verify(modelDtoConverter).customerToCustomerSummaryDto(customer2);
     }
 
-    @DisplayName("getAllAccounts with Valid Id Test")
+    @DisplayName("getAccounts with Valid Id Test")
     @Test
-    void whenGetAllAccountsIsCalled_withAValidId_itShouldReturnCustomerRequestGetAccountDto() {
-        Customer customer = newCustomer("customerId");
+    void whenGetAccountsIsCalled_withAValidId_itShouldReturnAPageOfCustomerRequestGetAccountDto() {
         Account account1 = newAccount("account1", "customerId", 100L, Set.of());
         Account account2 = newAccount("account2", "customerId", 100L, Set.of());
         CustomerRequestGetAccountDto customerRequestGetAccountDto1 = newCustomerRequestGetAccountDto(account1);
         CustomerRequestGetAccountDto customerRequestGetAccountDto2 = newCustomerRequestGetAccountDto(account2);
-        customer.getAccounts().addAll(List.of(account1, account2));
+        PageRequest expected = PageRequest.of(0, 20, Sort.by("id"));
 
-        when(customerRepository.findById("customerId")).thenReturn(Optional.of(customer));
-        when(modelDtoConverter.accountToCustomerRequestGetAccountDto(account1))
+        when(customerRepository.existsById("customerId")).thenReturn(true);
+        when(accountRepository.findByCustomerId("customerId", expected))
+                .thenReturn(new PageImpl<>(List.of(account1, account2)));
+        when(modelDtoConverter.accountToCustomerRequestGetAccountSummaryDto(account1))
                 .thenReturn(customerRequestGetAccountDto1);
-        when(modelDtoConverter.accountToCustomerRequestGetAccountDto(account2))
+        when(modelDtoConverter.accountToCustomerRequestGetAccountSummaryDto(account2))
                 .thenReturn(customerRequestGetAccountDto2);
 
-        List<CustomerRequestGetAccountDto> test = customerService.getAllAccounts("customerId");
+        Page<CustomerRequestGetAccountDto> test = customerService.getAccounts("customerId", PageRequest.of(0, 20));
 
         assertEquals(
-                test, List.of(
+                test.getContent(), List.of(
                         newCustomerRequestGetAccountDto(account1),
                         newCustomerRequestGetAccountDto(account2))
         );
 
-        verify(customerRepository).findById("customerId");
-        verify(modelDtoConverter).accountToCustomerRequestGetAccountDto(account1);
-        verify(modelDtoConverter).accountToCustomerRequestGetAccountDto(account2);
+        verify(accountRepository).findByCustomerId("customerId", expected);
+        verify(modelDtoConverter).accountToCustomerRequestGetAccountSummaryDto(account1);
+        verify(modelDtoConverter).accountToCustomerRequestGetAccountSummaryDto(account2);
+    }
+
+    @DisplayName("getAccounts with a Balance Ahead of the Snapshot Test")
+    @Test
+    void whenGetAccountsIsCalled_withABalanceStoreAheadOfTheSnapshot_itShouldReturnTheCurrentBalance() {
+        Account account = newAccount("account1", "customerId", 100L, Set.of());
+        PageRequest expected = PageRequest.of(0, 20, Sort.by("id"));
+
+        when(customerRepository.existsById("customerId")).thenReturn(true);
+        when(accountRepository.findByCustomerId("customerId", expected)).thenReturn(new PageImpl<>(List.of(account)));
+        when(modelDtoConverter.accountToCustomerRequestGetAccountSummaryDto(account))
+                .thenReturn(newCustomerRequestGetAccountDto(account));
+        when(balanceStore.currentBalances(List.of(account))).thenReturn(Map.of("account1", BigDecimal.valueOf(70)));
+
+        Page<CustomerRequestGetAccountDto> test = customerService.getAccounts("customerId", PageRequest.of(0, 20));
+
+        assertEquals(BigDecimal.valueOf(70), test.getContent().get(0).getAccountBalance());
+    }
+
+    @DisplayName("getAccounts with Invalid Id Test")
+    @Test
+    void whenGetAccountsIsCalled_withAnInvalidId_itShouldThrowEntryNotFoundException() {
+
+        when(customerRepository.existsById("invalidId")).thenReturn(false);
+
+        assertThrows(EntryNotFoundException.class,
+                () -> customerService.getAccounts("invalidId", PageRequest.of(0, 20)));
+
+        verifyNoInteractions(accountRepository);
     }
 
     @DisplayName("createCustomer Test")
@@ -141,7 +183,7 @@ class CustomerServiceTest extends TestSupport {
         CustomerUpdateRequestDto customerUpdateRequestDto = newCustomerUpdateRequestDto(customer);
         CustomerDto customerDto = newCustomerDto(customer);
 
-        when(customerRepository.findById("customerId")).thenReturn(Optional.of(customer));
+        when(customerRepository.findDetailById("customerId")).thenReturn(Optional.of(customer));
         when(customerRepository.save(any(Customer.class))).thenReturn(customer);
         when(modelDtoConverter.customerToCustomerDto(customer)).thenReturn(customerDto);
 
@@ -149,7 +191,7 @@ class CustomerServiceTest extends TestSupport {
 
         assertEquals(test, customerDto);
 
-        verify(customerRepository).findById("customerId");
+        verify(customerRepository).findDetailById("customerId");
         verify(customerRepository).save(customer);
         verify(modelDtoConverter).customerToCustomerDto(customer);
     }
@@ -0,0 +1,56 @@
+package com.operatorservices.coreservice.service;
+
+import com.operatorservices.coreservice.TestSupport;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExpiredOrderFilterTest extends TestSupport {
+
+    private SimpleMeterRegistry meterRegistry;
+    private ExpiredOrderFilter expiredOrderFilter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        expiredOrderFilter = new ExpiredOrderFilter(meterRegistry);
+    }
+
+    private ConsumerRecord<String, Object> orderWithDeadline(String deadline) {
+        ConsumerRecord<String, Object> record = new ConsumerRecord<>("purchase-order", 0, 0L, "accountId", "order");
+        if (deadline != null) {
+            record.headers().add(ExpiredOrderFilter.DEADLINE_HEADER, deadline.getBytes(StandardCharsets.UTF_8));
+        }
+        return record;
+    }
+
+    @DisplayName("filter with Passed Deadline Test")
+    @Test
+    void whenFilter_withPassedDeadline_itShouldDiscardTheOrder() {
+
+        assertTrue(expiredOrderFilter.filter(orderWithDeadline(String.valueOf(System.currentTimeMillis() - 1000))));
+        assertEquals(1, meterRegistry.counter("purchase.order.expired").count());
+    }
+
+    @DisplayName("filter with Future Deadline Test")
+    @Test
+    void whenFilter_withFutureDeadline_itShouldKeepTheOrder() {
+
+        assertFalse(expiredOrderFilter.filter(orderWithDeadline(String.valueOf(System.currentTimeMillis() + 60000))));
+        assertEquals(0, meterRegistry.counter("purchase.order.expired").count());
+    }
+
+    @DisplayName("filter without or with Malformed Deadline Test")
+    @Test
+    void whenFilter_withoutUsableDeadline_itShouldKeepTheOrder() {
+
+        assertFalse(expiredOrderFilter.filter(orderWithDeadline(null)));
+        assertFalse(expiredOrderFilter.filter(orderWithDeadline("soon")));
+    }
+}
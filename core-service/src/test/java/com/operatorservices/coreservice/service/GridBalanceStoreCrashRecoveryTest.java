@@ -0,0 +1,210 @@
+package com.operatorservices.coreservice.service;
+
+import com.hazelcast.config.Config;
+import com.hazelcast.config.JoinConfig;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+import com.operatorservices.coreservice.TestSupport;
+import com.operatorservices.coreservice.config.HazelcastCacheConfig;
+import com.operatorservices.coreservice.dto.AccountCreateRequestDto;
+import com.operatorservices.coreservice.dto.PurchaseCreateRequestDto;
+import com.operatorservices.coreservice.exception.InsufficientFundsException;
+import com.operatorservices.coreservice.model.TariffType;
+import com.operatorservices.coreservice.repository.AccountBalanceMapStore;
+import com.operatorservices.coreservice.repository.BalanceEntryRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "core.balance.mode = grid")
+class GridBalanceStoreCrashRecoveryTest extends TestSupport {
+
+    private static final int THREADS = 32;
+
+    @Autowired
+    private PurchaseService purchaseService;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private SubPackageService subPackageService;
+
+    @Autowired
+    private AccountBalanceMapStore accountBalanceMapStore;
+
+    @Autowired
+    private BalanceEntryRepository balanceEntryRepository;
+
+    @Autowired
+    private GridBalanceStore gridBalanceStore;
+
+    @Autowired
+    private HazelcastCacheConfig hazelcastCacheConfig;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private String createAccount(long balance) {
+        String customerId = customerService.createCustomer(
+                newCustomerCreateRequestDto(newCustomer("grid"))).getId();
+        return accountService.createAccount(
+                new AccountCreateRequestDto(customerId, BigDecimal.valueOf(balance), TariffType.STANDARD)).getId();
+    }
+
+    private BigDecimal snapshotOf(String accountId) {
+        return jdbcTemplate.queryForObject(
+                "select account_balance from account where id = cast(? as uuid)", BigDecimal.class, accountId);
+    }
+
+    //The balance Postgres has: the snapshot plus the journaled entries not folded into it yet.
+    private BigDecimal durableBalanceOf(String accountId) {
+        return jdbcTemplate.queryForObject(
+                "select a.account_balance + coalesce((select sum(e.amount) from balance_entry e " +
+                        "where e.account_id = a.id), 0) from account a where a.id = cast(? as uuid)",
+                BigDecimal.class, accountId);
+    }
+
+    //A member of a separate cluster with the same balances map and MapStore as the application.
+    private HazelcastInstance newMember(String clusterName) {
+        Config config = new Config()
+                .setClusterName(clusterName)
+                .addMapConfig(hazelcastCacheConfig.balancesMapConfig(accountBalanceMapStore));
+        JoinConfig join = config.getNetworkConfig().getJoin();
+        join.getMulticastConfig().setEnabled(false);
+        join.getTcpIpConfig().setEnabled(true).addMember("127.0.0.1");
+        return Hazelcast.newHazelcastInstance(config);
+    }
+
+    @DisplayName("createPurchase under Parallel Orders on One Account in Grid Mode Test")
+    @Test
+    void whenManyPurchasesRunInParallel_onOneAccount_itShouldNeitherOverdrawNorLoseDebits() throws Exception {
+
+        int orders = 2000;
+        int affordable = 1500;
+        String accountId = createAccount(affordable);
+        Long packageId = subPackageService.createPackage(newPackageRequestDto(newSubPackage(1L))).getId();
+        PurchaseCreateRequestDto request = new PurchaseCreateRequestDto(accountId, packageId, (short) 1);
+
+        AtomicInteger accepted = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Callable<Void>> callables = new ArrayList<>();
+            for (int i = 0; i < orders; i++) {
+                callables.add(() -> {
+                    try {
+                        purchaseService.createPurchase(request);
+                        accepted.incrementAndGet();
+                    } catch (InsufficientFundsException exception) {
+                        rejected.incrementAndGet();
+                    }
+                    return null;
+                });
+            }
+            for (Future<Void> future : executor.invokeAll(callables)) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(affordable, accepted.get());
+        assertEquals(orders - affordable, rejected.get());
+        assertEquals(0, durableBalanceOf(accountId).compareTo(BigDecimal.ZERO));
+
+        gridBalanceStore.flush();
+        assertEquals(0, snapshotOf(accountId).compareTo(BigDecimal.ZERO));
+    }
+
+    @DisplayName("Partition Owner Crash in Grid Mode Test")
+    @Test
+    void whenTheOwnerCrashes_itShouldNotLoseAcknowledgedDebits() {
+
+        String accountId = createAccount(1000);
+        String clusterName = "balances-" + UUID.randomUUID();
+        HazelcastInstance first = newMember(clusterName);
+        HazelcastInstance second = newMember(clusterName);
+
+        try {
+            assertEquals(2, first.getCluster().getMembers().size());
+            HazelcastInstance owner = first.getPartitionService().getPartition(accountId).getOwner().localMember()
+                    ? first : second;
+            HazelcastInstance survivor = owner == first ? second : first;
+            GridBalanceStore survivorStore = new GridBalanceStore(survivor, balanceEntryRepository);
+
+            for (int i = 0; i < 100; i++) {
+                assertTrue(survivorStore.debit(accountId, BigDecimal.ONE));
+            }
+
+            //No graceful shutdown: the survivor carries on from the backup.
+            owner.getLifecycleService().terminate();
+
+            assertEquals(0, durableBalanceOf(accountId).compareTo(BigDecimal.valueOf(900)));
+            assertEquals(0, survivorStore.currentBalances(List.of(accountService.returnAccountById(accountId)))
+                    .get(accountId).compareTo(BigDecimal.valueOf(900)));
+        } finally {
+            first.getLifecycleService().terminate();
+            second.getLifecycleService().terminate();
+        }
+    }
+
+    @DisplayName("Whole Cluster Crash in Grid Mode Test")
+    @Test
+    void whenEveryMemberCrashes_itShouldKeepCommittedDebitsOnly() {
+
+        String accountId = createAccount(1000);
+        String clusterName = "balances-" + UUID.randomUUID();
+        HazelcastInstance first = newMember(clusterName);
+        HazelcastInstance second = newMember(clusterName);
+
+        try {
+            assertEquals(2, first.getCluster().getMembers().size());
+            GridBalanceStore store = new GridBalanceStore(first, balanceEntryRepository);
+            for (int i = 0; i < 100; i++) {
+                assertEquals(Boolean.TRUE, transactionTemplate.execute(status -> store.debit(accountId, BigDecimal.ONE)));
+            }
+            //The cluster goes down while a debit is in the map but its transaction has not committed.
+            transactionTemplate.executeWithoutResult(status -> {
+                assertTrue(store.debit(accountId, BigDecimal.valueOf(50)));
+                first.getLifecycleService().terminate();
+                second.getLifecycleService().terminate();
+                status.setRollbackOnly();
+            });
+        } finally {
+            //No graceful shutdown of any member: neither the owner nor the backup is left.
+            first.getLifecycleService().terminate();
+            second.getLifecycleService().terminate();
+        }
+
+        assertEquals(0, durableBalanceOf(accountId).compareTo(BigDecimal.valueOf(900)));
+
+        HazelcastInstance restarted = newMember("balances-" + UUID.randomUUID());
+        try {
+            assertEquals(0, new GridBalanceStore(restarted, balanceEntryRepository)
+                    .currentBalances(List.of(accountService.returnAccountById(accountId)))
+                    .get(accountId).compareTo(BigDecimal.valueOf(900)));
+        } finally {
+            restarted.getLifecycleService().terminate();
+        }
+    }
+}
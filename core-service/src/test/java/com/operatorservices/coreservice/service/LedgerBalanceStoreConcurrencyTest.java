@@ -0,0 +1,146 @@
+package com.operatorservices.coreservice.service;
+
+import com.operatorservices.coreservice.TestSupport;
+import com.operatorservices.coreservice.dto.AccountCreateRequestDto;
+import com.operatorservices.coreservice.dto.AccountUpdateRequestDto;
+import com.operatorservices.coreservice.dto.PurchaseCreateRequestDto;
+import com.operatorservices.coreservice.dto.PurchaseDto;
+import com.operatorservices.coreservice.exception.InsufficientFundsException;
+import com.operatorservices.coreservice.model.TariffType;
+import com.operatorservices.coreservice.repository.BalanceEntryRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "core.balance.mode = ledger")
+class LedgerBalanceStoreConcurrencyTest extends TestSupport {
+
+    private static final int THREADS = 32;
+
+    @Autowired
+    private PurchaseService purchaseService;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private SubPackageService subPackageService;
+
+    @Autowired
+    private LedgerBalanceStore ledgerBalanceStore;
+
+    @Autowired
+    private BalanceEntryRepository balanceEntryRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private String createAccount(long balance) {
+        String customerId = customerService.createCustomer(
+                newCustomerCreateRequestDto(newCustomer("ledger"))).getId();
+        return accountService.createAccount(
+                new AccountCreateRequestDto(customerId, BigDecimal.valueOf(balance), TariffType.STANDARD)).getId();
+    }
+
+    private BigDecimal balanceOf(String accountId) {
+        return accountService.returnBalancesOf(List.of(accountService.returnAccountById(accountId))).get(accountId);
+    }
+
+    private BigDecimal snapshotOf(String accountId) {
+        return Objects.requireNonNull(accountService.returnAccountById(accountId).getAccountBalance());
+    }
+
+    private BigDecimal runningBalanceOf(String accountId) {
+        return jdbcTemplate.queryForObject(
+                "select sum(balance) from balance_total where account_id = cast(? as uuid)", BigDecimal.class, accountId);
+    }
+
+    private void compactAll() {
+        while (balanceEntryRepository.count() > 0) {
+            ledgerBalanceStore.compact();
+        }
+    }
+
+    @DisplayName("createPurchase under Parallel Orders on One Account in Ledger Mode Test")
+    @Test
+    void whenManyPurchasesRunInParallel_onOneAccount_itShouldNeitherOverdrawNorLoseDebits() throws Exception {
+
+        int orders = 2000;
+        int affordable = 1500;
+        String accountId = createAccount(affordable);
+        Long packageId = subPackageService.createPackage(newPackageRequestDto(newSubPackage(1L))).getId();
+        PurchaseCreateRequestDto request = new PurchaseCreateRequestDto(accountId, packageId, (short) 1);
+
+        AtomicInteger accepted = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Callable<Void>> callables = new ArrayList<>();
+            for (int i = 0; i < orders; i++) {
+                callables.add(() -> {
+                    try {
+                        purchaseService.createPurchase(request);
+                        accepted.incrementAndGet();
+                    } catch (InsufficientFundsException exception) {
+                        rejected.incrementAndGet();
+                    }
+                    return null;
+                });
+            }
+            for (Future<Void> future : executor.invokeAll(callables)) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(affordable, accepted.get());
+        assertEquals(orders - affordable, rejected.get());
+        assertEquals(0, balanceOf(accountId).compareTo(BigDecimal.ZERO));
+        assertEquals(0, runningBalanceOf(accountId).compareTo(BigDecimal.ZERO));
+
+        compactAll();
+
+        assertEquals(0, snapshotOf(accountId).compareTo(BigDecimal.ZERO));
+        assertEquals(0, balanceOf(accountId).compareTo(BigDecimal.ZERO));
+        assertEquals(0, runningBalanceOf(accountId).compareTo(BigDecimal.ZERO));
+    }
+
+    @DisplayName("deletePurchase and updateAccount in Ledger Mode Test")
+    @Test
+    void whenPurchaseDeletedAndBalanceSet_itShouldCreditThenReplaceTheEntries() {
+
+        String accountId = createAccount(100);
+        Long packageId = subPackageService.createPackage(newPackageRequestDto(newSubPackage(1L))).getId();
+        PurchaseDto purchase = purchaseService.createPurchase(new PurchaseCreateRequestDto(accountId, packageId, (short) 30));
+
+        assertEquals(0, balanceOf(accountId).compareTo(BigDecimal.valueOf(70)));
+
+        purchaseService.deletePurchase(purchase.getId());
+
+        assertEquals(0, balanceOf(accountId).compareTo(BigDecimal.valueOf(100)));
+        assertEquals(0, runningBalanceOf(accountId).compareTo(BigDecimal.valueOf(100)));
+
+        purchaseService.createPurchase(new PurchaseCreateRequestDto(accountId, packageId, (short) 30));
+        accountService.updateAccount(new AccountUpdateRequestDto(BigDecimal.valueOf(500), TariffType.STANDARD), accountId);
+
+        assertEquals(0, balanceOf(accountId).compareTo(BigDecimal.valueOf(500)));
+        assertEquals(0, runningBalanceOf(accountId).compareTo(BigDecimal.valueOf(500)));
+        assertEquals(0, snapshotOf(accountId).compareTo(BigDecimal.valueOf(500)));
+    }
+}
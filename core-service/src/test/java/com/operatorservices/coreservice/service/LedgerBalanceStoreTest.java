@@ -0,0 +1,152 @@
+package com.operatorservices.coreservice.service;
+
+import com.operatorservices.coreservice.TestSupport;
+import com.operatorservices.coreservice.model.Account;
+import com.operatorservices.coreservice.repository.BalanceEntryRepository;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class LedgerBalanceStoreTest extends TestSupport {
+
+    private static final String ACCOUNT_ID = "0188e1c2-5a3b-7c4d-8e5f-6a7b8c9d0e1f";
+
+    private BalanceEntryRepository balanceEntryRepository;
+    private LedgerBalanceStore ledgerBalanceStore;
+
+    @BeforeEach
+    void setUp() {
+        balanceEntryRepository = mock(BalanceEntryRepository.class);
+        EntityManager entityManager = mock(EntityManager.class);
+        when(entityManager.unwrap(Session.class)).thenReturn(mock(Session.class));
+        ledgerBalanceStore = new LedgerBalanceStore(balanceEntryRepository, entityManager);
+        ReflectionTestUtils.setField(ledgerBalanceStore, "compactionBatchSize", 500);
+        ReflectionTestUtils.setField(ledgerBalanceStore, "buckets", 8);
+    }
+
+    private int bucketOfThisThread() {
+        return (int) Math.floorMod(Thread.currentThread().getId(), 8L);
+    }
+
+    @DisplayName("debit when the Bucket Covers It Test")
+    @Test
+    void whenDebit_withABucketThatCoversIt_itShouldLowerThatBucketThenAppendAnEntry() {
+        when(balanceEntryRepository.debitBucket(ACCOUNT_ID, bucketOfThisThread(), BigDecimal.TEN)).thenReturn(1);
+
+        assertTrue(ledgerBalanceStore.debit(ACCOUNT_ID, BigDecimal.TEN));
+
+        InOrder inOrder = inOrder(balanceEntryRepository);
+        inOrder.verify(balanceEntryRepository).debitBucket(ACCOUNT_ID, bucketOfThisThread(), BigDecimal.TEN);
+        inOrder.verify(balanceEntryRepository).save(argThat(entry ->
+                entry.getAccountId().equals(ACCOUNT_ID) && entry.getAmount().equals(BigDecimal.TEN.negate())));
+        verify(balanceEntryRepository, never()).lockTotals(any());
+    }
+
+    @DisplayName("debit when the Bucket Falls Short Test")
+    @Test
+    void whenDebit_withABucketThatFallsShort_itShouldTakeTheAmountAcrossTheBuckets() {
+        when(balanceEntryRepository.lockTotals(ACCOUNT_ID)).thenReturn(List.of(
+                new Object[]{(short) 0, BigDecimal.valueOf(4)},
+                new Object[]{(short) 1, BigDecimal.ZERO},
+                new Object[]{(short) 2, BigDecimal.valueOf(8)},
+                new Object[]{(short) 3, BigDecimal.valueOf(5)}));
+
+        assertTrue(ledgerBalanceStore.debit(ACCOUNT_ID, BigDecimal.TEN));
+
+        InOrder inOrder = inOrder(balanceEntryRepository);
+        inOrder.verify(balanceEntryRepository).startTotals(ACCOUNT_ID, 8);
+        inOrder.verify(balanceEntryRepository).lockTotals(ACCOUNT_ID);
+        inOrder.verify(balanceEntryRepository).adjustBucket(ACCOUNT_ID, 0, BigDecimal.valueOf(-4));
+        inOrder.verify(balanceEntryRepository).adjustBucket(ACCOUNT_ID, 2, BigDecimal.valueOf(-6));
+        inOrder.verify(balanceEntryRepository).save(any());
+        verify(balanceEntryRepository, times(2)).adjustBucket(any(), anyInt(), any());
+    }
+
+    @DisplayName("debit when Balance Is Insufficient Test")
+    @Test
+    void whenDebit_withInsufficientBalance_itShouldReturnFalseWithoutChangingAnything() {
+        when(balanceEntryRepository.lockTotals(ACCOUNT_ID)).thenReturn(List.of(
+                new Object[]{(short) 0, BigDecimal.valueOf(4)},
+                new Object[]{(short) 1, BigDecimal.valueOf(5)}));
+
+        assertFalse(ledgerBalanceStore.debit(ACCOUNT_ID, BigDecimal.TEN));
+
+        verify(balanceEntryRepository, never()).adjustBucket(any(), anyInt(), any());
+        verify(balanceEntryRepository, never()).save(any());
+    }
+
+    @DisplayName("debit of a Missing Account Test")
+    @Test
+    void whenDebit_withoutBuckets_itShouldReturnFalse() {
+        when(balanceEntryRepository.lockTotals(ACCOUNT_ID)).thenReturn(List.of());
+
+        assertFalse(ledgerBalanceStore.debit(ACCOUNT_ID, BigDecimal.ZERO));
+
+        verify(balanceEntryRepository, never()).save(any());
+    }
+
+    @DisplayName("debit with a Malformed Id Test")
+    @Test
+    void whenDebit_withAnIdThatIsNotAUuid_itShouldReturnFalseWithoutQuerying() {
+        assertFalse(ledgerBalanceStore.debit("accountId", BigDecimal.TEN));
+
+        verifyNoInteractions(balanceEntryRepository);
+    }
+
+    @DisplayName("credit Test")
+    @Test
+    void whenCredit_itShouldRaiseABucketAndAppendAPositiveEntry() {
+        when(balanceEntryRepository.adjustBucket(ACCOUNT_ID, bucketOfThisThread(), BigDecimal.TEN)).thenReturn(1);
+
+        ledgerBalanceStore.credit(ACCOUNT_ID, BigDecimal.TEN);
+
+        verify(balanceEntryRepository).adjustBucket(ACCOUNT_ID, bucketOfThisThread(), BigDecimal.TEN);
+        verify(balanceEntryRepository).save(argThat(entry ->
+                entry.getAccountId().equals(ACCOUNT_ID) && entry.getAmount().equals(BigDecimal.TEN)));
+        verify(balanceEntryRepository, never()).startTotals(any(), anyInt());
+    }
+
+    @DisplayName("currentBalances Test")
+    @Test
+    void whenCurrentBalances_itShouldReturnSnapshotPlusEntries() {
+        Account account = newAccount("accountId", "customerId", 100L, Set.of());
+        when(balanceEntryRepository.findCurrentBalances(List.of("accountId")))
+                .thenReturn(List.<Object[]>of(new Object[]{"accountId", BigDecimal.valueOf(90)}));
+
+        assertEquals(Map.of("accountId", BigDecimal.valueOf(90)), ledgerBalanceStore.currentBalances(List.of(account)));
+    }
+
+    @DisplayName("setBalance Test")
+    @Test
+    void whenSetBalance_itShouldReplaceTheEntriesWithANewSnapshot() {
+        Account account = newAccount("accountId", "customerId", 100L, Set.of());
+
+        ledgerBalanceStore.setBalance(account, BigDecimal.valueOf(500));
+
+        assertEquals(BigDecimal.valueOf(500), account.getAccountBalance());
+        InOrder inOrder = inOrder(balanceEntryRepository);
+        inOrder.verify(balanceEntryRepository).lockTotals("accountId");
+        inOrder.verify(balanceEntryRepository).setTotals("accountId", BigDecimal.valueOf(500), 8);
+        inOrder.verify(balanceEntryRepository).deleteAllByAccountIdInBulk("accountId");
+    }
+
+    @DisplayName("compact Test")
+    @Test
+    void whenCompact_itShouldFoldOneBatchIntoTheSnapshot() {
+        ledgerBalanceStore.compact();
+
+        verify(balanceEntryRepository).compact(500);
+    }
+}
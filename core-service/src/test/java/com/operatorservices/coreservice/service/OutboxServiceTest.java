@@ -0,0 +1,113 @@
+package com.operatorservices.coreservice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.operatorservices.coreservice.TestSupport;
+import com.operatorservices.coreservice.dto.PurchaseDto;
+import com.operatorservices.coreservice.model.Account;
+import com.operatorservices.coreservice.model.OutboxEvent;
+import com.operatorservices.coreservice.model.Purchase;
+import com.operatorservices.coreservice.model.SubPackage;
+import com.operatorservices.coreservice.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class OutboxServiceTest extends TestSupport {
+
+    private OutboxEventRepository outboxEventRepository;
+    private KafkaTemplate<String, PurchaseDto> kafkaTemplate;
+    private ObjectMapper objectMapper;
+    private SimpleMeterRegistry meterRegistry;
+    private OutboxService outboxService;
+
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+
+        outboxEventRepository = mock(OutboxEventRepository.class);
+        kafkaTemplate = mock(KafkaTemplate.class);
+        objectMapper = new ObjectMapper().findAndRegisterModules();
+        meterRegistry = new SimpleMeterRegistry();
+        outboxService = new OutboxService(outboxEventRepository, kafkaTemplate, objectMapper, meterRegistry);
+        ReflectionTestUtils.setField(outboxService, "batchSize", 100);
+        ReflectionTestUtils.setField(outboxService, "sendTimeoutMs", 1000L);
+    }
+
+    private PurchaseDto newPurchaseDto() {
+        Account account = newAccount("accountId", "customerId", 200L, Set.of());
+        SubPackage subPackage = newSubPackage(1L);
+        Purchase purchase = newPurchase(account, "purchaseId", 1L);
+        return newPurchaseDto(purchase, newPackageDto(subPackage));
+    }
+
+    private OutboxEvent newOutboxEvent(PurchaseDto purchaseDto) throws Exception {
+        return new OutboxEvent(1L, "notification", objectMapper.writeValueAsString(purchaseDto), LocalDateTime.now());
+    }
+
+    @DisplayName("enqueue Test")
+    @Test
+    void whenEnqueue_itShouldStoreTheSerializedEventWithoutSending() throws Exception {
+        PurchaseDto purchaseDto = newPurchaseDto();
+
+        outboxService.enqueue("notification", purchaseDto);
+
+        verify(outboxEventRepository).save(argThat(event ->
+                event.getTopic().equals("notification")
+                        && event.getPayload().contains("purchaseId")));
+        verifyNoInteractions(kafkaTemplate);
+    }
+
+    @DisplayName("relay with Pending Events Test")
+    @Test
+    void whenRelay_withPendingEvents_itShouldSendAndThenDeleteThem() throws Exception {
+        PurchaseDto purchaseDto = newPurchaseDto();
+        List<OutboxEvent> batch = List.of(newOutboxEvent(purchaseDto));
+
+        when(outboxEventRepository.findNextBatchForUpdate(100)).thenReturn(batch);
+        when(kafkaTemplate.send("notification", purchaseDto)).thenReturn(CompletableFuture.completedFuture(null));
+
+        outboxService.relay();
+
+        verify(kafkaTemplate).send("notification", purchaseDto);
+        verify(outboxEventRepository).deleteAllInBatch(batch);
+        assertEquals(1, meterRegistry.summary("outbox.relay.batch.size").count());
+    }
+
+    @DisplayName("relay when Send Fails Test")
+    @Test
+    void whenRelay_withSendFailure_itShouldKeepTheEvents() throws Exception {
+        PurchaseDto purchaseDto = newPurchaseDto();
+
+        when(outboxEventRepository.findNextBatchForUpdate(100)).thenReturn(List.of(newOutboxEvent(purchaseDto)));
+        when(kafkaTemplate.send("notification", purchaseDto))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")));
+
+        assertThrows(ExecutionException.class, () -> outboxService.relay());
+
+        verify(outboxEventRepository, never()).deleteAllInBatch(any());
+    }
+
+    @DisplayName("relay with Empty Outbox Test")
+    @Test
+    void whenRelay_withEmptyOutbox_itShouldDoNothing() throws Exception {
+        when(outboxEventRepository.findNextBatchForUpdate(100)).thenReturn(List.of());
+
+        outboxService.relay();
+
+        verify(outboxEventRepository, never()).deleteAllInBatch(any());
+        verifyNoInteractions(kafkaTemplate);
+    }
+}
@@ -0,0 +1,116 @@
+package com.operatorservices.coreservice.service;
+
+import com.hazelcast.cluster.Member;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.topic.ITopic;
+import com.hazelcast.topic.Message;
+import com.hazelcast.topic.MessageListener;
+import com.operatorservices.coreservice.TestSupport;
+import com.operatorservices.coreservice.dto.PackageDto;
+import com.operatorservices.coreservice.model.PackageType;
+import com.operatorservices.coreservice.repository.SubPackageRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class PackageCatalogTest extends TestSupport {
+
+    private SubPackageRepository packageRepository;
+    private ITopic<Long> invalidations;
+    private PackageCatalog packageCatalog;
+    private MessageListener<Long> listener;
+
+    private final PackageDto packageDto = new PackageDto(1L, "NewPackage", PackageType.COMBO, 12, true);
+    private final PackageDto updatedPackageDto = new PackageDto(1L, "NewPackage", PackageType.COMBO, 12, false);
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        packageRepository = mock(SubPackageRepository.class);
+        invalidations = mock(ITopic.class);
+        HazelcastInstance hazelcastInstance = mock(HazelcastInstance.class);
+        when(hazelcastInstance.<Long>getTopic("package-catalog")).thenReturn(invalidations);
+        when(packageRepository.findAllCatalogEntries()).thenReturn(List.of(packageDto));
+
+        packageCatalog = new PackageCatalog(packageRepository, hazelcastInstance);
+        packageCatalog.load();
+
+        ArgumentCaptor<MessageListener<Long>> captor = ArgumentCaptor.forClass(MessageListener.class);
+        verify(invalidations).addMessageListener(captor.capture());
+        listener = captor.getValue();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Message<Long> remoteMessage(Long packageId) {
+        Member member = mock(Member.class);
+        when(member.localMember()).thenReturn(false);
+        Message<Long> message = mock(Message.class);
+        when(message.getPublishingMember()).thenReturn(member);
+        when(message.getMessageObject()).thenReturn(packageId);
+        return message;
+    }
+
+    @DisplayName("get after Startup Load Test")
+    @Test
+    void whenGet_withALoadedPackage_itShouldNotQueryTheRepository() {
+        assertEquals(packageDto, packageCatalog.get(1L));
+
+        verify(packageRepository, never()).findCatalogEntryById(any());
+    }
+
+    @DisplayName("get with Unknown Id Test")
+    @Test
+    void whenGet_withAnUnknownPackage_itShouldReadItThrough() {
+        PackageDto newPackageDto = new PackageDto(2L, "Other", PackageType.CALL, 1, true);
+        when(packageRepository.findCatalogEntryById(2L)).thenReturn(Optional.of(newPackageDto));
+
+        assertEquals(newPackageDto, packageCatalog.get(2L));
+        assertEquals(newPackageDto, packageCatalog.get(2L));
+        assertNull(packageCatalog.get(3L));
+
+        verify(packageRepository, times(1)).findCatalogEntryById(2L);
+    }
+
+    @DisplayName("invalidate Test")
+    @Test
+    void whenInvalidate_itShouldRefreshLocallyAndAnnounceTheChange() {
+        when(packageRepository.findCatalogEntryById(1L)).thenReturn(Optional.of(updatedPackageDto));
+
+        packageCatalog.invalidate(1L);
+
+        assertEquals(updatedPackageDto, packageCatalog.get(1L));
+        verify(invalidations).publish(1L);
+    }
+
+    @DisplayName("Invalidation from Another Instance Test")
+    @Test
+    void whenAnotherInstanceInvalidates_itShouldRefreshThePackage() {
+        when(packageRepository.findCatalogEntryById(1L)).thenReturn(Optional.of(updatedPackageDto));
+
+        listener.onMessage(remoteMessage(1L));
+
+        assertEquals(updatedPackageDto, packageCatalog.get(1L));
+    }
+
+    @DisplayName("reload after a Missed Invalidation Test")
+    @Test
+    void whenReload_afterAMissedInvalidation_itShouldCatchUpWithTheRepository() {
+        PackageDto newPackageDto = new PackageDto(2L, "Other", PackageType.CALL, 1, true);
+        when(packageRepository.findCatalogEntryById(2L)).thenReturn(Optional.of(newPackageDto));
+        assertEquals(newPackageDto, packageCatalog.get(2L));
+        when(packageRepository.findAllCatalogEntries()).thenReturn(List.of(updatedPackageDto));
+        when(packageRepository.findCatalogEntryById(2L)).thenReturn(Optional.empty());
+
+        packageCatalog.reload();
+
+        assertEquals(updatedPackageDto, packageCatalog.get(1L));
+        assertNull(packageCatalog.get(2L));
+    }
+}
@@ -0,0 +1,134 @@
+package com.operatorservices.coreservice.service;
+
+import com.operatorservices.coreservice.TestSupport;
+import com.operatorservices.coreservice.dto.AccountCreateRequestDto;
+import com.operatorservices.coreservice.dto.PackageDto;
+import com.operatorservices.coreservice.model.Purchase;
+import com.operatorservices.coreservice.model.TariffType;
+import com.operatorservices.coreservice.repository.PurchasePartitions;
+import com.operatorservices.coreservice.repository.PurchaseRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class PurchaseArchiverTest extends TestSupport {
+
+    @Autowired
+    private PurchaseArchiver purchaseArchiver;
+
+    @Autowired
+    private PurchasePartitions purchasePartitions;
+
+    @Autowired
+    private PurchaseRepository purchaseRepository;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private SubPackageService subPackageService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private String accountId;
+    private PackageDto packageDto;
+
+    @BeforeEach
+    void setUp() {
+        String customerId = customerService.createCustomer(
+                newCustomerCreateRequestDto(newCustomer("archive"))).getId();
+        accountId = accountService.createAccount(
+                new AccountCreateRequestDto(customerId, BigDecimal.valueOf(100), TariffType.STANDARD)).getId();
+        packageDto = subPackageService.createPackage(newPackageRequestDto(newSubPackage(1L)));
+    }
+
+    private String savePurchase(LocalDateTime purchaseDate) {
+        return purchaseRepository.save(new Purchase(
+                purchaseDate,
+                accountService.returnAccountById(accountId),
+                subPackageService.returnSubPackageReference(packageDto),
+                (short) 10)).getId();
+    }
+
+    private String partitionOf(String purchaseId) {
+        return jdbcTemplate.queryForObject(
+                "select tableoid::regclass::text from purchase where id = cast(? as uuid)", String.class, purchaseId);
+    }
+
+    private int archivedCount(String purchaseId) {
+        return jdbcTemplate.queryForObject(
+                "select count(*) from purchase_archive where id = cast(? as uuid)", Integer.class, purchaseId);
+    }
+
+    @DisplayName("Purchase of the Current Month Test")
+    @Test
+    void whenAPurchaseIsSaved_itShouldLandInThePartitionOfItsMonth() {
+        YearMonth month = YearMonth.now();
+
+        String purchaseId = savePurchase(LocalDateTime.now());
+
+        assertEquals(String.format("purchase_p%04d_%02d", month.getYear(), month.getMonthValue()),
+                partitionOf(purchaseId));
+    }
+
+    @DisplayName("maintain with an Expired Partition Test")
+    @Test
+    void whenMaintainRuns_withAPartitionOlderThanTheRetention_itShouldMoveItToTheArchive() {
+        YearMonth expired = YearMonth.now().minusMonths(13);
+        purchasePartitions.createPartition(expired);
+        String purchaseId = savePurchase(expired.atDay(15).atTime(12, 0));
+
+        purchaseArchiver.maintain();
+
+        assertFalse(purchaseRepository.findById(purchaseId).isPresent());
+        assertEquals(1, archivedCount(purchaseId));
+        assertFalse(purchasePartitions.returnPartitions().contains(expired));
+        assertTrue(purchasePartitions.returnPartitions().contains(YearMonth.now().plusMonths(2)));
+    }
+
+    @DisplayName("archiveBefore with a Partition Left Detached Test")
+    @Test
+    void whenArchiveBeforeCalled_withAPartitionLeftDetached_itShouldArchiveIt() {
+        YearMonth expired = YearMonth.now().minusMonths(14);
+        purchasePartitions.createPartition(expired);
+        String purchaseId = savePurchase(expired.atDay(3).atTime(9, 0));
+        jdbcTemplate.execute(String.format("alter table purchase detach partition purchase_p%04d_%02d",
+                expired.getYear(), expired.getMonthValue()));
+
+        purchasePartitions.archiveBefore(YearMonth.now().minusMonths(11));
+
+        assertEquals(1, archivedCount(purchaseId));
+        assertEquals(0, jdbcTemplate.queryForObject(String.format(
+                "select count(*) from pg_class where relname = 'purchase_p%04d_%02d'",
+                expired.getYear(), expired.getMonthValue()), Integer.class));
+    }
+
+    @DisplayName("createPartition with Rows in the Default Partition Test")
+    @Test
+    void whenCreatePartitionCalled_withRowsOfItsMonthInTheDefaultPartition_itShouldMoveThemIntoIt() {
+        YearMonth month = YearMonth.now().plusMonths(7);
+        String purchaseId = savePurchase(month.atDay(1).atStartOfDay());
+        assertEquals("purchase_default", partitionOf(purchaseId));
+
+        purchasePartitions.createPartition(month);
+
+        assertEquals(String.format("purchase_p%04d_%02d", month.getYear(), month.getMonthValue()),
+                partitionOf(purchaseId));
+        purchasePartitions.archiveBefore(month.plusMonths(1));
+        assertEquals(1, archivedCount(purchaseId));
+    }
+}
@@ -0,0 +1,115 @@
+package com.operatorservices.coreservice.service;
+
+import com.operatorservices.coreservice.TestSupport;
+import com.operatorservices.coreservice.dto.AccountCreateRequestDto;
+import com.operatorservices.coreservice.dto.PurchaseOrderDto;
+import com.operatorservices.coreservice.model.Purchase;
+import com.operatorservices.coreservice.model.TariffType;
+import com.operatorservices.coreservice.repository.PurchaseRepository;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.AcknowledgingConsumerAwareMessageListener;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Objects;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+//Orders go through the listener of purchase-order the way the container delivers them, record filter, error
+//handler and all, without the broker: a record on the topic could be taken by the listener of another test
+//context, which shares the consumer group.
+@SpringBootTest
+class PurchaseOrderListenerTest extends TestSupport {
+
+    @Autowired
+    private KafkaListenerEndpointRegistry kafkaListenerEndpointRegistry;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private SubPackageService subPackageService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @SpyBean
+    private OutboxService outboxService;
+
+    @SpyBean
+    private PurchaseRepository purchaseRepository;
+
+    private String createAccount(long balance) {
+        String customerId = customerService.createCustomer(
+                newCustomerCreateRequestDto(newCustomer("listener"))).getId();
+        return accountService.createAccount(
+                new AccountCreateRequestDto(customerId, BigDecimal.valueOf(balance), TariffType.STANDARD)).getId();
+    }
+
+    //The record listener of purchase-order, not the batch one of the batch mode, which shares the topic.
+    @SuppressWarnings("unchecked")
+    private void deliver(PurchaseOrderDto purchaseOrderDto) {
+        Object listener = kafkaListenerEndpointRegistry.getListenerContainers().stream()
+                .filter(container -> Arrays.asList(Objects.requireNonNull(
+                        container.getContainerProperties().getTopics())).contains("purchase-order"))
+                .map(container -> container.getContainerProperties().getMessageListener())
+                .filter(candidate -> candidate instanceof AcknowledgingConsumerAwareMessageListener)
+                .findFirst()
+                .orElseThrow();
+        ((AcknowledgingConsumerAwareMessageListener<String, Object>) listener)
+                .onMessage(new ConsumerRecord<>("purchase-order", 0, 0L,
+                        purchaseOrderDto.getAccountId(), purchaseOrderDto), null, null);
+    }
+
+    private BigDecimal balanceOf(String accountId) {
+        return Objects.requireNonNull(accountService.returnAccountById(accountId).getAccountBalance());
+    }
+
+    private int purchaseCountOf(String accountId) {
+        return Objects.requireNonNull(jdbcTemplate.queryForObject(
+                "select count(*) from purchase where account_id = cast(? as uuid)", Integer.class, accountId));
+    }
+
+    @DisplayName("Order whose Outbox Event Fails Test")
+    @Test
+    void whenTheOutboxEventOfAnOrderCannotBeStored_theDebitAndThePurchaseShouldRollBack() {
+        String accountId = createAccount(100);
+        Long packageId = subPackageService.createPackage(newPackageRequestDto(newSubPackage(1L))).getId();
+        doThrow(new IllegalStateException("outbox unavailable"))
+                .when(outboxService).enqueue(eq("notification"), any());
+
+        deliver(new PurchaseOrderDto(accountId, packageId, (short) 10));
+
+        verify(outboxService).enqueue(eq("notification"), any());
+        assertEquals(0, balanceOf(accountId).compareTo(BigDecimal.valueOf(100)));
+        assertEquals(0, purchaseCountOf(accountId));
+    }
+
+    @DisplayName("Order whose Purchase Fails Test")
+    @Test
+    void whenThePurchaseOfAnOrderCannotBeSaved_theDebitShouldRollBack() {
+        String accountId = createAccount(100);
+        Long packageId = subPackageService.createPackage(newPackageRequestDto(newSubPackage(1L))).getId();
+        doThrow(new IllegalStateException("purchase unavailable"))
+                .when(purchaseRepository).save(any(Purchase.class));
+
+        deliver(new PurchaseOrderDto(accountId, packageId, (short) 10));
+
+        verify(purchaseRepository).save(any(Purchase.class));
+        assertEquals(0, balanceOf(accountId).compareTo(BigDecimal.valueOf(100)));
+        assertEquals(0, purchaseCountOf(accountId));
+    }
+}
@@ -0,0 +1,121 @@
+package com.operatorservices.coreservice.service;
+
+import com.operatorservices.coreservice.TestSupport;
+import com.operatorservices.coreservice.dto.AccountCreateRequestDto;
+import com.operatorservices.coreservice.dto.PurchaseCreateRequestDto;
+import com.operatorservices.coreservice.exception.InsufficientFundsException;
+import com.operatorservices.coreservice.model.TariffType;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class PurchaseServiceConcurrencyTest extends TestSupport {
+
+    private static final Logger logger = LoggerFactory.getLogger(PurchaseServiceConcurrencyTest.class);
+    private static final int THREADS = 32;
+
+    @Autowired
+    private PurchaseService purchaseService;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private SubPackageService subPackageService;
+
+    private String createAccount(long balance) {
+        String customerId = customerService.createCustomer(
+                newCustomerCreateRequestDto(newCustomer("concurrency"))).getId();
+        return accountService.createAccount(
+                new AccountCreateRequestDto(customerId, BigDecimal.valueOf(balance), TariffType.STANDARD)).getId();
+    }
+
+    private long runInParallel(int tasks, Callable<Void> task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Callable<Void>> callables = new ArrayList<>();
+            for (int i = 0; i < tasks; i++) {
+                callables.add(task);
+            }
+            long start = System.nanoTime();
+            for (Future<Void> future : executor.invokeAll(callables)) {
+                future.get();
+            }
+            return System.nanoTime() - start;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private BigDecimal balanceOf(String accountId) {
+        return Objects.requireNonNull(accountService.returnAccountById(accountId).getAccountBalance());
+    }
+
+    @DisplayName("createPurchase under Parallel Orders on One Account Test")
+    @Test
+    void whenManyPurchasesRunInParallel_onOneAccount_itShouldNeitherOverdrawNorLoseDebits() throws Exception {
+
+        int orders = 2000;
+        int affordable = 1500;
+        String accountId = createAccount(affordable);
+        Long packageId = subPackageService.createPackage(newPackageRequestDto(newSubPackage(1L))).getId();
+        PurchaseCreateRequestDto request = new PurchaseCreateRequestDto(accountId, packageId, (short) 1);
+
+        AtomicInteger accepted = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+
+        runInParallel(orders, () -> {
+            try {
+                purchaseService.createPurchase(request);
+                accepted.incrementAndGet();
+            } catch (InsufficientFundsException exception) {
+                rejected.incrementAndGet();
+            }
+            return null;
+        });
+
+        assertEquals(affordable, accepted.get());
+        assertEquals(orders - affordable, rejected.get());
+        assertEquals(0, balanceOf(accountId).compareTo(BigDecimal.ZERO));
+    }
+
+    //Correctness only: how the guarded debit compares with read-modify-write is measured by AccountDebitBenchmark.
+    @DisplayName("debitAccount under Parallel Debits on One Account Test")
+    @Test
+    void whenDebitsRunInParallel_onOneAccount_itShouldNeitherOverdrawNorLoseDebits() throws Exception {
+
+        int debits = 3000;
+        int affordable = 2000;
+        String accountId = createAccount(affordable);
+        AtomicInteger succeeded = new AtomicInteger();
+
+        long nanos = runInParallel(debits, () -> {
+            if (accountService.debitAccount(accountId, BigDecimal.ONE)) {
+                succeeded.incrementAndGet();
+            }
+            return null;
+        });
+        logger.info("Guarded debit: {} debits/s", Math.round(debits / (nanos / 1e9)));
+
+        BigDecimal balance = balanceOf(accountId);
+        assertTrue(balance.signum() >= 0, "overdrawn to " + balance);
+        assertEquals(0, balance.compareTo(BigDecimal.valueOf(affordable - succeeded.get())));
+        assertEquals(affordable, succeeded.get());
+    }
+}
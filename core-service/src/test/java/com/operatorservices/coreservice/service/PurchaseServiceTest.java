@@ -1,10 +1,13 @@
 package com.operatorservices.coreservice.service;
 
 import com.operatorservices.coreservice.TestSupport;
-import com.operatorservices.coreservice.dto.AccountUpdateRequestDto;
+import com.operatorservices.coreservice.dto.ExceptionDto;
 import com.operatorservices.coreservice.dto.PackageDto;
 import com.operatorservices.coreservice.dto.PurchaseCreateRequestDto;
 import com.operatorservices.coreservice.dto.PurchaseDto;
+import com.operatorservices.coreservice.dto.PurchaseOrderBatchDto;
+import com.operatorservices.coreservice.dto.PurchaseOrderBatchReplyDto;
+import com.operatorservices.coreservice.dto.PurchaseOrderDto;
 import com.operatorservices.coreservice.dto.converter.ModelDtoConverter;
 import com.operatorservices.coreservice.exception.EntryNotFoundException;
 import com.operatorservices.coreservice.exception.InsufficientFundsException;
@@ -17,24 +20,26 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.kafka.annotation.KafkaListener;
-import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.math.BigDecimal;
-import java.util.Objects;
-import java.util.Optional;
-import java.util.Set;
+import java.time.LocalDateTime;
+import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 class PurchaseServiceTest extends TestSupport {
 
+    private static final String ACCOUNT_ID = "0b7e6a52-8d0e-4c3a-9f0e-5b2d3c1a4e6f";
+    private static final String MISSING_ID = "5f1c2d3e-4b5a-4c6d-8e7f-9a0b1c2d3e4f";
+
     private PurchaseRepository purchaseRepository;
     private ModelDtoConverter modelDtoConverter;
     private AccountService accountService;
     private SubPackageService subPackageService;
     private PurchaseService purchaseService;
-    private KafkaTemplate kafkaTemplate;
+    private OutboxService outboxService;
 
 
     @BeforeEach
@@ -44,45 +49,73 @@ class PurchaseServiceTest extends TestSupport {
         accountService = mock(AccountService.class);
         modelDtoConverter = mock(ModelDtoConverter.class);
         subPackageService = mock(SubPackageService.class);
-        kafkaTemplate = mock(KafkaTemplate.class);
+        outboxService = mock(OutboxService.class);
         purchaseService = new PurchaseService(
                 purchaseRepository,
                 modelDtoConverter,
                 accountService,
-                subPackageService, kafkaTemplate);
+                subPackageService, outboxService);
+        ReflectionTestUtils.setField(purchaseService, "hotMonths", 3);
+        when(subPackageService.returnSubPackageReference(any(PackageDto.class))).thenAnswer(invocation -> {
+            PackageDto packageDto = invocation.getArgument(0);
+            return new SubPackage(packageDto.getId(), packageDto.getName(), packageDto.getPackageType(),
+                    packageDto.getDuration(), packageDto.getPurchasable(), Set.of());
+        });
     }
 
     @DisplayName("getPurchaseById with Valid Id Test")
     @Test
     void whenGetPurchaseById_withAValidId_itShouldReturnPurchaseDto() {
 
-        Account account = newAccount("accountId", "customerId", 100L, Set.of());
+        Account account = newAccount(ACCOUNT_ID, "customerId", 100L, Set.of());
         Purchase purchase = newPurchase(account, "purchaseId", 1L);
         SubPackage subPackage = newSubPackage(1L);
         PackageDto packageDto = newPackageDto(subPackage);
         PurchaseDto purchaseDto = newPurchaseDto(purchase, packageDto);
 
-        when(purchaseRepository.findById("purchaseId")).thenReturn(Optional.of(purchase));
+        when(purchaseRepository.findRecentById(eq("purchaseId"), any(LocalDateTime.class)))
+                .thenReturn(Optional.of(purchase));
         when(modelDtoConverter.purchaseToPurchaseDto(purchase)).thenReturn(purchaseDto);
 
         PurchaseDto test = purchaseService.getPurchaseById("purchaseId");
 
         assertEquals(test, purchaseDto);
 
-        verify(purchaseRepository).findById("purchaseId");
+        verify(purchaseRepository).findRecentById(eq("purchaseId"), any(LocalDateTime.class));
+        verify(purchaseRepository, never()).findDetailById(any());
         verify(modelDtoConverter).purchaseToPurchaseDto(purchase);
     }
 
+    @DisplayName("getPurchaseById with Archived Partition Id Test")
+    @Test
+    void whenGetPurchaseById_withAnIdOutsideTheHotPartitions_itShouldFallBackToAllPartitions() {
+
+        Account account = newAccount(ACCOUNT_ID, "customerId", 100L, Set.of());
+        Purchase purchase = newPurchase(account, "purchaseId", 1L);
+        PurchaseDto purchaseDto = newPurchaseDto(purchase, newPackageDto(newSubPackage(1L)));
+
+        when(purchaseRepository.findRecentById(eq("purchaseId"), any(LocalDateTime.class)))
+                .thenReturn(Optional.empty());
+        when(purchaseRepository.findDetailById("purchaseId")).thenReturn(Optional.of(purchase));
+        when(modelDtoConverter.purchaseToPurchaseDto(purchase)).thenReturn(purchaseDto);
+
+        assertEquals(purchaseService.getPurchaseById("purchaseId"), purchaseDto);
+
+        verify(purchaseRepository).findDetailById("purchaseId");
+    }
+
     @DisplayName("getPurchaseById with Invalid Id Test")
     @Test
     void whenGetPurchaseById_withAnInvalidId_itShouldThrowEntryNotFoundException() {
 
-        when(purchaseRepository.findById("invalidId")).thenReturn(Optional.empty());
+        when(purchaseRepository.findRecentById(eq("invalidId"), any(LocalDateTime.class)))
+                .thenReturn(Optional.empty());
+        when(purchaseRepository.findDetailById("invalidId")).thenReturn(Optional.empty());
 
         assertThrows(EntryNotFoundException.class,
                 ()->purchaseService.getPurchaseById("invalidId"));
 
-        verify(purchaseRepository).findById("invalidId");
+        verify(purchaseRepository).findDetailById("invalidId");
         verifyNoInteractions(modelDtoConverter);
     }
 
@@ -90,18 +123,21 @@ class PurchaseServiceTest extends TestSupport {
     @Test
     void whenCreatePurchase_withValidRequest_itShouldReturnPurchaseDto() {
 
-        Account account = newAccount("accountId", "customerId", 200L, Set.of());
+        Account account = newAccount(ACCOUNT_ID, "customerId", 200L, Set.of());
         SubPackage subPackage = newSubPackage(1L);
         Purchase purchase = newPurchase(account, "purchaseId", 1L);
         PurchaseDto purchaseDto = newPurchaseDto(purchase, newPackageDto(subPackage));
         PurchaseCreateRequestDto purchaseCreateRequestDto = new PurchaseCreateRequestDto(
-                "accountId", 1L, (short) 100);
+                ACCOUNT_ID, 1L, (short) 100);
 
-        when(accountService.returnAccountById(purchaseCreateRequestDto.getAccountId()))
+        when(accountService.debitAccount(purchaseCreateRequestDto.getAccountId(), BigDecimal.valueOf(100)))
+                .thenReturn(true);
+
+        when(accountService.returnAccountReference(purchaseCreateRequestDto.getAccountId()))
                 .thenReturn(purchase.getAccount());
 
-        when(subPackageService.returnSubPackageById(purchaseCreateRequestDto.getSubPackageId()))
-                .thenReturn(purchase.getSubPackage());
+        when(subPackageService.returnCatalogPackageById(purchaseCreateRequestDto.getSubPackageId()))
+                .thenReturn(newPackageDto(subPackage));
 
         when(purchaseRepository.save(any(Purchase.class))).thenReturn(purchase);
         when(modelDtoConverter.purchaseToPurchaseDto(purchase)).thenReturn(purchaseDto);
@@ -110,10 +146,33 @@ class PurchaseServiceTest extends TestSupport {
 
         assertEquals(test, purchaseDto);
 
-        verify(accountService).returnAccountById("accountId");
-        verify(subPackageService).returnSubPackageById(1L);
+        verify(accountService).debitAccount(ACCOUNT_ID, BigDecimal.valueOf(100));
+        verify(accountService).returnAccountReference(ACCOUNT_ID);
+        verify(subPackageService).returnCatalogPackageById(1L);
+        verify(subPackageService, never()).returnSubPackageById(any());
         verify(purchaseRepository).save(any(Purchase.class));
         verify(modelDtoConverter).purchaseToPurchaseDto(purchase);
+        verify(outboxService).enqueue("notification", purchaseDto);
+    }
+
+    @DisplayName("createPurchase when Debit Is Rejected Test")
+    @Test
+    void whenCreatePurchase_withDebitRejected_itShouldThrowInsufficientFundsException() {
+        SubPackage subPackage = newSubPackage(1L);
+        PurchaseCreateRequestDto purchaseCreateRequestDto = new PurchaseCreateRequestDto(
+                ACCOUNT_ID, 1L, (short) 100);
+
+        when(subPackageService.returnCatalogPackageById(purchaseCreateRequestDto.getSubPackageId()))
+                .thenReturn(newPackageDto(subPackage));
+        when(accountService.debitAccount(ACCOUNT_ID, BigDecimal.valueOf(100))).thenReturn(false);
+
+        assertThrows(InsufficientFundsException.class,
+                () -> purchaseService.createPurchase(purchaseCreateRequestDto));
+
+        verify(accountService).debitAccount(ACCOUNT_ID, BigDecimal.valueOf(100));
+        verify(accountService, never()).returnAccountReference(anyString());
+        verifyNoInteractions(purchaseRepository);
+        verifyNoInteractions(outboxService);
     }
 
     @DisplayName("createPurchase with Invalid Request Test")
@@ -142,8 +201,8 @@ class PurchaseServiceTest extends TestSupport {
         PurchaseCreateRequestDto purchaseCreateRequestDto =
                 newPurchaseCreateRequestDto(account.getId(), Objects.requireNonNull(purchase.getSubPackage()).getId());
 
-        when(subPackageService.returnSubPackageById(purchaseCreateRequestDto.getSubPackageId()))
-                .thenReturn(purchase.getSubPackage());
+        when(subPackageService.returnCatalogPackageById(purchaseCreateRequestDto.getSubPackageId()))
+                .thenReturn(newPackageDto(Objects.requireNonNull(purchase.getSubPackage())));
 
         assertThrows(PurchaseNotPossibleException.class,
                 () -> purchaseService.createPurchase(purchaseCreateRequestDto));
@@ -153,25 +212,169 @@ class PurchaseServiceTest extends TestSupport {
         verifyNoInteractions(modelDtoConverter);
     }
 
-    @DisplayName("deletePurchase with Valid Id Test")
+    @DisplayName("createPurchases with Mixed Requests Test")
     @Test
-    void whenDeletePurchaseCalled_withAValidId_itShouldDeletePurchaseAndUpdateAccount() {
-        Account account = newAccount("id", "id", 200L, Set.of());
-        Purchase purchase = newPurchase(account, "validId", 1L);
+    void whenCreatePurchases_withMixedRequests_itShouldReturnOneResultPerRequest() {
+        Account account = newAccount(ACCOUNT_ID, "customerId", 150L, Set.of());
+        SubPackage subPackage = newSubPackage(1L);
+        SubPackage forbiddenSubPackage = newForbiddenSubPackage(2L);
+        PackageDto packageDto = newPackageDto(subPackage);
 
-        AccountUpdateRequestDto accountUpdateRequestDto = new AccountUpdateRequestDto(
-                Objects.requireNonNull(account.getAccountBalance()).add(BigDecimal.valueOf(purchase.getPackagePrice())),
-                Objects.requireNonNull(Objects.requireNonNull(purchase.getAccount()).getTariffType())
-        );
+        List<PurchaseCreateRequestDto> requests = List.of(
+                new PurchaseCreateRequestDto(ACCOUNT_ID, 1L, (short) 100),
+                new PurchaseCreateRequestDto(ACCOUNT_ID, 1L, (short) 100),
+                new PurchaseCreateRequestDto(ACCOUNT_ID, 2L, (short) 10),
+                new PurchaseCreateRequestDto(ACCOUNT_ID, 3L, (short) 10),
+                new PurchaseCreateRequestDto(MISSING_ID, 1L, (short) 10),
+                new PurchaseCreateRequestDto("notAnId", 1L, (short) 10));
+
+        when(subPackageService.returnCatalogPackagesByIds(Set.of(1L, 2L, 3L)))
+                .thenReturn(Map.of(1L, packageDto, 2L, newPackageDto(forbiddenSubPackage)));
+        when(accountService.returnAccountsByIds(Set.of(ACCOUNT_ID, MISSING_ID)))
+                .thenReturn(Map.of(ACCOUNT_ID, account));
+        when(accountService.returnBalancesOf(any())).thenReturn(Map.of(ACCOUNT_ID, BigDecimal.valueOf(150)));
+        when(accountService.debitAccount(ACCOUNT_ID, BigDecimal.valueOf(100))).thenReturn(true);
+        when(modelDtoConverter.purchaseToPurchaseDto(any(Purchase.class))).thenAnswer(invocation ->
+                new PurchaseDto("purchaseId", LocalDateTime.now(), packageDto));
+
+        List<Object> test = purchaseService.createPurchases(requests);
+
+        assertEquals(6, test.size());
+        assertInstanceOf(PurchaseDto.class, test.get(0));
+        assertEquals((short) 402, ((ExceptionDto) test.get(1)).getCode());
+        assertEquals((short) 403, ((ExceptionDto) test.get(2)).getCode());
+        assertEquals(new ExceptionDto((short) 404, "No package found with this id: 3"), test.get(3));
+        assertEquals(new ExceptionDto((short) 404, "No account found with this id: " + MISSING_ID), test.get(4));
+        assertEquals(new ExceptionDto((short) 400, "Not a valid id: notAnId"), test.get(5));
+
+        verify(accountService).debitAccount(ACCOUNT_ID, BigDecimal.valueOf(100));
+        verify(purchaseRepository).saveAll(argThat(purchases -> purchases.iterator().hasNext()));
+        verify(outboxService).enqueueAll(eq("notification"), argThat(purchaseDtos -> purchaseDtos.size() == 1));
+    }
+
+    @DisplayName("createPurchases when Guarded Debit Fails Test")
+    @Test
+    void whenCreatePurchases_withDebitRejected_itShouldRejectEveryLineOfThatAccount() {
+        Account account = newAccount(ACCOUNT_ID, "customerId", 500L, Set.of());
+        SubPackage subPackage = newSubPackage(1L);
 
-        when(purchaseRepository.findById("validId")).thenReturn(Optional.of(purchase));
+        List<PurchaseCreateRequestDto> requests = List.of(
+                new PurchaseCreateRequestDto(ACCOUNT_ID, 1L, (short) 100),
+                new PurchaseCreateRequestDto(ACCOUNT_ID, 1L, (short) 100));
+
+        when(subPackageService.returnCatalogPackagesByIds(Set.of(1L))).thenReturn(Map.of(1L, newPackageDto(subPackage)));
+        when(accountService.returnAccountsByIds(Set.of(ACCOUNT_ID))).thenReturn(Map.of(ACCOUNT_ID, account));
+        when(accountService.returnBalancesOf(any())).thenReturn(Map.of(ACCOUNT_ID, account.getAccountBalance()));
+        when(accountService.debitAccount(ACCOUNT_ID, BigDecimal.valueOf(200))).thenReturn(false);
+
+        List<Object> test = purchaseService.createPurchases(requests);
+
+        assertEquals((short) 402, ((ExceptionDto) test.get(0)).getCode());
+        assertEquals((short) 402, ((ExceptionDto) test.get(1)).getCode());
+        verify(purchaseRepository).saveAll(argThat(purchases -> !purchases.iterator().hasNext()));
+        verify(outboxService).enqueueAll(eq("notification"), argThat(Collection::isEmpty));
+    }
+
+    @DisplayName("createPurchases when Guarded Debit Fails but Some Lines Fit Test")
+    @Test
+    void whenCreatePurchases_withDebitRejected_itShouldStillAcceptTheLinesTheBalanceCovers() {
+        Account account = newAccount(ACCOUNT_ID, "customerId", 500L, Set.of());
+        SubPackage subPackage = newSubPackage(1L);
+        PackageDto packageDto = newPackageDto(subPackage);
+
+        List<PurchaseCreateRequestDto> requests = List.of(
+                new PurchaseCreateRequestDto(ACCOUNT_ID, 1L, (short) 100),
+                new PurchaseCreateRequestDto(ACCOUNT_ID, 1L, (short) 100));
+
+        when(subPackageService.returnCatalogPackagesByIds(Set.of(1L))).thenReturn(Map.of(1L, packageDto));
+        when(accountService.returnAccountsByIds(Set.of(ACCOUNT_ID))).thenReturn(Map.of(ACCOUNT_ID, account));
+        when(accountService.returnBalancesOf(any())).thenReturn(Map.of(ACCOUNT_ID, account.getAccountBalance()));
+        when(accountService.debitAccount(ACCOUNT_ID, BigDecimal.valueOf(200))).thenReturn(false);
+        when(accountService.debitAccount(ACCOUNT_ID, BigDecimal.valueOf(100))).thenReturn(true, false);
+        when(modelDtoConverter.purchaseToPurchaseDto(any(Purchase.class))).thenAnswer(invocation ->
+                new PurchaseDto("purchaseId", LocalDateTime.now(), packageDto));
+
+        List<Object> test = purchaseService.createPurchases(requests);
+
+        assertInstanceOf(PurchaseDto.class, test.get(0));
+        assertEquals((short) 402, ((ExceptionDto) test.get(1)).getCode());
+        verify(accountService, times(2)).debitAccount(ACCOUNT_ID, BigDecimal.valueOf(100));
+        verify(outboxService).enqueueAll(eq("notification"), argThat(purchaseDtos -> purchaseDtos.size() == 1));
+    }
+
+    @DisplayName("consumeBatch Test")
+    @Test
+    void whenConsumeBatch_itShouldReplyOnceWithAResultPerOrder() {
+        Account account = newAccount(ACCOUNT_ID, "customerId", 500L, Set.of());
+        PackageDto packageDto = newPackageDto(newSubPackage(1L));
+
+        PurchaseOrderBatchDto batch = new PurchaseOrderBatchDto(List.of(
+                new PurchaseOrderDto(ACCOUNT_ID.toUpperCase(), 1L, (short) 100),
+                new PurchaseOrderDto(ACCOUNT_ID, 2L, (short) 100)));
+
+        when(subPackageService.returnCatalogPackagesByIds(Set.of(1L, 2L))).thenReturn(Map.of(1L, packageDto));
+        when(accountService.returnAccountsByIds(Set.of(ACCOUNT_ID))).thenReturn(Map.of(ACCOUNT_ID, account));
+        when(accountService.returnBalancesOf(any())).thenReturn(Map.of(ACCOUNT_ID, account.getAccountBalance()));
+        when(accountService.debitAccount(ACCOUNT_ID, BigDecimal.valueOf(100))).thenReturn(true);
+        when(modelDtoConverter.purchaseToPurchaseDto(any(Purchase.class))).thenAnswer(invocation ->
+                new PurchaseDto("purchaseId", LocalDateTime.now(), packageDto));
+
+        PurchaseOrderBatchReplyDto test = purchaseService.consumeBatch(batch);
+
+        assertEquals(2, test.getResults().size());
+        assertEquals("purchaseId", Objects.requireNonNull(test.getResults().get(0).getPurchase()).getId());
+        assertNull(test.getResults().get(0).getError());
+        assertNull(test.getResults().get(1).getPurchase());
+        assertEquals(new ExceptionDto((short) 404, "No package found with this id: 2"), test.getResults().get(1).getError());
+        verify(purchaseRepository).saveAll(any());
+    }
+
+    @DisplayName("deletePurchase with Valid Id Test")
+    @Test
+    void whenDeletePurchaseCalled_withAValidId_itShouldDeletePurchaseAndCreditAccount() {
+        PurchaseRepository.Refund refund = mock(PurchaseRepository.Refund.class);
+        when(refund.getAccountId()).thenReturn(ACCOUNT_ID);
+        when(refund.getPackagePrice()).thenReturn((short) 30);
+        when(refund.getPurchaseDate()).thenReturn(LocalDateTime.of(2023, 1, 2, 15, 49));
+        when(purchaseRepository.findRecentRefundById(eq("validId"), any(LocalDateTime.class)))
+                .thenReturn(Optional.of(refund));
+        when(purchaseRepository.deleteInBulkById("validId", LocalDateTime.of(2023, 1, 2, 15, 49))).thenReturn(1);
 
         purchaseService.deletePurchase("validId");
 
-        verify(purchaseRepository).findById("validId");
-        verify(accountService).updateAccount(accountUpdateRequestDto, account.getId());
-        verify(accountService).syncAccount(purchase);
-        verify(subPackageService).syncPackage(purchase);
-        verify(purchaseRepository).deleteById("validId");
+        verify(purchaseRepository).deleteInBulkById("validId", LocalDateTime.of(2023, 1, 2, 15, 49));
+        verify(purchaseRepository, never()).findRefundById(any());
+        verify(accountService).creditAccount(ACCOUNT_ID, BigDecimal.valueOf(30));
+        verify(purchaseRepository, never()).findDetailById(any());
+        verify(accountService, never()).updateAccount(any(), any());
+    }
+
+    @DisplayName("deletePurchase with Invalid Id Test")
+    @Test
+    void whenDeletePurchaseCalled_withAnInvalidId_itShouldThrowEntryNotFoundException() {
+        when(purchaseRepository.findRecentRefundById(eq("invalidId"), any(LocalDateTime.class)))
+                .thenReturn(Optional.empty());
+        when(purchaseRepository.findRefundById("invalidId")).thenReturn(Optional.empty());
+
+        assertThrows(EntryNotFoundException.class, () -> purchaseService.deletePurchase("invalidId"));
+
+        verify(purchaseRepository, never()).deleteInBulkById(any(), any());
+        verifyNoInteractions(accountService);
+    }
+
+    @DisplayName("deletePurchase when Deleted Concurrently Test")
+    @Test
+    void whenDeletePurchaseCalled_afterAConcurrentDelete_itShouldNotCreditTwice() {
+        PurchaseRepository.Refund refund = mock(PurchaseRepository.Refund.class);
+        when(refund.getAccountId()).thenReturn(ACCOUNT_ID);
+        when(refund.getPackagePrice()).thenReturn((short) 30);
+        when(refund.getPurchaseDate()).thenReturn(LocalDateTime.of(2023, 1, 2, 15, 49));
+        when(purchaseRepository.findRecentRefundById(eq("validId"), any(LocalDateTime.class)))
+                .thenReturn(Optional.of(refund));
+        when(purchaseRepository.deleteInBulkById("validId", LocalDateTime.of(2023, 1, 2, 15, 49))).thenReturn(0);
+
+        assertThrows(EntryNotFoundException.class, () -> purchaseService.deletePurchase("validId"));
+
+        verifyNoInteractions(accountService);
     }
-}
\ No newline at end of file
+}
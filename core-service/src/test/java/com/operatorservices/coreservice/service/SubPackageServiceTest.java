@@ -7,12 +7,16 @@ import com.operatorservices.coreservice.dto.PackageRequestDto;
 import com.operatorservices.coreservice.dto.converter.ModelDtoConverter;
 import com.operatorservices.coreservice.exception.EntryNotFoundException;
 import com.operatorservices.coreservice.model.Account;
-import com.operatorservices.coreservice.model.Purchase;
 import com.operatorservices.coreservice.model.SubPackage;
+import com.operatorservices.coreservice.repository.AccountRepository;
 import com.operatorservices.coreservice.repository.SubPackageRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 
 import java.util.*;
 
@@ -23,13 +27,17 @@ class SubPackageServiceTest extends TestSupport {
 
     private SubPackageRepository packageRepository;
     private ModelDtoConverter modelDtoConverter;
+    private PackageCatalog packageCatalog;
     private SubPackageService packageService;
+    private AccountRepository accountRepository;
 
     @BeforeEach
     void setUp() {
         packageRepository = mock(SubPackageRepository.class);
         modelDtoConverter = mock(ModelDtoConverter.class);
-        packageService = new SubPackageService(packageRepository, modelDtoConverter);
+        packageCatalog = mock(PackageCatalog.class);
+        accountRepository = mock(AccountRepository.class);
+        packageService = new SubPackageService(packageRepository, modelDtoConverter, packageCatalog, accountRepository);
     }
 
     @DisplayName("getPackageById with a Valid Id Test")
@@ -62,39 +70,37 @@ class SubPackageServiceTest extends TestSupport {
         verifyNoInteractions(modelDtoConverter);
     }
 
-    @DisplayName("getAllPackages Test")
+    @DisplayName("getPackages Test")
     @Test
-    void getAllPackages() {
+    void getPackages() {
         SubPackage subPackage1 = newSubPackage(1L);
         SubPackage subPackage2 = newSubPackage(2L);
+        PageRequest expected = PageRequest.of(0, 20, Sort.by(Sort.Direction.DESC, "name").and(Sort.by("id")));
 
-        when(packageRepository.findAll()).thenReturn(List.of(subPackage1, subPackage2));
+        when(packageRepository.findAll(expected)).thenReturn(new PageImpl<>(List.of(subPackage1, subPackage2)));
         when(modelDtoConverter.packageToPackageDto(subPackage1)).thenReturn(newPackageDto(subPackage1));
         when(modelDtoConverter.packageToPackageDto(subPackage2)).thenReturn(newPackageDto(subPackage2));
 
-        List<PackageDto> test = packageService.getAllPackages();
+        Page<PackageDto> test = packageService.getPackages(PageRequest.of(0, 20, Sort.by(Sort.Direction.DESC, "name")));
 
-        assertEquals(test, List.of(newPackageDto(subPackage1), newPackageDto(subPackage2)));
+        assertEquals(test.getContent(), List.of(newPackageDto(subPackage1), newPackageDto(subPackage2)));
 
-        verify(packageRepository).findAll();
+        verify(packageRepository).findAll(expected);
         verify(modelDtoConverter).packageToPackageDto(subPackage1);
         verify(modelDtoConverter).packageToPackageDto(subPackage2);
     }
 
     @DisplayName("getAccountsByPackage with Valid Id")
     @Test
-    void whenGetAccountsByPackageCalled_withValidId_itShouldReturnListOfAccountDto() {
+    void whenGetAccountsByPackageCalled_withValidId_itShouldReturnPageOfAccountDto() {
 
         Account account1 = newAccount("account1", "customer1", 100L, Set.of());
         Account account2 = newAccount("account2", "customer2", 100L, Set.of());
+        PageRequest expected = PageRequest.of(0, 20, Sort.by("id"));
 
-        Purchase purchase1 = newPurchase(account1, "purchase1", 1L);
-        Purchase purchase2 = newPurchase(account2, "purchase2", 1L);
-
-        SubPackage subPackage = newSubPackage(1L, Set.of(purchase1, purchase2));
-
-
-        when(packageRepository.findById(1L)).thenReturn(Optional.ofNullable(subPackage));
+        when(packageRepository.existsById(1L)).thenReturn(true);
+        when(accountRepository.findByPurchasedPackageId(1L, expected))
+                .thenReturn(new PageImpl<>(List.of(account1, account2)));
 
         when(modelDtoConverter.accountToGetAccountsByPackageDto(account1))
                 .thenReturn(newGetAccountsByPackageDto(account1));
@@ -102,14 +108,13 @@ class SubPackageServiceTest extends TestSupport {
         when(modelDtoConverter.accountToGetAccountsByPackageDto(account2))
                 .thenReturn(newGetAccountsByPackageDto(account2));
 
-        List<GetAccountsByPackageDto> test = packageService.getAccountsByPackage(1L);
-        test.sort(Comparator.comparing(GetAccountsByPackageDto::getId));
+        Page<GetAccountsByPackageDto> test = packageService.getAccountsByPackage(1L, PageRequest.of(0, 20));
 
-        assertEquals(test, List.of(
+        assertEquals(test.getContent(), List.of(
                 newGetAccountsByPackageDto(account1),
                 newGetAccountsByPackageDto(account2)));
 
-        verify(packageRepository).findById(1L);
+        verify(accountRepository).findByPurchasedPackageId(1L, expected);
         verify(modelDtoConverter).accountToGetAccountsByPackageDto(account1);
         verify(modelDtoConverter).accountToGetAccountsByPackageDto(account2);
     }
@@ -130,6 +135,31 @@ class SubPackageServiceTest extends TestSupport {
 
         verify(packageRepository).save(any(SubPackage.class));
         verify(modelDtoConverter).packageToPackageDto(subPackage);
+        verify(packageCatalog).invalidate(1L);
+    }
+
+    @DisplayName("createPackages Test")
+    @Test
+    void whenCreatePackagesCalled_itShouldSaveThemTogetherAndReturnPackageDtos() {
+
+        SubPackage subPackage1 = newSubPackage(1L);
+        SubPackage subPackage2 = newSubPackage(2L);
+        PackageDto packageDto1 = newPackageDto(subPackage1);
+        PackageDto packageDto2 = newPackageDto(subPackage2);
+
+        when(packageRepository.saveAll(anyList())).thenReturn(List.of(subPackage1, subPackage2));
+        when(modelDtoConverter.packageToPackageDto(subPackage1)).thenReturn(packageDto1);
+        when(modelDtoConverter.packageToPackageDto(subPackage2)).thenReturn(packageDto2);
+
+        List<PackageDto> test = packageService.createPackages(
+                List.of(newPackageRequestDto(subPackage1), newPackageRequestDto(subPackage2)));
+
+        assertEquals(test, List.of(packageDto1, packageDto2));
+
+        verify(packageRepository).saveAll(argThat(subPackages -> ((List<?>) subPackages).size() == 2));
+        verify(packageRepository, never()).save(any(SubPackage.class));
+        verify(packageCatalog).invalidate(1L);
+        verify(packageCatalog).invalidate(2L);
     }
 
     @DisplayName("updatePackage with Valid Id Test ")
@@ -151,23 +181,27 @@ class SubPackageServiceTest extends TestSupport {
         verify(packageRepository).findById(Objects.requireNonNull(subPackage.getId()));
         verify(packageRepository).save(any(SubPackage.class));
         verify(modelDtoConverter).packageToPackageDto(subPackage);
+        verify(packageCatalog).invalidate(1L);
     }
 
-    @DisplayName("syncPackage Test")
+    @DisplayName("returnCatalogPackageById with Valid Id Test")
     @Test
-    void whenSyncPackageCalled_itShouldUpdateSubPackage() {
+    void whenReturnCatalogPackageByIdCalled_withAValidId_itShouldNotQueryTheRepository() {
+        PackageDto packageDto = newPackageDto(newSubPackage(1L));
 
-        Account account = newAccount("id", "id", 100L, Set.of());
-        Purchase purchase = newPurchase(account, "purchaseId", 1L);
-        SubPackage subPackage = newSubPackage(1L, new HashSet<>(Collections.singleton(purchase)));
+        when(packageCatalog.get(1L)).thenReturn(packageDto);
 
-        when(packageRepository.findById(1L)).thenReturn(Optional.of(subPackage));
-        when(packageRepository.save(any(SubPackage.class))).thenReturn(subPackage);
+        assertEquals(packageDto, packageService.returnCatalogPackageById(1L));
 
-        packageService.syncPackage(purchase);
+        verifyNoInteractions(packageRepository);
+    }
 
-        verify(packageRepository).findById(1L);
-        verify(packageRepository).save(any(SubPackage.class));
+    @DisplayName("returnCatalogPackageById with Invalid Id Test")
+    @Test
+    void whenReturnCatalogPackageByIdCalled_withAnInvalidId_itShouldThrowEntryNotFoundException() {
+        when(packageCatalog.get(404L)).thenReturn(null);
+
+        assertThrows(EntryNotFoundException.class, () -> packageService.returnCatalogPackageById(404L));
     }
 
     /*
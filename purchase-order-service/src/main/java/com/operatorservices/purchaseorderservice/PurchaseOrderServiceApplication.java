@@ -3,9 +3,11 @@ package com.operatorservices.purchaseorderservice;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 
 @SpringBootApplication
+@EnableScheduling
 public class PurchaseOrderServiceApplication {
 
 	public static void main(String[] args) {
@@ -1,20 +1,22 @@
 package com.operatorservices.purchaseorderservice.config;
 
-import com.operatorservices.purchaseorderservice.dto.PurchaseOrderDto;
+import com.operatorservices.purchaseorderservice.service.IdempotencyService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.admin.Admin;
 import org.apache.kafka.clients.admin.NewTopic;
-import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaAdmin;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.core.ProducerFactory;
 import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
 import org.springframework.kafka.requestreply.ReplyingKafkaTemplate;
+import org.springframework.kafka.support.TopicPartitionOffset;
 
-import java.util.Properties;
-import java.util.UUID;
+import java.time.Duration;
 
 
 @Configuration
@@ -23,32 +25,54 @@ public class KafkaConfig {
     @Value("${kafka.reply-topic}")
     private String replyTopic;
 
+    @Value("${kafka.reply-topic-partitions}")
+    private int replyTopicPartitions;
+
+    @Value("${kafka.reply-timeout-ms}")
+    private long replyTimeoutMs;
+
+    @Value("${kafka.purchase-order.status-topic}")
+    private String statusTopic;
+
+    @Value("${kafka.purchase-order.partitions}")
+    private int purchaseOrderPartitions;
+
     @Bean
-    public ReplyingKafkaTemplate<String, PurchaseOrderDto, Object> replyingKafkaTemplate(
-      ProducerFactory<String, PurchaseOrderDto> producerFactory,
-      ConcurrentKafkaListenerContainerFactory<String, Object> listenerContainerFactory
+    public ReplyingKafkaTemplate<String, Object, Object> replyingKafkaTemplate(
+      ProducerFactory<String, Object> producerFactory,
+      ConcurrentKafkaListenerContainerFactory<String, Object> listenerContainerFactory,
+      ReplyPartitionLease replyPartitionLease,
+      MeterRegistry meterRegistry,
+      IdempotencyService idempotencyService
     ){
 
+        //With a single assigned partition the template also sends it as the reply-partition header,
+        //so core-service answers on the partition this instance alone reads.
         ConcurrentMessageListenerContainer<String, Object> replyContainer
-                = listenerContainerFactory.createContainer(replyTopic);
+                = listenerContainerFactory.createContainer(new TopicPartitionOffset(
+                        replyTopic, replyPartitionLease.getPartition(), TopicPartitionOffset.SeekPosition.END));
 
-        replyContainer.getContainerProperties().setGroupId(UUID.randomUUID().toString());
+        replyContainer.getContainerProperties().setGroupId(replyTopic + "-" + replyPartitionLease.getPartition());
         replyContainer.getContainerProperties().setMissingTopicsFatal(false);
-
-        Properties properties = new Properties();
-        properties.setProperty(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
-
-        replyContainer.getContainerProperties().setKafkaConsumerProperties(properties);
+        replyPartitionLease.whenLost(replyContainer::stop);
 
         //replyContainer.getContainerProperties().setObservationEnabled(true);
 
-        ReplyingKafkaTemplate<String, PurchaseOrderDto, Object> replyingKafkaTemplate =
-                new ReplyingKafkaTemplate<>(producerFactory, replyContainer);
+        ReplyingKafkaTemplate<String, Object, Object> replyingKafkaTemplate =
+                new MeteredReplyingKafkaTemplate<>(producerFactory, replyContainer, meterRegistry,
+                        idempotencyService::completeLate);
         replyingKafkaTemplate.setObservationEnabled(true);
+        replyingKafkaTemplate.setDefaultReplyTimeout(Duration.ofMillis(replyTimeoutMs));
 
         return replyingKafkaTemplate;
     }
 
+    //Reads the offsets of core-service's consumer group for ConsumerLagMonitor.
+    @Bean
+    public Admin consumerLagAdmin(KafkaAdmin kafkaAdmin) {
+        return Admin.create(kafkaAdmin.getConfigurationProperties());
+    }
+
     //Following bean does not make any difference in terms of observation as of Spring Boot 3.0.6
 /*    @Bean
     public ConcurrentKafkaListenerContainerFactory<String, Object> kafkaListenerContainerFactory(
@@ -65,12 +89,22 @@ public class KafkaConfig {
 
     @Bean
     public NewTopic replyTopic() {
-        return new NewTopic(replyTopic, 1, (short) 1);
+        return new NewTopic(replyTopic, replyTopicPartitions, (short) 1);
     }
 
     @Bean
     public NewTopic purchaseOrderTopic() {
-        return new NewTopic("purchase-order", 2, (short) 1);
+        return new NewTopic("purchase-order", purchaseOrderPartitions, (short) 1);
+    }
+
+    @Bean
+    public NewTopic purchaseOrderBatchTopic() {
+        return new NewTopic("purchase-order-batch", purchaseOrderPartitions, (short) 1);
+    }
+
+    @Bean
+    public NewTopic purchaseOrderStatusTopic() {
+        return new NewTopic(statusTopic, purchaseOrderPartitions, (short) 1);
     }
 
     @Bean
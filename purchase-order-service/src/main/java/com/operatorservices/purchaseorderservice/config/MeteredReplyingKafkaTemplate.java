@@ -0,0 +1,38 @@
+package com.operatorservices.purchaseorderservice.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.listener.GenericMessageListenerContainer;
+import org.springframework.kafka.requestreply.ReplyingKafkaTemplate;
+
+import java.util.function.BiConsumer;
+
+//Counts replies that arrive without a waiting request: late replies after a timeout,
+//or replies to another instance while reply partitions are shared. Each is also handed to
+//lateReplyHandler with its correlation id, so that the outcome of a timed-out order is not lost.
+public class MeteredReplyingKafkaTemplate<K, V, R> extends ReplyingKafkaTemplate<K, V, R> {
+
+    private final Counter discardedReplies;
+    private final BiConsumer<String, R> lateReplyHandler;
+
+    public MeteredReplyingKafkaTemplate(ProducerFactory<K, V> producerFactory,
+                                        GenericMessageListenerContainer<K, R> replyContainer,
+                                        MeterRegistry meterRegistry,
+                                        BiConsumer<String, R> lateReplyHandler) {
+
+        super(producerFactory, replyContainer);
+        this.lateReplyHandler = lateReplyHandler;
+        this.discardedReplies = Counter.builder("kafka.reply.discarded")
+                .description("Replies received without a pending request")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected void logLateArrival(ConsumerRecord<K, R> record, Object correlationId) {
+        discardedReplies.increment();
+        super.logLateArrival(record, correlationId);
+        lateReplyHandler.accept(correlationId.toString(), record.value());
+    }
+}
@@ -0,0 +1,106 @@
+package com.operatorservices.purchaseorderservice.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.UUID;
+
+//Hands every instance a reply-topic partition of its own, so that it only reads the replies to its own requests.
+//Replicas share one configuration, hence the partition is leased from Redis unless kafka.reply-partition pins it.
+//An instance whose lease was taken over (say, after Redis lost it during a long pause) stops reading replies and
+//reports itself down, so that it is taken out of service; restarted, it leases a free partition.
+@Component
+public class ReplyPartitionLease implements HealthIndicator {
+
+    private static final String KEY_PREFIX = "reply-partition:";
+    private static final Logger logger = LoggerFactory.getLogger(ReplyPartitionLease.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final String owner = UUID.randomUUID().toString();
+    private int partition = -1;
+    private volatile boolean lost;
+    private volatile Runnable onLost = () -> { };
+
+    @Value("${kafka.reply-topic-partitions}")
+    private int replyTopicPartitions;
+
+    @Value("${kafka.reply-partition:-1}")
+    private int fixedPartition;
+
+    @Value("${kafka.reply-partition.lease-ms}")
+    private long leaseMs;
+
+    public ReplyPartitionLease(StringRedisTemplate stringRedisTemplate) {
+        this.stringRedisTemplate = stringRedisTemplate;
+    }
+
+    @PostConstruct
+    public void claim() {
+
+        if (fixedPartition >= 0) {
+            partition = fixedPartition;
+            return;
+        }
+
+        for (int candidate = 0; candidate < replyTopicPartitions; candidate++) {
+            if (Boolean.TRUE.equals(stringRedisTemplate.opsForValue()
+                    .setIfAbsent(KEY_PREFIX + candidate, owner, Duration.ofMillis(leaseMs)))) {
+                partition = candidate;
+                logger.info("Leased reply partition {}", partition);
+                return;
+            }
+        }
+        throw new IllegalStateException("All " + replyTopicPartitions + " reply partitions are leased by running"
+                + " instances: at most kafka.reply-topic-partitions instances can run, raise it to start more");
+    }
+
+    public int getPartition() {
+        return partition;
+    }
+
+    //Called once, when another instance holds the lease at renewal.
+    public void whenLost(Runnable onLost) {
+        this.onLost = onLost;
+    }
+
+    @Override
+    public Health health() {
+        if (lost) {
+            return Health.down().withDetail("replyPartition", partition)
+                    .withDetail("reason", "leased by another instance").build();
+        }
+        return Health.up().withDetail("replyPartition", partition).build();
+    }
+
+    @Scheduled(fixedDelayString = "#{${kafka.reply-partition.lease-ms} / 3}")
+    public void renew() {
+        if (fixedPartition >= 0 || lost) {
+            return;
+        }
+        String key = KEY_PREFIX + partition;
+        if (owner.equals(stringRedisTemplate.opsForValue().get(key))) {
+            stringRedisTemplate.expire(key, Duration.ofMillis(leaseMs));
+        } else if (!Boolean.TRUE.equals(stringRedisTemplate.opsForValue()
+                .setIfAbsent(key, owner, Duration.ofMillis(leaseMs)))) {
+            logger.error("Reply partition {} is leased by another instance, no longer reading replies", partition);
+            lost = true;
+            onLost.run();
+        }
+    }
+
+    @PreDestroy
+    public void release() {
+        if (fixedPartition < 0 && !lost && owner.equals(stringRedisTemplate.opsForValue().get(KEY_PREFIX + partition))) {
+            stringRedisTemplate.delete(KEY_PREFIX + partition);
+        }
+    }
+}
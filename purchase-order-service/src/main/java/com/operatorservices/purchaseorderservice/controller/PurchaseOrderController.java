@@ -1,15 +1,20 @@
 package com.operatorservices.purchaseorderservice.controller;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.operatorservices.purchaseorderservice.dto.ErrorRecordDto;
+import com.operatorservices.purchaseorderservice.dto.PurchaseOrderBatchDto;
 import com.operatorservices.purchaseorderservice.dto.PurchaseOrderDto;
+import com.operatorservices.purchaseorderservice.dto.PurchaseOrderStatusDto;
 import com.operatorservices.purchaseorderservice.service.PurchaseOrderService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import org.springframework.web.util.UriComponentsBuilder;
 
 import jakarta.validation.Valid;
 import java.util.List;
-import java.util.concurrent.ExecutionException;
+import java.util.concurrent.CompletableFuture;
 
 
 @RestController
@@ -23,11 +28,39 @@ public class PurchaseOrderController {
     }
 
     @PostMapping
-    public ResponseEntity<Object> sendPurchaseOrder(@Valid @RequestBody PurchaseOrderDto purchaseOrderDto)
-            throws ExecutionException, InterruptedException {
+    public CompletableFuture<ResponseEntity<Object>> sendPurchaseOrder(
+            @Valid @RequestBody PurchaseOrderDto purchaseOrderDto,
+            @RequestParam(defaultValue = "false") boolean async,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+            @RequestHeader(value = "Request-Timeout", required = false) Long requestTimeoutMs) {
 
-        Object reply = purchaseOrderService.sendPurchaseOrder(purchaseOrderDto);
-        return new ResponseEntity<>(reply, HttpStatus.CREATED);
+        purchaseOrderDto = purchaseOrderDto.normalized();
+        if (async) {
+            UriComponentsBuilder location = ServletUriComponentsBuilder.fromCurrentRequestUri().path("/{id}");
+            return purchaseOrderService.submitPurchaseOrder(purchaseOrderDto, idempotencyKey)
+                    .thenApply(status -> ResponseEntity
+                            .accepted()
+                            .location(location.buildAndExpand(status.getId()).toUri())
+                            .body(status));
+        }
+        return purchaseOrderService.sendPurchaseOrder(purchaseOrderDto, idempotencyKey, requestTimeoutMs)
+                .thenApply(reply -> new ResponseEntity<>(reply, HttpStatus.CREATED));
+    }
+
+    @PostMapping("/batch")
+    public CompletableFuture<ResponseEntity<Object>> sendPurchaseOrderBatch(
+            @Valid @RequestBody PurchaseOrderBatchDto purchaseOrderBatchDto,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+            @RequestHeader(value = "Request-Timeout", required = false) Long requestTimeoutMs) {
+
+        return purchaseOrderService.sendPurchaseOrderBatch(purchaseOrderBatchDto.normalized(), idempotencyKey, requestTimeoutMs)
+                .thenApply(ResponseEntity::ok);
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<PurchaseOrderStatusDto> getPurchaseOrderStatus(@PathVariable String id)
+            throws JsonProcessingException {
+        return ResponseEntity.ok(purchaseOrderService.getPurchaseOrderStatus(id));
     }
 
     @GetMapping("/errors")
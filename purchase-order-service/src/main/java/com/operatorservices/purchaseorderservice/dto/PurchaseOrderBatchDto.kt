@@ -0,0 +1,16 @@
+package com.operatorservices.purchaseorderservice.dto
+
+import jakarta.validation.Valid
+import jakarta.validation.constraints.NotEmpty
+import jakarta.validation.constraints.Size
+
+data class PurchaseOrderBatchDto(
+
+    @field: NotEmpty
+    @field: Size(max = 1000)
+    @field: Valid
+    val orders: List<PurchaseOrderDto>
+) {
+
+    fun normalized() = copy(orders = orders.map { it.normalized() })
+}
@@ -2,10 +2,12 @@ package com.operatorservices.purchaseorderservice.dto
 
 import jakarta.validation.constraints.Min
 import jakarta.validation.constraints.NotBlank
+import jakarta.validation.constraints.Pattern
 
 data class PurchaseOrderDto(
 
     @field: NotBlank
+    @field: Pattern(regexp = UUID_PATTERN, message = "must be a UUID")
     val accountId: String,
 
     @field: Min(1)
@@ -13,4 +15,12 @@ data class PurchaseOrderDto(
 
     @field: Min(0)
     val packagePrice: Short
-)
+) {
+
+    // Core keys its account lookups by the lowercase database id, so ids are lowercased before they are sent
+    fun normalized() = copy(accountId = accountId.lowercase())
+
+    companion object {
+        const val UUID_PATTERN = "[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}"
+    }
+}
@@ -0,0 +1,9 @@
+package com.operatorservices.purchaseorderservice.dto
+
+import com.operatorservices.purchaseorderservice.model.OrderState
+
+data class PurchaseOrderStatusDto(
+    val id: String,
+    val state: OrderState,
+    val reply: Any?
+)
@@ -0,0 +1,19 @@
+package com.operatorservices.purchaseorderservice.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class CoreServiceLaggingException extends RuntimeException{
+
+    private final long retryAfterSeconds;
+
+    public CoreServiceLaggingException(String errorMessage, long retryAfterSeconds){
+        super(errorMessage);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
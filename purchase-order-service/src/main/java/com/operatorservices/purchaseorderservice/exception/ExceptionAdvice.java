@@ -6,6 +6,7 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.http.ResponseEntity;
+import org.springframework.kafka.requestreply.KafkaReplyTimeoutException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -69,5 +70,40 @@ public class ExceptionAdvice extends ResponseEntityExceptionHandler {
         return exception.getMessage();
     }
 
+    @ResponseBody
+    @ResponseStatus(HttpStatus.CONFLICT)
+    @ExceptionHandler(RequestInProgressException.class)
+    String requestInProgressHandler(RequestInProgressException exception) {
+        return exception.getMessage();
+    }
+
+    @ResponseBody
+    @ResponseStatus(HttpStatus.UNPROCESSABLE_ENTITY)
+    @ExceptionHandler(IdempotencyKeyReusedException.class)
+    String idempotencyKeyReusedHandler(IdempotencyKeyReusedException exception) {
+        return exception.getMessage();
+    }
+
+    @ResponseBody
+    @ResponseStatus(HttpStatus.GATEWAY_TIMEOUT)
+    @ExceptionHandler(KafkaReplyTimeoutException.class)
+    String replyTimeoutHandler(KafkaReplyTimeoutException exception) {
+        return "No reply received for the purchase order in time";
+    }
+
+    @ExceptionHandler(OverloadedException.class)
+    ResponseEntity<String> overloadedHandler(OverloadedException exception) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(exception.getRetryAfterSeconds()))
+                .body(exception.getMessage());
+    }
+
+    @ExceptionHandler(CoreServiceLaggingException.class)
+    ResponseEntity<String> coreServiceLaggingHandler(CoreServiceLaggingException exception) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(exception.getRetryAfterSeconds()))
+                .body(exception.getMessage());
+    }
+
 
 }
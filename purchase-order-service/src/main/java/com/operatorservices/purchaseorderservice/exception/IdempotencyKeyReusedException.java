@@ -0,0 +1,12 @@
+package com.operatorservices.purchaseorderservice.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.UNPROCESSABLE_ENTITY)
+public class IdempotencyKeyReusedException extends RuntimeException{
+
+    public IdempotencyKeyReusedException(String errorMessage){
+        super(errorMessage);
+    }
+}
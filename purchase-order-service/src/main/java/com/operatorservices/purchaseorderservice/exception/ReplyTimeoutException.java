@@ -0,0 +1,19 @@
+package com.operatorservices.purchaseorderservice.exception;
+
+import org.springframework.kafka.requestreply.KafkaReplyTimeoutException;
+
+//A reply timeout of an order that was produced: core-service may still purchase it and reply late,
+//under the correlation id the order was sent with.
+public class ReplyTimeoutException extends KafkaReplyTimeoutException {
+
+    private final String correlationId;
+
+    public ReplyTimeoutException(String correlationId){
+        super("Reply timed out");
+        this.correlationId = correlationId;
+    }
+
+    public String getCorrelationId() {
+        return correlationId;
+    }
+}
@@ -0,0 +1,11 @@
+package com.operatorservices.purchaseorderservice.model
+
+data class IdempotentReply @JvmOverloads constructor(
+
+    val state: OrderState,
+    val type: String? = null,
+    val reply: String? = null,
+    //SHA-256 of the request body the key was first used with
+    val requestHash: String? = null
+
+)
@@ -0,0 +1,15 @@
+package com.operatorservices.purchaseorderservice.model
+
+
+//Kept in Redis as JSON under "purchase-order-status:<id>", with a plain key TTL (see PurchaseOrderService).
+data class PurchaseOrderStatus @JvmOverloads constructor(
+
+    val id: String,
+    val state: OrderState,
+    val reply: String? = null
+
+)
+
+enum class OrderState {
+    PENDING, COMPLETED, FAILED
+}
@@ -0,0 +1,110 @@
+package com.operatorservices.purchaseorderservice.service;
+
+import com.operatorservices.purchaseorderservice.exception.OverloadedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.requestreply.KafkaReplyTimeoutException;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//Bounds the orders waiting for a core-service reply. The limit is AIMD: it grows by one for a reply within
+//the target latency while at least half of it is in use, and is multiplied by the backoff ratio for a slower
+//reply or a reply timeout. Orders above the limit are rejected at once instead of queueing on the topic,
+//so the latency of the accepted ones stays near the target while core-service is behind.
+@Component
+public class AdmissionLimiter {
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Counter rejected;
+    private final int minLimit;
+    private final int maxLimit;
+    private final long targetLatencyNanos;
+    private final double backoffRatio;
+    private final long retryAfterSeconds;
+    private volatile double limit;
+
+    public AdmissionLimiter(MeterRegistry meterRegistry,
+                            @Value("${admission.initial-limit}") int initialLimit,
+                            @Value("${admission.min-limit}") int minLimit,
+                            @Value("${admission.max-limit}") int maxLimit,
+                            @Value("${admission.target-latency-ms}") long targetLatencyMs,
+                            @Value("${admission.backoff-ratio}") double backoffRatio,
+                            @Value("${admission.retry-after-seconds}") long retryAfterSeconds) {
+
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.targetLatencyNanos = TimeUnit.MILLISECONDS.toNanos(targetLatencyMs);
+        this.backoffRatio = backoffRatio;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.limit = initialLimit;
+
+        Gauge.builder("purchase.order.admission.in-flight", inFlight, AtomicInteger::get)
+                .description("Orders waiting for a core-service reply")
+                .register(meterRegistry);
+        Gauge.builder("purchase.order.admission.limit", this, AdmissionLimiter::getLimit)
+                .description("Current limit of orders waiting for a core-service reply")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("purchase.order.admission.rejected")
+                .description("Orders rejected because the limit was reached")
+                .register(meterRegistry);
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public Permit acquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= getLimit()) {
+                rejected.increment();
+                throw new OverloadedException("Too many purchase orders in progress, try again later",
+                        retryAfterSeconds);
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return new Permit(System.nanoTime());
+            }
+        }
+    }
+
+    private synchronized void onRelease(long latencyNanos, Throwable exception, boolean sampleLatency) {
+        int wasInFlight = inFlight.getAndDecrement();
+        Throwable cause = exception instanceof CompletionException && exception.getCause() != null
+                ? exception.getCause()
+                : exception;
+
+        if (cause instanceof KafkaReplyTimeoutException || (sampleLatency && latencyNanos > targetLatencyNanos)) {
+            limit = Math.max(minLimit, limit * backoffRatio);
+        } else if (cause == null && wasInFlight * 2 >= limit) {
+            limit = Math.min(maxLimit, limit + 1);
+        }
+    }
+
+    public class Permit {
+
+        private final long startNanos;
+
+        private Permit(long startNanos) {
+            this.startNanos = startNanos;
+        }
+
+        public void release(Throwable exception) {
+            onRelease(System.nanoTime() - startNanos, exception, true);
+        }
+
+        //For requests whose latency says nothing about the backlog (batches take longer by design):
+        //only a reply timeout lowers the limit.
+        public void releaseIgnoringLatency(Throwable exception) {
+            onRelease(System.nanoTime() - startNanos, exception, false);
+        }
+    }
+}
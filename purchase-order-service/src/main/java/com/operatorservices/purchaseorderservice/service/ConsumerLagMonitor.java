@@ -0,0 +1,150 @@
+package com.operatorservices.purchaseorderservice.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.clients.admin.ListOffsetsResult;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+//Estimates how long a new order would wait on its topic before core-service reads it: the lag of core-service's
+//consumer group divided by the rate at which its committed offsets advance (smoothed over polls).
+//PurchaseOrderService fails a request fast when that wait alone is longer than the request's deadline.
+//It fails open: a lag below min-lag, offsets that could not be read, or a rate not known yet (before two samples)
+//never fail a request. Without progress, consumers only count as stalled once the lag has stayed above min-lag
+//with the committed offsets standing still for stall-window-ms.
+@Component
+public class ConsumerLagMonitor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConsumerLagMonitor.class);
+    private static final double SMOOTHING = 0.5;
+
+    private final Admin admin;
+    private final String groupId;
+    private final List<String> topics;
+    private final long minLag;
+    private final long pollTimeoutMs;
+    private final long stallWindowNanos;
+    private final Map<String, TopicLag> topicLags = new ConcurrentHashMap<>();
+
+    private static class TopicLag {
+        private volatile long lag;
+        private volatile long committed = -1;
+        private volatile long sampledAtNanos;
+        private volatile double recordsPerSecond;
+        private volatile boolean rated;
+        //Sample time since which the lag stayed above min-lag with no progress, or -1
+        private volatile long stalledSinceNanos = -1;
+    }
+
+    public ConsumerLagMonitor(Admin admin,
+                              MeterRegistry meterRegistry,
+                              @Value("${kafka.consumer-lag.group-id}") String groupId,
+                              @Value("${kafka.consumer-lag.topics}") List<String> topics,
+                              @Value("${kafka.consumer-lag.min-lag}") long minLag,
+                              @Value("${kafka.consumer-lag.poll-interval-ms}") long pollTimeoutMs,
+                              @Value("${kafka.consumer-lag.stall-window-ms}") long stallWindowMs) {
+
+        this.admin = admin;
+        this.groupId = groupId;
+        this.topics = topics;
+        this.minLag = minLag;
+        this.pollTimeoutMs = pollTimeoutMs;
+        this.stallWindowNanos = TimeUnit.MILLISECONDS.toNanos(stallWindowMs);
+
+        topics.forEach(topic -> {
+            TopicLag topicLag = new TopicLag();
+            topicLags.put(topic, topicLag);
+            Gauge.builder("purchase.order.consumer.lag", topicLag, value -> value.lag)
+                    .description("Orders core-service has not consumed yet")
+                    .tag("topic", topic)
+                    .register(meterRegistry);
+            Gauge.builder("purchase.order.consumer.estimated-delay", this,
+                            monitor -> monitor.estimatedDelay(topic).toMillis())
+                    .description("Estimated wait of a new order before core-service consumes it")
+                    .baseUnit("milliseconds")
+                    .tag("topic", topic)
+                    .register(meterRegistry);
+        });
+    }
+
+    public Duration estimatedDelay(String topic) {
+        TopicLag topicLag = topicLags.get(topic);
+        if (topicLag == null || topicLag.lag < minLag || !topicLag.rated) {
+            return Duration.ZERO;
+        }
+        if (topicLag.recordsPerSecond <= 0) {
+            long stalledSince = topicLag.stalledSinceNanos;
+            return stalledSince >= 0 && topicLag.sampledAtNanos - stalledSince >= stallWindowNanos
+                    ? ChronoUnit.FOREVER.getDuration()
+                    : Duration.ZERO;
+        }
+        return Duration.ofMillis((long) (topicLag.lag / topicLag.recordsPerSecond * 1000));
+    }
+
+    @Scheduled(fixedDelayString = "${kafka.consumer-lag.poll-interval-ms}")
+    public void poll() {
+        try {
+            Map<TopicPartition, OffsetAndMetadata> committed = admin.listConsumerGroupOffsets(groupId)
+                    .partitionsToOffsetAndMetadata()
+                    .get(pollTimeoutMs, TimeUnit.MILLISECONDS)
+                    .entrySet().stream()
+                    .filter(entry -> entry.getValue() != null && topics.contains(entry.getKey().topic()))
+                    .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+
+            Map<TopicPartition, ListOffsetsResult.ListOffsetsResultInfo> ends = admin.listOffsets(committed.keySet()
+                            .stream()
+                            .collect(Collectors.toMap(Function.identity(), partition -> OffsetSpec.latest())))
+                    .all()
+                    .get(pollTimeoutMs, TimeUnit.MILLISECONDS);
+
+            long now = System.nanoTime();
+            topics.forEach(topic -> {
+                long committedSum = 0;
+                long endSum = 0;
+                for (Map.Entry<TopicPartition, OffsetAndMetadata> entry : committed.entrySet()) {
+                    if (entry.getKey().topic().equals(topic)) {
+                        committedSum += entry.getValue().offset();
+                        endSum += ends.get(entry.getKey()).offset();
+                    }
+                }
+                record(topic, committedSum, endSum, now);
+            });
+        } catch (Exception exception) {
+            logger.debug("Could not read the offsets of consumer group {}", groupId, exception);
+        }
+    }
+
+    protected void record(String topic, long committed, long end, long nowNanos) {
+        TopicLag topicLag = topicLags.get(topic);
+        long lag = Math.max(0, end - committed);
+        if (topicLag.committed >= 0 && nowNanos > topicLag.sampledAtNanos) {
+            double sample = (committed - topicLag.committed) * 1e9 / (nowNanos - topicLag.sampledAtNanos);
+            topicLag.recordsPerSecond = SMOOTHING * sample + (1 - SMOOTHING) * topicLag.recordsPerSecond;
+            topicLag.rated = true;
+            if (committed > topicLag.committed || lag < minLag) {
+                topicLag.stalledSinceNanos = -1;
+            } else if (topicLag.stalledSinceNanos < 0) {
+                topicLag.stalledSinceNanos = topicLag.sampledAtNanos;
+            }
+        }
+        topicLag.committed = committed;
+        topicLag.sampledAtNanos = nowNanos;
+        topicLag.lag = lag;
+    }
+}
@@ -0,0 +1,238 @@
+package com.operatorservices.purchaseorderservice.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.operatorservices.purchaseorderservice.exception.IdempotencyKeyReusedException;
+import com.operatorservices.purchaseorderservice.exception.ReplyTimeoutException;
+import com.operatorservices.purchaseorderservice.exception.RequestInProgressException;
+import com.operatorservices.purchaseorderservice.model.IdempotentReply;
+import com.operatorservices.purchaseorderservice.model.OrderState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.kafka.core.KafkaProducerException;
+import org.springframework.stereotype.Service;
+
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+//Runs an action once per Idempotency-Key. The first request claims the key in Redis, along with a hash of its
+//body; repeats share its future on the same instance, poll Redis on any other instance, and replay the stored
+//reply once it is done. A repeat with another body is rejected: it is a different request under a reused key.
+//The key is released only when the order provably never reached Kafka, so that a retry sends it. An order that
+//timed out may still be purchased: its key stays pending and the late reply completes it (completeLate).
+@Service
+public class IdempotencyService {
+
+    private static final String KEY_PREFIX = "idempotency:";
+    private static final String CORRELATION_PREFIX = "idempotency-correlation:";
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyService.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ObjectMapper objectMapper;
+    private final Map<String, InFlight> inFlight = new ConcurrentHashMap<>();
+
+    private record InFlight(String requestHash, CompletableFuture<Object> reply) {
+    }
+
+    @Value("${idempotency.ttl-seconds}")
+    private long ttlSeconds;
+
+    @Value("${idempotency.unknown-outcome-ttl-seconds}")
+    private long unknownOutcomeTtlSeconds;
+
+    @Value("${idempotency.poll-interval-ms}")
+    private long pollIntervalMs;
+
+    @Value("${kafka.reply-timeout-ms}")
+    private long replyTimeoutMs;
+
+    public IdempotencyService(StringRedisTemplate stringRedisTemplate, ObjectMapper objectMapper) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    private String write(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    private IdempotentReply read(String value) {
+        try {
+            return objectMapper.readValue(value, IdempotentReply.class);
+        } catch (JsonProcessingException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    private Object replay(IdempotentReply idempotentReply) {
+        try {
+            return objectMapper.readValue(idempotentReply.getReply(), Class.forName(idempotentReply.getType()));
+        } catch (JsonProcessingException exception) {
+            throw new UncheckedIOException(exception);
+        } catch (ClassNotFoundException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    private String hash(Object request) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                    .digest(write(request).getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    private static <T> CompletableFuture<T> reused() {
+        return CompletableFuture.failedFuture(new IdempotencyKeyReusedException(
+                "This Idempotency-Key was already used with a different request"));
+    }
+
+    //A failed send proves the order was not produced; a reply timeout or any other failure after the send
+    //leaves the outcome unknown.
+    private static boolean notSent(Throwable exception) {
+        Throwable cause = exception instanceof CompletionException && exception.getCause() != null
+                ? exception.getCause()
+                : exception;
+        return cause instanceof KafkaProducerException;
+    }
+
+    public CompletableFuture<Object> execute(String key, Object request, Supplier<CompletableFuture<Object>> action) {
+
+        return claim(key, hash(request), action);
+    }
+
+    private CompletableFuture<Object> claim(String key, String requestHash, Supplier<CompletableFuture<Object>> action) {
+
+        InFlight local = inFlight.get(key);
+        if (local != null) {
+            return local.requestHash().equals(requestHash) ? local.reply() : reused();
+        }
+
+        //A pending claim only outlives the reply timeout by a margin, so a crashed instance cannot block retries.
+        Boolean claimed = stringRedisTemplate.opsForValue().setIfAbsent(KEY_PREFIX + key,
+                write(new IdempotentReply(OrderState.PENDING, null, null, requestHash)),
+                Duration.ofMillis(2 * replyTimeoutMs));
+
+        if (Boolean.TRUE.equals(claimed)) {
+            return run(key, requestHash, action);
+        }
+        return await(key, requestHash, action, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(replyTimeoutMs));
+    }
+
+    private CompletableFuture<Object> run(String key, String requestHash, Supplier<CompletableFuture<Object>> action) {
+
+        CompletableFuture<Object> result = new CompletableFuture<>();
+        inFlight.put(key, new InFlight(requestHash, result));
+
+        CompletableFuture<Object> reply;
+        boolean thrown = false;
+        try {
+            reply = action.get();
+        } catch (RuntimeException exception) {
+            //Rejected by admission, failed fast on consumer lag, or the send could not even start.
+            reply = CompletableFuture.failedFuture(exception);
+            thrown = true;
+        }
+
+        boolean notProduced = thrown;
+        reply.whenComplete((value, exception) -> {
+            try {
+                if (exception == null) {
+                    complete(key, requestHash, value);
+                } else if (notProduced || notSent(exception)) {
+                    stringRedisTemplate.delete(KEY_PREFIX + key);
+                } else {
+                    keepPending(key, requestHash, exception);
+                }
+            } catch (RuntimeException redisException) {
+                logger.warn("Could not record the outcome for Idempotency-Key {}", key, redisException);
+            } finally {
+                inFlight.remove(key);
+            }
+            if (exception == null) {
+                result.complete(value);
+            } else {
+                result.completeExceptionally(exception);
+            }
+        });
+        return result;
+    }
+
+    private void complete(String key, String requestHash, Object value) {
+        stringRedisTemplate.opsForValue().set(KEY_PREFIX + key,
+                write(new IdempotentReply(OrderState.COMPLETED, value.getClass().getName(), write(value), requestHash)),
+                Duration.ofSeconds(ttlSeconds));
+    }
+
+    //Retries get 409 rather than a second purchase until the late reply arrives or unknown-outcome-ttl-seconds
+    //pass. A timed-out order is matched to its late reply by the correlation id it was sent with.
+    private void keepPending(String key, String requestHash, Throwable exception) {
+        Duration ttl = Duration.ofSeconds(unknownOutcomeTtlSeconds);
+        stringRedisTemplate.opsForValue().set(KEY_PREFIX + key,
+                write(new IdempotentReply(OrderState.PENDING, null, null, requestHash)), ttl);
+
+        Throwable cause = exception instanceof CompletionException ? exception.getCause() : exception;
+        if (cause instanceof ReplyTimeoutException) {
+            stringRedisTemplate.opsForValue().set(
+                    CORRELATION_PREFIX + ((ReplyTimeoutException) cause).getCorrelationId(), key, ttl);
+        }
+        logger.warn("Outcome unknown for Idempotency-Key {}, keeping it pending", key);
+    }
+
+    //Called for replies that arrive after their request stopped waiting (see MeteredReplyingKafkaTemplate).
+    public void completeLate(String correlationId, Object value) {
+
+        String key = stringRedisTemplate.opsForValue().getAndDelete(CORRELATION_PREFIX + correlationId);
+        if (key == null || value == null) {
+            return;
+        }
+        String stored = stringRedisTemplate.opsForValue().get(KEY_PREFIX + key);
+        IdempotentReply pending = stored == null ? null : read(stored);
+        if (pending == null || pending.getState() != OrderState.PENDING) {
+            return;
+        }
+        logger.info("Completing Idempotency-Key {} with a late reply", key);
+        complete(key, pending.getRequestHash(), value);
+    }
+
+    private CompletableFuture<Object> await(String key, String requestHash,
+                                            Supplier<CompletableFuture<Object>> action, long deadline) {
+
+        String value = stringRedisTemplate.opsForValue().get(KEY_PREFIX + key);
+        if (value == null) {
+            return claim(key, requestHash, action);
+        }
+
+        IdempotentReply idempotentReply = read(value);
+        if (idempotentReply.getRequestHash() != null && !idempotentReply.getRequestHash().equals(requestHash)) {
+            return reused();
+        }
+        if (idempotentReply.getState() == OrderState.COMPLETED) {
+            logger.info("Replaying reply for Idempotency-Key {}", key);
+            return CompletableFuture.completedFuture(replay(idempotentReply));
+        }
+        if (System.nanoTime() - deadline > 0) {
+            return CompletableFuture.failedFuture(
+                    new RequestInProgressException("A request with this Idempotency-Key is still in progress"));
+        }
+        return CompletableFuture.supplyAsync(() -> key,
+                        CompletableFuture.delayedExecutor(pollIntervalMs, TimeUnit.MILLISECONDS))
+                .thenCompose(ignored -> await(key, requestHash, action, deadline));
+    }
+}
@@ -1,23 +1,45 @@
 package com.operatorservices.purchaseorderservice.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.operatorservices.purchaseorderservice.dto.ErrorRecordDto;
 import com.operatorservices.purchaseorderservice.dto.ExceptionDto;
+import com.operatorservices.purchaseorderservice.dto.PurchaseOrderBatchDto;
+import com.operatorservices.purchaseorderservice.dto.PurchaseOrderBatchReplyDto;
 import com.operatorservices.purchaseorderservice.dto.PurchaseOrderDto;
+import com.operatorservices.purchaseorderservice.dto.PurchaseOrderLineResultDto;
+import com.operatorservices.purchaseorderservice.dto.PurchaseOrderStatusDto;
+import com.operatorservices.purchaseorderservice.exception.CoreServiceLaggingException;
 import com.operatorservices.purchaseorderservice.exception.EntryNotFoundException;
 import com.operatorservices.purchaseorderservice.exception.InsufficientFundsException;
 import com.operatorservices.purchaseorderservice.exception.PurchaseNotPossibleException;
+import com.operatorservices.purchaseorderservice.exception.ReplyTimeoutException;
 import com.operatorservices.purchaseorderservice.model.ErrorRecord;
+import com.operatorservices.purchaseorderservice.model.OrderState;
+import com.operatorservices.purchaseorderservice.model.PurchaseOrderStatus;
 import com.operatorservices.purchaseorderservice.repository.ErrorRecordRepository;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Header;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.requestreply.CorrelationKey;
+import org.springframework.kafka.requestreply.KafkaReplyTimeoutException;
 import org.springframework.kafka.requestreply.ReplyingKafkaTemplate;
 import org.springframework.kafka.requestreply.RequestReplyFuture;
+import org.springframework.kafka.support.KafkaHeaders;
 import org.springframework.stereotype.Service;
 
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.List;
 import java.util.Objects;
-import java.util.concurrent.ExecutionException;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 
@@ -27,15 +49,55 @@ public class PurchaseOrderService {
     private final ErrorRecordRepository errorRecordRepository;
     private static final Logger logger = LoggerFactory.getLogger(PurchaseOrderService.class);
     private static final String TOPIC = "purchase-order";
-    private final ReplyingKafkaTemplate<String, PurchaseOrderDto, Object> replyingKafkaTemplate;
+    private static final String BATCH_TOPIC = "purchase-order-batch";
+    //Epoch millis after which nobody waits for the reply any more; core-service drops orders past it.
+    public static final String DEADLINE_HEADER = "order-deadline";
+    private static final long MAX_RETRY_AFTER_SECONDS = 60;
+    private static final String STATUS_PREFIX = "purchase-order-status:";
+    private final ReplyingKafkaTemplate<String, Object, Object> replyingKafkaTemplate;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ObjectMapper objectMapper;
+    private final IdempotencyService idempotencyService;
+    private final AdmissionLimiter admissionLimiter;
+    private final ConsumerLagMonitor consumerLagMonitor;
+
+    @Value("${kafka.purchase-order.status-topic}")
+    private String statusTopic;
+
+    @Value("${purchase-order.status-ttl-seconds}")
+    private long statusTtlSeconds;
+
+    @Value("${deadline.purchase-order-ms}")
+    private long purchaseOrderDeadlineMs;
+
+    @Value("${deadline.purchase-order-batch-ms}")
+    private long purchaseOrderBatchDeadlineMs;
 
     public PurchaseOrderService(ErrorRecordRepository errorRecordRepository,
                                 ReplyingKafkaTemplate<String,
-                                        PurchaseOrderDto,
-                                        Object> replyingKafkaTemplate) {
+                                        Object,
+                                        Object> replyingKafkaTemplate,
+                                StringRedisTemplate stringRedisTemplate,
+                                ObjectMapper objectMapper,
+                                IdempotencyService idempotencyService,
+                                AdmissionLimiter admissionLimiter,
+                                ConsumerLagMonitor consumerLagMonitor) {
 
         this.errorRecordRepository = errorRecordRepository;
         this.replyingKafkaTemplate = replyingKafkaTemplate;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.objectMapper = objectMapper;
+        this.idempotencyService = idempotencyService;
+        this.admissionLimiter = admissionLimiter;
+        this.consumerLagMonitor = consumerLagMonitor;
+    }
+
+    //A client's Request-Timeout can only shorten the deadline of the route, never extend it.
+    protected static Duration resolveTimeout(Long requestTimeoutMs, long routeDeadlineMs) {
+        if (requestTimeoutMs == null) {
+            return Duration.ofMillis(routeDeadlineMs);
+        }
+        return Duration.ofMillis(Math.max(1, Math.min(requestTimeoutMs, routeDeadlineMs)));
     }
 
     protected void saveErrorRecord(ExceptionDto exceptionDto){
@@ -43,20 +105,20 @@ public class PurchaseOrderService {
         errorRecordRepository.save(errorRecord);
     }
 
-    public Object sendPurchaseOrder (PurchaseOrderDto purchaseOrder) throws ExecutionException, InterruptedException {
-
-        logger.info("New Purchase Order has been recorded {}", purchaseOrder);
-
-        ProducerRecord<String, PurchaseOrderDto> record = new ProducerRecord<>(TOPIC, purchaseOrder);
-        replyingKafkaTemplate.setSharedReplyTopic(true);
-        RequestReplyFuture<String, PurchaseOrderDto, Object> future = replyingKafkaTemplate.sendAndReceive(record);
+    //A plain value with a TTL: Redis expires it on its own, where a @RedisHash would leave its index entries behind.
+    private void saveStatus(PurchaseOrderStatus status) {
+        try {
+            stringRedisTemplate.opsForValue().set(STATUS_PREFIX + status.getId(),
+                    objectMapper.writeValueAsString(status), Duration.ofSeconds(statusTtlSeconds));
+        } catch (JsonProcessingException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
 
-        Object response = Objects.requireNonNull(future.get()).value();
+    protected Object handleReply(Object response) {
 
         if(response instanceof ExceptionDto){
 
-            saveErrorRecord((ExceptionDto) response);
-
             switch (((ExceptionDto) response).getCode()) {
 
                 case 404:
@@ -75,6 +137,193 @@ public class PurchaseOrderService {
         return response;
     }
 
+    //Non-blocking: the returned future completes on the reply container thread once core-service
+    //answers, or exceptionally with a KafkaReplyTimeoutException once the timeout has passed.
+    //Throws OverloadedException without sending when the admission limit is reached (see AdmissionLimiter).
+    protected CompletableFuture<Object> requestPurchaseOrder(PurchaseOrderDto purchaseOrder, Duration timeout) {
+
+        logger.info("New Purchase Order has been recorded {}", purchaseOrder);
+
+        //Keyed by account: orders of one account land on one partition and are consumed in sequence,
+        //while orders of different accounts spread over all partitions and are consumed in parallel.
+        ProducerRecord<String, Object> record =
+                new ProducerRecord<>(TOPIC, purchaseOrder.getAccountId(), purchaseOrder);
+        return sendAndReceive(record, timeout, true).thenApply(reply -> {
+            Object response = Objects.requireNonNull(reply).value();
+            if (response instanceof ExceptionDto) {
+                saveErrorRecord((ExceptionDto) response);
+            }
+            return response;
+        });
+    }
+
+    //An order that would wait on its topic longer than its timeout is failed before it is produced (see
+    //ConsumerLagMonitor). Every other order holds an admission permit until its reply, its reply timeout
+    //or a send failure, and carries its deadline to core-service.
+    //ReplyingKafkaTemplate lets a failed send run into the reply timeout; it fails at once here instead, with
+    //the KafkaProducerException that tells IdempotencyService the order was never produced. A reply timeout
+    //fails with a ReplyTimeoutException that carries the correlation id a late reply will come back with.
+    private CompletableFuture<ConsumerRecord<String, Object>> sendAndReceive(ProducerRecord<String, Object> record,
+                                                                             Duration timeout,
+                                                                             boolean sampleLatency) {
+        Duration delay = consumerLagMonitor.estimatedDelay(record.topic());
+        if (delay.compareTo(timeout) > 0) {
+            throw new CoreServiceLaggingException("Purchase orders are not processed in time at this moment,"
+                    + " try again later",
+                    Math.min(MAX_RETRY_AFTER_SECONDS, Math.max(1, delay.minus(timeout).toSeconds())));
+        }
+        record.headers().add(DEADLINE_HEADER, String.valueOf(System.currentTimeMillis() + timeout.toMillis())
+                .getBytes(StandardCharsets.UTF_8));
+
+        AdmissionLimiter.Permit permit = admissionLimiter.acquire();
+        RequestReplyFuture<String, Object, Object> future;
+        try {
+            future = replyingKafkaTemplate.sendAndReceive(record, timeout);
+        } catch (RuntimeException exception) {
+            permit.releaseIgnoringLatency(exception);
+            throw exception;
+        }
+        future.getSendFuture().whenComplete((result, exception) -> {
+            if (exception != null) {
+                future.completeExceptionally(exception);
+            }
+        });
+        future.whenComplete((reply, exception) -> {
+            if (sampleLatency) {
+                permit.release(exception);
+            } else {
+                permit.releaseIgnoringLatency(exception);
+            }
+        });
+
+        String correlationId = new CorrelationKey(
+                record.headers().lastHeader(KafkaHeaders.CORRELATION_ID).value()).toString();
+        return future.exceptionallyCompose(exception -> CompletableFuture.failedFuture(
+                exception instanceof KafkaReplyTimeoutException ? new ReplyTimeoutException(correlationId) : exception));
+    }
+
+    public CompletableFuture<Object> sendPurchaseOrder(PurchaseOrderDto purchaseOrder, String idempotencyKey,
+                                                       Long requestTimeoutMs) {
+
+        Duration timeout = resolveTimeout(requestTimeoutMs, purchaseOrderDeadlineMs);
+        CompletableFuture<Object> reply = idempotencyKey == null
+                ? requestPurchaseOrder(purchaseOrder, timeout)
+                : idempotencyService.execute(idempotencyKey, purchaseOrder,
+                        () -> requestPurchaseOrder(purchaseOrder, timeout));
+
+        return reply.thenApply(this::handleReply);
+    }
+
+    //All lines travel in one message and core-service answers once, with a result per line. The batch is not
+    //keyed: its lines may belong to many accounts, and core-service guards every debit anyway.
+    protected CompletableFuture<Object> requestPurchaseOrderBatch(PurchaseOrderBatchDto purchaseOrderBatch,
+                                                                  Duration timeout) {
+
+        logger.info("New Purchase Order Batch of {} orders has been recorded", purchaseOrderBatch.getOrders().size());
+
+        ProducerRecord<String, Object> record = new ProducerRecord<>(BATCH_TOPIC, purchaseOrderBatch);
+
+        return sendAndReceive(record, timeout, false).thenApply(reply -> {
+            Object response = Objects.requireNonNull(reply).value();
+            if (response instanceof PurchaseOrderBatchReplyDto) {
+                ((PurchaseOrderBatchReplyDto) response).getResults().stream()
+                        .map(PurchaseOrderLineResultDto::getError)
+                        .filter(Objects::nonNull)
+                        .forEach(this::saveErrorRecord);
+            } else if (response instanceof ExceptionDto) {
+                saveErrorRecord((ExceptionDto) response);
+            }
+            return response;
+        });
+    }
+
+    public CompletableFuture<Object> sendPurchaseOrderBatch(PurchaseOrderBatchDto purchaseOrderBatch,
+                                                            String idempotencyKey,
+                                                            Long requestTimeoutMs) {
+
+        Duration timeout = resolveTimeout(requestTimeoutMs, purchaseOrderBatchDeadlineMs);
+        CompletableFuture<Object> reply = idempotencyKey == null
+                ? requestPurchaseOrderBatch(purchaseOrderBatch, timeout)
+                : idempotencyService.execute("batch:" + idempotencyKey, purchaseOrderBatch,
+                        () -> requestPurchaseOrderBatch(purchaseOrderBatch, timeout));
+
+        return reply.thenApply(this::handleReply);
+    }
+
+    //Accept-and-poll: the order is acknowledged as soon as the broker has it. core-service replies to the
+    //status topic under the order id, and consumeStatus records the outcome for getPurchaseOrderStatus.
+    protected CompletableFuture<PurchaseOrderStatusDto> acceptPurchaseOrder(PurchaseOrderDto purchaseOrder) {
+
+        String orderId = UUID.randomUUID().toString();
+        logger.info("New Purchase Order {} has been accepted {}", orderId, purchaseOrder);
+
+        saveStatus(new PurchaseOrderStatus(orderId, OrderState.PENDING));
+
+        ProducerRecord<String, Object> record =
+                new ProducerRecord<>(TOPIC, purchaseOrder.getAccountId(), purchaseOrder);
+        record.headers()
+                .add(KafkaHeaders.REPLY_TOPIC, statusTopic.getBytes(StandardCharsets.UTF_8))
+                .add(KafkaHeaders.CORRELATION_ID, orderId.getBytes(StandardCharsets.UTF_8));
+
+        //An order that was not produced is never answered, and its client never learns its id: its status goes.
+        CompletableFuture<?> sent;
+        try {
+            sent = replyingKafkaTemplate.send(record);
+        } catch (RuntimeException exception) {
+            stringRedisTemplate.delete(STATUS_PREFIX + orderId);
+            throw exception;
+        }
+        return sent
+                .whenComplete((result, exception) -> {
+                    if (exception != null) {
+                        stringRedisTemplate.delete(STATUS_PREFIX + orderId);
+                    }
+                })
+                .thenApply(result -> new PurchaseOrderStatusDto(orderId, OrderState.PENDING, null));
+    }
+
+    public CompletableFuture<PurchaseOrderStatusDto> submitPurchaseOrder(PurchaseOrderDto purchaseOrder,
+                                                                       String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return acceptPurchaseOrder(purchaseOrder);
+        }
+        //Own key space, since the stored reply is the acceptance rather than the purchase.
+        return idempotencyService.execute("accepted:" + idempotencyKey, purchaseOrder,
+                        () -> acceptPurchaseOrder(purchaseOrder).thenApply(Object.class::cast))
+                .thenApply(PurchaseOrderStatusDto.class::cast);
+    }
+
+    //One shared group: every outcome is recorded once, whichever instance accepted the order.
+    @KafkaListener(topics = "${kafka.purchase-order.status-topic}", groupId = "purchase-order-status")
+    public void consumeStatus(ConsumerRecord<String, Object> record) throws JsonProcessingException {
+
+        Header correlationId = record.headers().lastHeader(KafkaHeaders.CORRELATION_ID);
+        if (correlationId == null) {
+            logger.warn("Discarding status reply without an order id {}", record.value());
+            return;
+        }
+        String orderId = new String(correlationId.value(), StandardCharsets.UTF_8);
+
+        OrderState state = OrderState.COMPLETED;
+        if (record.value() instanceof ExceptionDto) {
+            saveErrorRecord((ExceptionDto) record.value());
+            state = OrderState.FAILED;
+        }
+        saveStatus(new PurchaseOrderStatus(orderId, state, objectMapper.writeValueAsString(record.value())));
+    }
+
+    public PurchaseOrderStatusDto getPurchaseOrderStatus(String orderId) throws JsonProcessingException {
+
+        String stored = stringRedisTemplate.opsForValue().get(STATUS_PREFIX + orderId);
+        if (stored == null) {
+            throw new EntryNotFoundException("No purchase order found with this id: " + orderId);
+        }
+        PurchaseOrderStatus status = objectMapper.readValue(stored, PurchaseOrderStatus.class);
+
+        Object reply = status.getReply() == null ? null : objectMapper.readValue(status.getReply(), Object.class);
+        return new PurchaseOrderStatusDto(status.getId(), status.getState(), reply);
+    }
+
     public List<ErrorRecordDto> getErrorRecords(){
         List<ErrorRecord> errorRecordList = (List<ErrorRecord>) errorRecordRepository.findAll();
         return errorRecordList.stream().map(ErrorRecordDto::convertToDto).collect(Collectors.toList());
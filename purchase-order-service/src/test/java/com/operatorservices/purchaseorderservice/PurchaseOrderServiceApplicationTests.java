@@ -3,7 +3,7 @@ package com.operatorservices.purchaseorderservice;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+@SpringBootTest(properties = "kafka.reply-partition = 0")
 class PurchaseOrderServiceApplicationTests {
 
 	@Test
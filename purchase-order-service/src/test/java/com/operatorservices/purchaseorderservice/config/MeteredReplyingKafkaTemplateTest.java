@@ -0,0 +1,46 @@
+package com.operatorservices.purchaseorderservice.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.GenericMessageListenerContainer;
+import org.springframework.kafka.requestreply.CorrelationKey;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.kafka.support.TopicPartitionOffset;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+class MeteredReplyingKafkaTemplateTest {
+
+    @DisplayName("Reply without Pending Request Test")
+    @Test
+    @SuppressWarnings("unchecked")
+    void whenReplyArrives_withoutPendingRequest_itShouldCountItAndHandItToTheLateReplyHandler() {
+
+        GenericMessageListenerContainer<String, Object> replyContainer = mock(GenericMessageListenerContainer.class);
+        when(replyContainer.getContainerProperties())
+                .thenReturn(new ContainerProperties(new TopicPartitionOffset("reply-topic", 2)));
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        BiConsumer<String, Object> lateReplyHandler = mock(BiConsumer.class);
+
+        MeteredReplyingKafkaTemplate<String, Object, Object> template = new MeteredReplyingKafkaTemplate<>(
+                mock(ProducerFactory.class), replyContainer, meterRegistry, lateReplyHandler);
+
+        byte[] correlationId = UUID.randomUUID().toString().getBytes();
+        ConsumerRecord<String, Object> reply = new ConsumerRecord<>("reply-topic", 2, 0L, null, "late");
+        reply.headers().add(KafkaHeaders.CORRELATION_ID, correlationId);
+
+        template.onMessage(List.of(reply));
+
+        assertEquals(1.0, meterRegistry.counter("kafka.reply.discarded").count());
+        verify(lateReplyHandler).accept(new CorrelationKey(correlationId).toString(), "late");
+    }
+}
@@ -0,0 +1,93 @@
+package com.operatorservices.purchaseorderservice.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ReplyPartitionLeaseTest {
+
+    private StringRedisTemplate stringRedisTemplate;
+    private ValueOperations<String, String> valueOperations;
+    private ReplyPartitionLease replyPartitionLease;
+
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+
+        stringRedisTemplate = mock(StringRedisTemplate.class);
+        valueOperations = mock(ValueOperations.class);
+        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        replyPartitionLease = new ReplyPartitionLease(stringRedisTemplate);
+        ReflectionTestUtils.setField(replyPartitionLease, "replyTopicPartitions", 3);
+        ReflectionTestUtils.setField(replyPartitionLease, "fixedPartition", -1);
+        ReflectionTestUtils.setField(replyPartitionLease, "leaseMs", 30000L);
+    }
+
+    @DisplayName("claim with Free Partition Test")
+    @Test
+    void whenClaim_withLeasedLowerPartitions_itShouldTakeTheFirstFreeOne() {
+
+        when(valueOperations.setIfAbsent(eq("reply-partition:0"), anyString(), any(Duration.class))).thenReturn(false);
+        when(valueOperations.setIfAbsent(eq("reply-partition:1"), anyString(), any(Duration.class))).thenReturn(true);
+
+        replyPartitionLease.claim();
+
+        assertEquals(1, replyPartitionLease.getPartition());
+        verify(valueOperations, never()).setIfAbsent(eq("reply-partition:2"), anyString(), any(Duration.class));
+    }
+
+    @DisplayName("claim with All Partitions Leased Test")
+    @Test
+    void whenClaim_withAllPartitionsLeased_itShouldThrowIllegalStateException() {
+
+        when(valueOperations.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(false);
+
+        assertThrows(IllegalStateException.class, () -> replyPartitionLease.claim());
+    }
+
+    @DisplayName("claim with Fixed Partition Test")
+    @Test
+    void whenClaim_withFixedPartition_itShouldNotTouchRedis() {
+
+        ReflectionTestUtils.setField(replyPartitionLease, "fixedPartition", 4);
+
+        replyPartitionLease.claim();
+
+        assertEquals(4, replyPartitionLease.getPartition());
+        verifyNoInteractions(stringRedisTemplate);
+    }
+
+    @DisplayName("renew with Lease Taken Over Test")
+    @Test
+    void whenRenew_withTheLeaseHeldByAnotherInstance_itShouldStopOnceAndReportDown() {
+
+        when(valueOperations.setIfAbsent(eq("reply-partition:0"), anyString(), any(Duration.class)))
+                .thenReturn(true, false);
+        when(valueOperations.get("reply-partition:0")).thenReturn("otherInstance");
+        AtomicInteger stopped = new AtomicInteger();
+        replyPartitionLease.claim();
+        replyPartitionLease.whenLost(stopped::incrementAndGet);
+
+        assertEquals(Status.UP, replyPartitionLease.health().getStatus());
+
+        replyPartitionLease.renew();
+        replyPartitionLease.renew();
+        replyPartitionLease.release();
+
+        assertEquals(1, stopped.get());
+        assertEquals(Status.DOWN, replyPartitionLease.health().getStatus());
+        verify(stringRedisTemplate, never()).delete(anyString());
+    }
+}
@@ -0,0 +1,243 @@
+package com.operatorservices.purchaseorderservice.controller;
+
+import com.operatorservices.purchaseorderservice.dto.ExceptionDto;
+import com.operatorservices.purchaseorderservice.dto.PurchaseOrderBatchDto;
+import com.operatorservices.purchaseorderservice.dto.PurchaseOrderBatchReplyDto;
+import com.operatorservices.purchaseorderservice.dto.PurchaseOrderDto;
+import com.operatorservices.purchaseorderservice.dto.PurchaseOrderLineResultDto;
+import com.operatorservices.purchaseorderservice.dto.PurchaseOrderStatusDto;
+import com.operatorservices.purchaseorderservice.exception.CoreServiceLaggingException;
+import com.operatorservices.purchaseorderservice.exception.IdempotencyKeyReusedException;
+import com.operatorservices.purchaseorderservice.exception.OverloadedException;
+import com.operatorservices.purchaseorderservice.model.OrderState;
+import com.operatorservices.purchaseorderservice.service.PurchaseOrderService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.kafka.requestreply.KafkaReplyTimeoutException;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(PurchaseOrderController.class)
+class PurchaseOrderControllerTest {
+
+    private static final String ACCOUNT_ID = "0b7e6a52-8d0e-4c3a-9f0e-5b2d3c1a4e6f";
+
+    private static final String ORDER = "{\"accountId\":\"" + ACCOUNT_ID + "\",\"subPackageId\":1,\"packagePrice\":10}";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private PurchaseOrderService purchaseOrderService;
+
+    @DisplayName("sendPurchaseOrder with Reply Test")
+    @Test
+    void whenSendPurchaseOrder_withReply_itShouldReturnCreatedAsynchronously() throws Exception {
+
+        when(purchaseOrderService.sendPurchaseOrder(any(PurchaseOrderDto.class), isNull(), isNull()))
+                .thenReturn(CompletableFuture.completedFuture("purchase"));
+
+        MvcResult mvcResult = mockMvc.perform(post("/v1/purchase-order")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(ORDER))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isCreated())
+                .andExpect(content().string("purchase"));
+    }
+
+    @DisplayName("sendPurchaseOrder with Uppercase Account Id Test")
+    @Test
+    void whenSendPurchaseOrder_withAnUppercaseAccountId_itShouldSendItLowercased() throws Exception {
+
+        when(purchaseOrderService.sendPurchaseOrder(eq(new PurchaseOrderDto(ACCOUNT_ID, 1L, (short) 10)), isNull(), isNull()))
+                .thenReturn(CompletableFuture.completedFuture("purchase"));
+
+        MvcResult mvcResult = mockMvc.perform(post("/v1/purchase-order")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(ORDER.replace(ACCOUNT_ID, ACCOUNT_ID.toUpperCase())))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isCreated())
+                .andExpect(content().string("purchase"));
+    }
+
+    @DisplayName("sendPurchaseOrder with Malformed Account Id Test")
+    @Test
+    void whenSendPurchaseOrder_withAMalformedAccountId_itShouldReturnBadRequest() throws Exception {
+
+        mockMvc.perform(post("/v1/purchase-order")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(ORDER.replace(ACCOUNT_ID, "accountId")))
+                .andExpect(status().isBadRequest());
+    }
+
+    @DisplayName("sendPurchaseOrder when Overloaded Test")
+    @Test
+    void whenSendPurchaseOrder_withTheAdmissionLimitReached_itShouldReturn429WithRetryAfter() throws Exception {
+
+        when(purchaseOrderService.sendPurchaseOrder(any(PurchaseOrderDto.class), isNull(), isNull()))
+                .thenThrow(new OverloadedException("Too many purchase orders in progress, try again later", 1));
+
+        mockMvc.perform(post("/v1/purchase-order")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(ORDER))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "1"));
+    }
+
+    @DisplayName("sendPurchaseOrder when Core Service is Lagging Test")
+    @Test
+    void whenSendPurchaseOrder_withCoreServiceLagging_itShouldReturn503WithRetryAfter() throws Exception {
+
+        when(purchaseOrderService.sendPurchaseOrder(any(PurchaseOrderDto.class), isNull(), eq(2000L)))
+                .thenThrow(new CoreServiceLaggingException("Purchase orders are not processed in time", 3));
+
+        mockMvc.perform(post("/v1/purchase-order")
+                        .header("Request-Timeout", "2000")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(ORDER))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "3"));
+    }
+
+    @DisplayName("sendPurchaseOrder with Idempotency Key Test")
+    @Test
+    void whenSendPurchaseOrder_withIdempotencyKey_itShouldPassTheKeyOn() throws Exception {
+
+        when(purchaseOrderService.sendPurchaseOrder(any(PurchaseOrderDto.class), eq("key"), isNull()))
+                .thenReturn(CompletableFuture.completedFuture("purchase"));
+
+        MvcResult mvcResult = mockMvc.perform(post("/v1/purchase-order")
+                        .header("Idempotency-Key", "key")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(ORDER))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isCreated());
+    }
+
+    @DisplayName("sendPurchaseOrder with Reused Idempotency Key Test")
+    @Test
+    void whenSendPurchaseOrder_withIdempotencyKeyOfAnotherRequest_itShouldReturnUnprocessableEntity() throws Exception {
+
+        when(purchaseOrderService.sendPurchaseOrder(any(PurchaseOrderDto.class), eq("key"), isNull()))
+                .thenReturn(CompletableFuture.failedFuture(new IdempotencyKeyReusedException(
+                        "This Idempotency-Key was already used with a different request")));
+
+        MvcResult mvcResult = mockMvc.perform(post("/v1/purchase-order")
+                        .header("Idempotency-Key", "key")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(ORDER))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isUnprocessableEntity());
+    }
+
+    @DisplayName("sendPurchaseOrder when Reply Times Out Test")
+    @Test
+    void whenSendPurchaseOrder_withReplyTimeout_itShouldReturnGatewayTimeout() throws Exception {
+
+        when(purchaseOrderService.sendPurchaseOrder(any(PurchaseOrderDto.class), isNull(), isNull()))
+                .thenReturn(CompletableFuture.failedFuture(new KafkaReplyTimeoutException("Reply timed out")));
+
+        MvcResult mvcResult = mockMvc.perform(post("/v1/purchase-order")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(ORDER))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isGatewayTimeout());
+    }
+
+    @DisplayName("sendPurchaseOrder in Async Mode Test")
+    @Test
+    void whenSendPurchaseOrder_inAsyncMode_itShouldReturnAcceptedWithOrderId() throws Exception {
+
+        when(purchaseOrderService.submitPurchaseOrder(any(PurchaseOrderDto.class), isNull()))
+                .thenReturn(CompletableFuture.completedFuture(
+                        new PurchaseOrderStatusDto("orderId", OrderState.PENDING, null)));
+
+        MvcResult mvcResult = mockMvc.perform(post("/v1/purchase-order")
+                        .param("async", "true")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(ORDER))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "http://localhost/v1/purchase-order/orderId"))
+                .andExpect(jsonPath("$.id").value("orderId"))
+                .andExpect(jsonPath("$.state").value("PENDING"));
+    }
+
+    @DisplayName("sendPurchaseOrderBatch Test")
+    @Test
+    void whenSendPurchaseOrderBatch_itShouldReturnTheResultPerLine() throws Exception {
+
+        when(purchaseOrderService.sendPurchaseOrderBatch(any(PurchaseOrderBatchDto.class), isNull(), isNull()))
+                .thenReturn(CompletableFuture.completedFuture(new PurchaseOrderBatchReplyDto(List.of(
+                        new PurchaseOrderLineResultDto(null, new ExceptionDto((short) 402, "Insufficient funds"))))));
+
+        MvcResult mvcResult = mockMvc.perform(post("/v1/purchase-order/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"orders\":[" + ORDER + "]}"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.results[0].error.code").value(402));
+    }
+
+    @DisplayName("sendPurchaseOrderBatch with Invalid Line Test")
+    @Test
+    void whenSendPurchaseOrderBatch_withAnInvalidLine_itShouldReturnBadRequest() throws Exception {
+
+        mockMvc.perform(post("/v1/purchase-order/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"orders\":[" + ORDER + ",{\"accountId\":\"\",\"subPackageId\":0,\"packagePrice\":10}]}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @DisplayName("getPurchaseOrderStatus with Valid Id Test")
+    @Test
+    void whenGetPurchaseOrderStatus_withAValidId_itShouldReturnTheOutcome() throws Exception {
+
+        when(purchaseOrderService.getPurchaseOrderStatus("orderId"))
+                .thenReturn(new PurchaseOrderStatusDto("orderId", OrderState.FAILED,
+                        Map.of("code", 402, "message", "Insufficient funds")));
+
+        mockMvc.perform(get("/v1/purchase-order/orderId"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.state").value("FAILED"))
+                .andExpect(jsonPath("$.reply.code").value(402));
+    }
+}
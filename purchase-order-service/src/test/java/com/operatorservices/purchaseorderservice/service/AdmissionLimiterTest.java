@@ -0,0 +1,98 @@
+package com.operatorservices.purchaseorderservice.service;
+
+import com.operatorservices.purchaseorderservice.exception.OverloadedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.requestreply.KafkaReplyTimeoutException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdmissionLimiterTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    private AdmissionLimiter newLimiter(int initialLimit, long targetLatencyMs) {
+        return new AdmissionLimiter(meterRegistry, initialLimit, 2, 6, targetLatencyMs, 0.5, 3);
+    }
+
+    private List<AdmissionLimiter.Permit> acquire(AdmissionLimiter admissionLimiter, int permits) {
+        List<AdmissionLimiter.Permit> acquired = new ArrayList<>();
+        for (int i = 0; i < permits; i++) {
+            acquired.add(admissionLimiter.acquire());
+        }
+        return acquired;
+    }
+
+    @DisplayName("acquire at the Limit Test")
+    @Test
+    void whenAcquire_atTheLimit_itShouldRejectWithRetryAfter() {
+        AdmissionLimiter admissionLimiter = newLimiter(4, 1000);
+        acquire(admissionLimiter, 4);
+
+        OverloadedException exception = assertThrows(OverloadedException.class, admissionLimiter::acquire);
+
+        assertEquals(3, exception.getRetryAfterSeconds());
+        assertEquals(1.0, meterRegistry.counter("purchase.order.admission.rejected").count());
+        assertEquals(4.0, meterRegistry.get("purchase.order.admission.in-flight").gauge().value());
+    }
+
+    @DisplayName("release with Fast Replies Test")
+    @Test
+    void whenRelease_withFastRepliesAtFullUse_itShouldRaiseTheLimitUpToTheMaximum() {
+        AdmissionLimiter admissionLimiter = newLimiter(4, 1000);
+
+        acquire(admissionLimiter, 4).forEach(permit -> permit.release(null));
+        assertEquals(6, admissionLimiter.getLimit());
+        assertEquals(0, admissionLimiter.getInFlight());
+        assertEquals(6.0, meterRegistry.get("purchase.order.admission.limit").gauge().value());
+    }
+
+    @DisplayName("release with Idle Limit Test")
+    @Test
+    void whenRelease_withLessThanHalfTheLimitInUse_itShouldKeepTheLimit() {
+        AdmissionLimiter admissionLimiter = newLimiter(4, 1000);
+
+        admissionLimiter.acquire().release(null);
+
+        assertEquals(4, admissionLimiter.getLimit());
+    }
+
+    @DisplayName("release after Reply Timeout Test")
+    @Test
+    void whenRelease_afterAReplyTimeout_itShouldLowerTheLimitDownToTheMinimum() {
+        AdmissionLimiter admissionLimiter = newLimiter(6, 1000);
+        List<AdmissionLimiter.Permit> permits = acquire(admissionLimiter, 3);
+
+        permits.get(0).releaseIgnoringLatency(new CompletionException(new KafkaReplyTimeoutException("timeout")));
+        assertEquals(3, admissionLimiter.getLimit());
+
+        permits.get(1).release(new KafkaReplyTimeoutException("timeout"));
+        assertEquals(2, admissionLimiter.getLimit());
+        admissionLimiter.acquire();
+        assertThrows(OverloadedException.class, admissionLimiter::acquire);
+    }
+
+    @DisplayName("release with Slow Reply Test")
+    @Test
+    void whenRelease_withAReplySlowerThanTheTarget_itShouldLowerTheLimitUnlessLatencyIsIgnored() {
+        AdmissionLimiter admissionLimiter = newLimiter(6, 0);
+        List<AdmissionLimiter.Permit> permits = acquire(admissionLimiter, 2);
+
+        permits.get(0).releaseIgnoringLatency(null);
+        assertEquals(6, admissionLimiter.getLimit());
+
+        permits.get(1).release(null);
+        assertEquals(3, admissionLimiter.getLimit());
+    }
+}
@@ -0,0 +1,87 @@
+package com.operatorservices.purchaseorderservice.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.admin.Admin;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class ConsumerLagMonitorTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private ConsumerLagMonitor consumerLagMonitor;
+
+    @BeforeEach
+    void setUp() {
+        consumerLagMonitor = new ConsumerLagMonitor(mock(Admin.class), new SimpleMeterRegistry(),
+                "listener-group", List.of("purchase-order"), 100, 2000, 10_000);
+    }
+
+    @DisplayName("estimatedDelay before any Poll Test")
+    @Test
+    void whenEstimatedDelay_beforeOffsetsWereRead_itShouldBeZero() {
+
+        assertEquals(Duration.ZERO, consumerLagMonitor.estimatedDelay("purchase-order"));
+        assertEquals(Duration.ZERO, consumerLagMonitor.estimatedDelay("unknown-topic"));
+    }
+
+    @DisplayName("estimatedDelay after the First Poll Test")
+    @Test
+    void whenEstimatedDelay_withLagFromASingleSample_itShouldBeZeroUntilARateIsKnown() {
+
+        consumerLagMonitor.record("purchase-order", 0, 1000, 0);
+
+        assertEquals(Duration.ZERO, consumerLagMonitor.estimatedDelay("purchase-order"));
+    }
+
+    @DisplayName("estimatedDelay with Lag and Consumption Rate Test")
+    @Test
+    void whenEstimatedDelay_withLagAboveMinLag_itShouldBeTheLagOverTheConsumptionRate() {
+
+        consumerLagMonitor.record("purchase-order", 0, 0, 0);
+        consumerLagMonitor.record("purchase-order", 400, 1400, SECOND);
+
+        //200 records per second after smoothing, 1000 behind
+        assertEquals(Duration.ofSeconds(5), consumerLagMonitor.estimatedDelay("purchase-order"));
+    }
+
+    @DisplayName("estimatedDelay with Lag below Min Lag Test")
+    @Test
+    void whenEstimatedDelay_withLagBelowMinLag_itShouldBeZero() {
+
+        consumerLagMonitor.record("purchase-order", 0, 0, 0);
+        consumerLagMonitor.record("purchase-order", 0, 99, SECOND);
+
+        assertEquals(Duration.ZERO, consumerLagMonitor.estimatedDelay("purchase-order"));
+    }
+
+    @DisplayName("estimatedDelay with Consumers Stalled within the Window Test")
+    @Test
+    void whenEstimatedDelay_withLagAndNoProgressForLessThanTheStallWindow_itShouldBeZero() {
+
+        consumerLagMonitor.record("purchase-order", 500, 500, 0);
+        consumerLagMonitor.record("purchase-order", 500, 1000, SECOND);
+
+        assertEquals(Duration.ZERO, consumerLagMonitor.estimatedDelay("purchase-order"));
+    }
+
+    @DisplayName("estimatedDelay with Stalled Consumers Test")
+    @Test
+    void whenEstimatedDelay_withLagAndNoProgressForTheStallWindow_itShouldBeUnbounded() {
+
+        consumerLagMonitor.record("purchase-order", 500, 1000, 0);
+        consumerLagMonitor.record("purchase-order", 500, 1000, 5 * SECOND);
+        consumerLagMonitor.record("purchase-order", 500, 1200, 10 * SECOND);
+
+        assertEquals(ChronoUnit.FOREVER.getDuration(), consumerLagMonitor.estimatedDelay("purchase-order"));
+    }
+}
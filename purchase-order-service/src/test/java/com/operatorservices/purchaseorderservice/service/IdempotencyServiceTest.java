@@ -0,0 +1,211 @@
+package com.operatorservices.purchaseorderservice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.operatorservices.purchaseorderservice.dto.ExceptionDto;
+import com.operatorservices.purchaseorderservice.dto.PurchaseOrderDto;
+import com.operatorservices.purchaseorderservice.exception.IdempotencyKeyReusedException;
+import com.operatorservices.purchaseorderservice.exception.OverloadedException;
+import com.operatorservices.purchaseorderservice.exception.ReplyTimeoutException;
+import com.operatorservices.purchaseorderservice.exception.RequestInProgressException;
+import com.operatorservices.purchaseorderservice.model.IdempotentReply;
+import com.operatorservices.purchaseorderservice.model.OrderState;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.kafka.core.KafkaProducerException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class IdempotencyServiceTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private StringRedisTemplate stringRedisTemplate;
+    private ValueOperations<String, String> valueOperations;
+    private IdempotencyService idempotencyService;
+
+    private final PurchaseOrderDto request = new PurchaseOrderDto("accountId", 1L, (short) 10);
+
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+
+        stringRedisTemplate = mock(StringRedisTemplate.class);
+        valueOperations = mock(ValueOperations.class);
+        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        idempotencyService = new IdempotencyService(stringRedisTemplate, objectMapper);
+        ReflectionTestUtils.setField(idempotencyService, "ttlSeconds", 60L);
+        ReflectionTestUtils.setField(idempotencyService, "unknownOutcomeTtlSeconds", 600L);
+        ReflectionTestUtils.setField(idempotencyService, "pollIntervalMs", 10L);
+        ReflectionTestUtils.setField(idempotencyService, "replyTimeoutMs", 200L);
+    }
+
+    private void claimSucceeds(boolean claimed) {
+        when(valueOperations.setIfAbsent(eq("idempotency:key"), anyString(), any(Duration.class))).thenReturn(claimed);
+    }
+
+    @DisplayName("execute with Repeat While in Flight Test")
+    @Test
+    void whenExecute_withRepeatWhileInFlight_itShouldRunTheActionOnceAndCacheTheReply() throws Exception {
+
+        claimSucceeds(true);
+        CompletableFuture<Object> reply = new CompletableFuture<>();
+        AtomicInteger runs = new AtomicInteger();
+        Supplier<CompletableFuture<Object>> action = () -> {
+            runs.incrementAndGet();
+            return reply;
+        };
+
+        CompletableFuture<Object> first = idempotencyService.execute("key", request, action);
+        CompletableFuture<Object> repeat = idempotencyService.execute("key", request, action);
+        reply.complete(new ExceptionDto((short) 402, "Insufficient funds"));
+
+        assertEquals(first.get(), repeat.get());
+        assertEquals(1, runs.get());
+        verify(valueOperations).set(eq("idempotency:key"),
+                argThat(value -> value.contains("COMPLETED") && value.contains("ExceptionDto")),
+                eq(Duration.ofSeconds(60)));
+    }
+
+    @DisplayName("execute with Completed Key Test")
+    @Test
+    void whenExecute_withCompletedKey_itShouldReplayTheStoredReply() throws Exception {
+
+        ExceptionDto exceptionDto = new ExceptionDto((short) 403, "Not purchasable");
+        claimSucceeds(false);
+        when(valueOperations.get("idempotency:key")).thenReturn(objectMapper.writeValueAsString(new IdempotentReply(
+                OrderState.COMPLETED, ExceptionDto.class.getName(), objectMapper.writeValueAsString(exceptionDto))));
+
+        Object test = idempotencyService.execute("key", request, () -> fail("action must not run")).get();
+
+        assertEquals(exceptionDto, test);
+    }
+
+    @DisplayName("execute with Key Pending Elsewhere Test")
+    @Test
+    void whenExecute_withKeyPendingBeyondTimeout_itShouldFailWithRequestInProgressException() throws Exception {
+
+        claimSucceeds(false);
+        when(valueOperations.get("idempotency:key"))
+                .thenReturn(objectMapper.writeValueAsString(new IdempotentReply(OrderState.PENDING)));
+
+        CompletableFuture<Object> test = idempotencyService.execute("key", request, () -> fail("action must not run"));
+
+        ExecutionException exception = assertThrows(ExecutionException.class, test::get);
+        assertInstanceOf(RequestInProgressException.class, exception.getCause());
+    }
+
+    @DisplayName("execute when Reply Times Out Test")
+    @Test
+    void whenExecute_withReplyTimeout_itShouldKeepTheKeyPendingForTheLateReply() {
+
+        claimSucceeds(true);
+
+        CompletableFuture<Object> test = idempotencyService.execute("key", request,
+                () -> CompletableFuture.failedFuture(new ReplyTimeoutException("correlationId")));
+
+        ExecutionException exception = assertThrows(ExecutionException.class, test::get);
+        assertInstanceOf(ReplyTimeoutException.class, exception.getCause());
+        verify(stringRedisTemplate, never()).delete(anyString());
+        verify(valueOperations).set(eq("idempotency:key"), argThat(value -> value.contains("PENDING")),
+                eq(Duration.ofSeconds(600)));
+        verify(valueOperations).set("idempotency-correlation:correlationId", "key", Duration.ofSeconds(600));
+    }
+
+    @DisplayName("execute when Send Fails Test")
+    @Test
+    void whenExecute_withFailedSend_itShouldReleaseTheKey() {
+
+        claimSucceeds(true);
+        KafkaProducerException sendFailure = new KafkaProducerException(
+                new ProducerRecord<>("purchase-order", request), "Send failed", new TimeoutException());
+
+        CompletableFuture<Object> test = idempotencyService.execute("key", request,
+                () -> CompletableFuture.failedFuture(sendFailure));
+
+        assertThrows(ExecutionException.class, test::get);
+        verify(stringRedisTemplate).delete("idempotency:key");
+        verify(valueOperations, never()).set(anyString(), anyString(), any(Duration.class));
+    }
+
+    @DisplayName("execute when Rejected Before Sending Test")
+    @Test
+    void whenExecute_withActionRejectedBeforeSending_itShouldReleaseTheKey() {
+
+        claimSucceeds(true);
+
+        CompletableFuture<Object> test = idempotencyService.execute("key", request, () -> {
+            throw new OverloadedException("Too many purchase orders in flight", 1);
+        });
+
+        ExecutionException exception = assertThrows(ExecutionException.class, test::get);
+        assertInstanceOf(OverloadedException.class, exception.getCause());
+        verify(stringRedisTemplate).delete("idempotency:key");
+        verify(valueOperations, never()).set(anyString(), anyString(), any(Duration.class));
+    }
+
+    @DisplayName("execute with Key Reused for Another Request Test")
+    @Test
+    void whenExecute_withKeyUsedForAnotherRequest_itShouldRejectIt() throws Exception {
+
+        claimSucceeds(false);
+        when(valueOperations.get("idempotency:key")).thenReturn(objectMapper.writeValueAsString(
+                new IdempotentReply(OrderState.COMPLETED, String.class.getName(), "\"purchase\"", "another")));
+
+        CompletableFuture<Object> test = idempotencyService.execute("key", request, () -> fail("action must not run"));
+
+        ExecutionException exception = assertThrows(ExecutionException.class, test::get);
+        assertInstanceOf(IdempotencyKeyReusedException.class, exception.getCause());
+    }
+
+    @DisplayName("execute with Key Reused While in Flight Test")
+    @Test
+    void whenExecute_withKeyInFlightForAnotherRequest_itShouldRejectIt() {
+
+        claimSucceeds(true);
+        idempotencyService.execute("key", request, CompletableFuture::new);
+
+        CompletableFuture<Object> test = idempotencyService.execute("key",
+                new PurchaseOrderDto("accountId", 2L, (short) 10), () -> fail("action must not run"));
+
+        ExecutionException exception = assertThrows(ExecutionException.class, test::get);
+        assertInstanceOf(IdempotencyKeyReusedException.class, exception.getCause());
+    }
+
+    @DisplayName("completeLate Test")
+    @Test
+    void whenCompleteLate_withKeyPendingAfterTimeout_itShouldStoreTheReply() throws Exception {
+
+        when(valueOperations.getAndDelete("idempotency-correlation:correlationId")).thenReturn("key");
+        when(valueOperations.get("idempotency:key")).thenReturn(objectMapper.writeValueAsString(
+                new IdempotentReply(OrderState.PENDING, null, null, "hash")));
+
+        idempotencyService.completeLate("correlationId", new ExceptionDto((short) 402, "Insufficient funds"));
+
+        verify(valueOperations).set(eq("idempotency:key"),
+                argThat(value -> value.contains("COMPLETED") && value.contains("ExceptionDto") && value.contains("hash")),
+                eq(Duration.ofSeconds(60)));
+    }
+
+    @DisplayName("completeLate with Unknown Correlation Id Test")
+    @Test
+    void whenCompleteLate_withReplyOfNoTimedOutOrder_itShouldStoreNothing() {
+
+        idempotencyService.completeLate("correlationId", "purchase");
+
+        verify(valueOperations, never()).set(anyString(), anyString(), any(Duration.class));
+    }
+}
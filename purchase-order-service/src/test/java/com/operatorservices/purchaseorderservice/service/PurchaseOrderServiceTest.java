@@ -0,0 +1,312 @@
+package com.operatorservices.purchaseorderservice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.operatorservices.purchaseorderservice.dto.ExceptionDto;
+import com.operatorservices.purchaseorderservice.dto.PurchaseOrderBatchDto;
+import com.operatorservices.purchaseorderservice.dto.PurchaseOrderBatchReplyDto;
+import com.operatorservices.purchaseorderservice.dto.PurchaseOrderDto;
+import com.operatorservices.purchaseorderservice.dto.PurchaseOrderLineResultDto;
+import com.operatorservices.purchaseorderservice.dto.PurchaseOrderStatusDto;
+import com.operatorservices.purchaseorderservice.exception.CoreServiceLaggingException;
+import com.operatorservices.purchaseorderservice.exception.EntryNotFoundException;
+import com.operatorservices.purchaseorderservice.exception.InsufficientFundsException;
+import com.operatorservices.purchaseorderservice.exception.OverloadedException;
+import com.operatorservices.purchaseorderservice.exception.ReplyTimeoutException;
+import com.operatorservices.purchaseorderservice.model.ErrorRecord;
+import com.operatorservices.purchaseorderservice.model.OrderState;
+import com.operatorservices.purchaseorderservice.repository.ErrorRecordRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.kafka.core.KafkaProducerException;
+import org.springframework.kafka.requestreply.CorrelationKey;
+import org.springframework.kafka.requestreply.KafkaReplyTimeoutException;
+import org.springframework.kafka.requestreply.ReplyingKafkaTemplate;
+import org.springframework.kafka.requestreply.RequestReplyFuture;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class PurchaseOrderServiceTest {
+
+    private ErrorRecordRepository errorRecordRepository;
+    private ReplyingKafkaTemplate<String, Object, Object> replyingKafkaTemplate;
+    private PurchaseOrderService purchaseOrderService;
+    private StringRedisTemplate stringRedisTemplate;
+    private ValueOperations<String, String> valueOperations;
+    private IdempotencyService idempotencyService;
+    private RequestReplyFuture<String, Object, Object> replyFuture;
+    private CompletableFuture<SendResult<String, Object>> sendFuture;
+    private AdmissionLimiter admissionLimiter;
+    private ConsumerLagMonitor consumerLagMonitor;
+
+    private static final byte[] CORRELATION_ID = UUID.randomUUID().toString().getBytes(StandardCharsets.UTF_8);
+
+    private final PurchaseOrderDto purchaseOrderDto = new PurchaseOrderDto("accountId", 1L, (short) 10);
+
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+
+        errorRecordRepository = mock(ErrorRecordRepository.class);
+        replyingKafkaTemplate = mock(ReplyingKafkaTemplate.class);
+        stringRedisTemplate = mock(StringRedisTemplate.class);
+        valueOperations = mock(ValueOperations.class);
+        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        idempotencyService = mock(IdempotencyService.class);
+        admissionLimiter = new AdmissionLimiter(new SimpleMeterRegistry(), 2, 1, 10, 1000, 0.9, 1);
+        consumerLagMonitor = mock(ConsumerLagMonitor.class);
+        when(consumerLagMonitor.estimatedDelay(any())).thenReturn(Duration.ZERO);
+        purchaseOrderService = new PurchaseOrderService(errorRecordRepository, replyingKafkaTemplate,
+                stringRedisTemplate, new ObjectMapper().findAndRegisterModules(), idempotencyService, admissionLimiter,
+                consumerLagMonitor);
+        ReflectionTestUtils.setField(purchaseOrderService, "statusTopic", "purchase-order-status");
+        ReflectionTestUtils.setField(purchaseOrderService, "statusTtlSeconds", 86400L);
+        ReflectionTestUtils.setField(purchaseOrderService, "purchaseOrderDeadlineMs", 5000L);
+        ReflectionTestUtils.setField(purchaseOrderService, "purchaseOrderBatchDeadlineMs", 8000L);
+        replyFuture = new RequestReplyFuture<>();
+        sendFuture = new CompletableFuture<>();
+        ReflectionTestUtils.setField(replyFuture, "sendFuture", sendFuture);
+        //The template tags every request with its correlation id before sending it.
+        when(replyingKafkaTemplate.sendAndReceive(any(ProducerRecord.class), any(Duration.class))).thenAnswer(invocation -> {
+            invocation.getArgument(0, ProducerRecord.class).headers().add(KafkaHeaders.CORRELATION_ID, CORRELATION_ID);
+            return replyFuture;
+        });
+    }
+
+    @DisplayName("sendPurchaseOrder Does Not Block Test")
+    @Test
+    void whenSendPurchaseOrder_beforeReplyArrives_itShouldReturnAPendingFuture() throws Exception {
+
+        CompletableFuture<Object> test = purchaseOrderService.sendPurchaseOrder(purchaseOrderDto, null, null);
+
+        assertFalse(test.isDone());
+
+        replyFuture.complete(new ConsumerRecord<>("reply-topic", 0, 0L, "accountId", "purchase"));
+
+        assertEquals("purchase", test.get());
+        verifyNoInteractions(errorRecordRepository);
+    }
+
+    @DisplayName("sendPurchaseOrder when Overloaded Test")
+    @Test
+    @SuppressWarnings("unchecked")
+    void whenSendPurchaseOrder_withTheAdmissionLimitReached_itShouldRejectWithoutSending() throws Exception {
+
+        CompletableFuture<Object> first = purchaseOrderService.sendPurchaseOrder(purchaseOrderDto, null, null);
+        purchaseOrderService.sendPurchaseOrder(purchaseOrderDto, null, null);
+
+        assertThrows(OverloadedException.class, () -> purchaseOrderService.sendPurchaseOrder(purchaseOrderDto, null, null));
+        verify(replyingKafkaTemplate, times(2)).sendAndReceive(any(ProducerRecord.class), any(Duration.class));
+
+        replyFuture.complete(new ConsumerRecord<>("reply-topic", 0, 0L, "accountId", "purchase"));
+
+        assertEquals("purchase", first.get());
+        assertEquals(0, admissionLimiter.getInFlight());
+    }
+
+    @DisplayName("sendPurchaseOrder with Request Timeout Test")
+    @Test
+    @SuppressWarnings("unchecked")
+    void whenSendPurchaseOrder_withRequestTimeout_itShouldWaitThatLongAndSendTheDeadline() {
+
+        long before = System.currentTimeMillis();
+        purchaseOrderService.sendPurchaseOrder(purchaseOrderDto, null, 2000L);
+
+        verify(replyingKafkaTemplate).sendAndReceive(argThat((ProducerRecord<String, Object> record) -> {
+            long deadline = Long.parseLong(new String(record.headers()
+                    .lastHeader(PurchaseOrderService.DEADLINE_HEADER).value(), StandardCharsets.UTF_8));
+            return deadline >= before + 2000 && deadline <= System.currentTimeMillis() + 2000;
+        }), eq(Duration.ofMillis(2000)));
+    }
+
+    @DisplayName("sendPurchaseOrder with Request Timeout above the Route Deadline Test")
+    @Test
+    @SuppressWarnings("unchecked")
+    void whenSendPurchaseOrder_withRequestTimeoutAboveTheRouteDeadline_itShouldWaitTheRouteDeadline() {
+
+        purchaseOrderService.sendPurchaseOrder(purchaseOrderDto, null, 60000L);
+
+        verify(replyingKafkaTemplate).sendAndReceive(any(ProducerRecord.class), eq(Duration.ofMillis(5000)));
+    }
+
+    @DisplayName("sendPurchaseOrder when Core Service is Lagging Test")
+    @Test
+    @SuppressWarnings("unchecked")
+    void whenSendPurchaseOrder_withEstimatedDelayAboveTheTimeout_itShouldFailWithoutSending() {
+
+        when(consumerLagMonitor.estimatedDelay("purchase-order")).thenReturn(Duration.ofSeconds(30));
+
+        CoreServiceLaggingException exception = assertThrows(CoreServiceLaggingException.class,
+                () -> purchaseOrderService.sendPurchaseOrder(purchaseOrderDto, null, null));
+
+        assertEquals(25, exception.getRetryAfterSeconds());
+        verify(replyingKafkaTemplate, never()).sendAndReceive(any(ProducerRecord.class), any(Duration.class));
+        assertEquals(0, admissionLimiter.getInFlight());
+    }
+
+    @DisplayName("sendPurchaseOrder with Error Reply Test")
+    @Test
+    void whenSendPurchaseOrder_withErrorReply_itShouldCompleteExceptionally() {
+
+        CompletableFuture<Object> test = purchaseOrderService.sendPurchaseOrder(purchaseOrderDto, null, null);
+        replyFuture.complete(new ConsumerRecord<>("reply-topic", 0, 0L, "accountId",
+                new ExceptionDto((short) 402, "Insufficient funds")));
+
+        ExecutionException exception = assertThrows(ExecutionException.class, test::get);
+        assertInstanceOf(InsufficientFundsException.class, exception.getCause());
+        verify(errorRecordRepository).save(any(ErrorRecord.class));
+    }
+
+    @DisplayName("sendPurchaseOrder when Reply Times Out Test")
+    @Test
+    void whenSendPurchaseOrder_withReplyTimeout_itShouldCompleteWithTheCorrelationIdOfTheOrder() {
+
+        CompletableFuture<Object> test = purchaseOrderService.sendPurchaseOrder(purchaseOrderDto, null, null);
+        sendFuture.complete(null);
+        replyFuture.completeExceptionally(new KafkaReplyTimeoutException("Reply timed out"));
+
+        ExecutionException exception = assertThrows(ExecutionException.class, test::get);
+        ReplyTimeoutException replyTimeoutException =
+                assertInstanceOf(ReplyTimeoutException.class, exception.getCause());
+        assertEquals(new CorrelationKey(CORRELATION_ID).toString(), replyTimeoutException.getCorrelationId());
+        verifyNoInteractions(errorRecordRepository);
+    }
+
+    @DisplayName("sendPurchaseOrder when Send Fails Test")
+    @Test
+    void whenSendPurchaseOrder_withFailedSend_itShouldFailWithoutWaitingForTheReplyTimeout() {
+
+        CompletableFuture<Object> test = purchaseOrderService.sendPurchaseOrder(purchaseOrderDto, null, null);
+        sendFuture.completeExceptionally(new KafkaProducerException(
+                new ProducerRecord<>("purchase-order", purchaseOrderDto), "Send failed", new TimeoutException()));
+
+        ExecutionException exception = assertThrows(ExecutionException.class, test::get);
+        assertInstanceOf(KafkaProducerException.class, exception.getCause());
+        assertEquals(0, admissionLimiter.getInFlight());
+    }
+
+    @DisplayName("sendPurchaseOrder with Idempotency Key Test")
+    @Test
+    void whenSendPurchaseOrder_withIdempotencyKey_itShouldMapTheReplyOfIdempotencyService() {
+
+        when(idempotencyService.execute(eq("key"), eq(purchaseOrderDto), any()))
+                .thenReturn(CompletableFuture.completedFuture(new ExceptionDto((short) 402, "Insufficient funds")));
+
+        CompletableFuture<Object> test = purchaseOrderService.sendPurchaseOrder(purchaseOrderDto, "key", null);
+
+        ExecutionException exception = assertThrows(ExecutionException.class, test::get);
+        assertInstanceOf(InsufficientFundsException.class, exception.getCause());
+        verify(replyingKafkaTemplate, never()).sendAndReceive(any(ProducerRecord.class), any(Duration.class));
+        verifyNoInteractions(errorRecordRepository);
+    }
+
+    @DisplayName("sendPurchaseOrderBatch Test")
+    @Test
+    @SuppressWarnings("unchecked")
+    void whenSendPurchaseOrderBatch_itShouldSendOneMessageAndRecordEveryFailedLine() throws Exception {
+
+        PurchaseOrderBatchDto batch = new PurchaseOrderBatchDto(List.of(purchaseOrderDto, purchaseOrderDto));
+        PurchaseOrderBatchReplyDto reply = new PurchaseOrderBatchReplyDto(List.of(
+                new PurchaseOrderLineResultDto(null, new ExceptionDto((short) 402, "Insufficient funds")),
+                new PurchaseOrderLineResultDto(null, new ExceptionDto((short) 404, "No account found"))));
+
+        CompletableFuture<Object> test = purchaseOrderService.sendPurchaseOrderBatch(batch, null, null);
+        replyFuture.complete(new ConsumerRecord<>("reply-topic", 0, 0L, null, reply));
+
+        assertEquals(reply, test.get());
+        verify(replyingKafkaTemplate).sendAndReceive(argThat((ProducerRecord<String, Object> record) ->
+                record.topic().equals("purchase-order-batch") && record.value() == batch), eq(Duration.ofMillis(8000)));
+        verify(errorRecordRepository, times(2)).save(any(ErrorRecord.class));
+    }
+
+    @DisplayName("submitPurchaseOrder Test")
+    @Test
+    @SuppressWarnings("unchecked")
+    void whenSubmitPurchaseOrder_itShouldRecordPendingAndProduceWithStatusHeaders() throws Exception {
+
+        when(replyingKafkaTemplate.send(any(ProducerRecord.class))).thenReturn(CompletableFuture.completedFuture(null));
+
+        PurchaseOrderStatusDto test = purchaseOrderService.submitPurchaseOrder(purchaseOrderDto, null).get();
+
+        assertEquals(OrderState.PENDING, test.getState());
+        verify(valueOperations).set(eq("purchase-order-status:" + test.getId()),
+                argThat(json -> json.contains("\"PENDING\"")), eq(Duration.ofSeconds(86400)));
+        verify(replyingKafkaTemplate).send(argThat((ProducerRecord<String, Object> record) ->
+                "purchase-order-status".equals(new String(
+                        record.headers().lastHeader(KafkaHeaders.REPLY_TOPIC).value(), StandardCharsets.UTF_8))
+                        && test.getId().equals(new String(
+                        record.headers().lastHeader(KafkaHeaders.CORRELATION_ID).value(), StandardCharsets.UTF_8))));
+        verify(replyingKafkaTemplate, never()).sendAndReceive(any(ProducerRecord.class), any(Duration.class));
+    }
+
+    @DisplayName("submitPurchaseOrder when Send Fails Test")
+    @Test
+    @SuppressWarnings("unchecked")
+    void whenSubmitPurchaseOrder_withTheSendFailing_itShouldDropThePendingStatus() {
+
+        when(replyingKafkaTemplate.send(any(ProducerRecord.class)))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")));
+
+        CompletableFuture<PurchaseOrderStatusDto> test = purchaseOrderService.submitPurchaseOrder(purchaseOrderDto, null);
+
+        assertThrows(ExecutionException.class, test::get);
+        verify(valueOperations).set(argThat(key -> key.startsWith("purchase-order-status:")), any(),
+                eq(Duration.ofSeconds(86400)));
+        verify(stringRedisTemplate).delete(argThat((String key) -> key.startsWith("purchase-order-status:")));
+    }
+
+    @DisplayName("getPurchaseOrderStatus with Valid Id Test")
+    @Test
+    void whenGetPurchaseOrderStatus_withAValidId_itShouldReturnTheStoredOutcome() throws Exception {
+
+        when(valueOperations.get("purchase-order-status:orderId"))
+                .thenReturn("{\"id\":\"orderId\",\"state\":\"COMPLETED\",\"reply\":\"\\\"purchase\\\"\"}");
+
+        PurchaseOrderStatusDto test = purchaseOrderService.getPurchaseOrderStatus("orderId");
+
+        assertEquals(new PurchaseOrderStatusDto("orderId", OrderState.COMPLETED, "purchase"), test);
+    }
+
+    @DisplayName("consumeStatus with Error Reply Test")
+    @Test
+    void whenConsumeStatus_withErrorReply_itShouldRecordFailedOutcome() throws Exception {
+
+        ConsumerRecord<String, Object> record = new ConsumerRecord<>("purchase-order-status", 0, 0L, null,
+                new ExceptionDto((short) 403, "Not purchasable"));
+        record.headers().add(KafkaHeaders.CORRELATION_ID, "orderId".getBytes(StandardCharsets.UTF_8));
+
+        purchaseOrderService.consumeStatus(record);
+
+        verify(errorRecordRepository).save(any(ErrorRecord.class));
+        verify(valueOperations).set(eq("purchase-order-status:orderId"),
+                argThat(json -> json.contains("\"FAILED\"")), eq(Duration.ofSeconds(86400)));
+    }
+
+    @DisplayName("getPurchaseOrderStatus with Invalid Id Test")
+    @Test
+    void whenGetPurchaseOrderStatus_withAnInvalidId_itShouldThrowEntryNotFoundException() {
+
+        assertThrows(EntryNotFoundException.class,
+                () -> purchaseOrderService.getPurchaseOrderStatus("invalidId"));
+    }
+}